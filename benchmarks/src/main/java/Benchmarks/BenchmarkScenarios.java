@@ -0,0 +1,36 @@
+package Benchmarks;
+
+import Classes.ProblemScenario;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Reads the problem scenarios used by the benchmarks
+ * The instances are paths relative to the data directory: the "uflp.dataDir" system property,
+ * or ProblemScenariosData in the working directory (run the benchmarks from the project directory)
+ */
+public class BenchmarkScenarios {
+
+    private final static String dataDirProperty = "uflp.dataDir";
+    private final static String defaultDataDir = "ProblemScenariosData";
+
+    /**
+     * Directory with the instances
+     */
+    public static String getDataDir() {
+        return System.getProperty(dataDirProperty, defaultDataDir);
+    }
+
+    /**
+     * Reads the scenario of the given instance (its optimal value is not needed by the benchmarks)
+     */
+    public static ProblemScenario read(String instance) {
+        Path problemScenarioFilePath = Paths.get(BenchmarkScenarios.getDataDir(), instance);
+        ProblemScenario problemScenario = new ProblemScenario(problemScenarioFilePath.getFileName().toString(), -1);
+        problemScenario.ReadScenarioFromFile(problemScenarioFilePath);
+        if (problemScenario.getNumberOfWarehouseLocations() == 0)
+            throw new IllegalStateException("Could not read the scenario " + problemScenarioFilePath.toAbsolutePath());
+        return problemScenario;
+    }
+}
@@ -0,0 +1,55 @@
+package Benchmarks;
+
+import Classes.BitSolution;
+import Classes.ProblemScenario;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full cost calculation of a solution (ProblemScenario.calculateTotalCost), on an instance of each family
+ * Cycles through a few random solutions (each warehouse open with a 50% chance, like the GA chromosomes)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CostEvaluationBenchmark {
+
+    private final static int numberOfSolutions = 16; //power of 2
+
+    @Param({
+            "ORLIB/ORLIB-uncap/70/cap71.txt",
+            "ORLIB/ORLIB-uncap/100/cap101.txt",
+            "ORLIB/ORLIB-uncap/130/cap131.txt",
+            "ORLIB/ORLIB-uncap/a-c/capa.txt",
+            "M/Kcapmo1.txt",
+            "M/Kcapmr1.txt"
+    })
+    public String instance;
+
+    private ProblemScenario problemScenario;
+    private BitSolution[] solutions;
+    private int nextSolution;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        problemScenario = BenchmarkScenarios.read(instance);
+        SplittableRandom random = new SplittableRandom(42);
+        solutions = new BitSolution[numberOfSolutions];
+        for (int k = 0; k < numberOfSolutions; k++) {
+            solutions[k] = new BitSolution(problemScenario.getNumberOfWarehouseLocations());
+            solutions[k].randomize(random);
+        }
+    }
+
+    @Benchmark
+    public double calculateTotalCost() {
+        BitSolution solution = solutions[nextSolution];
+        nextSolution = (nextSolution + 1) & (numberOfSolutions - 1);
+        return problemScenario.calculateTotalCost(solution);
+    }
+}
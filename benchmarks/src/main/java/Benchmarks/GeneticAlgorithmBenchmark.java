@@ -0,0 +1,69 @@
+package Benchmarks;
+
+import Classes.GeneticAlgorithmParameters;
+import Classes.GeneticAlgorithmSolution;
+import Classes.ProblemScenario;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One generation (selection, crossover, mutation and cost calculation) of the double buffered genetic algorithm
+ * Each iteration starts from a new random population
+ * evaluationThreads > 0 calculates the costs in a pool with that number of threads (-p evaluationThreads=4)
+ * fitnessCacheSize > 0 takes the costs of the chromosomes bred again from a FitnessCache of that size
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GeneticAlgorithmBenchmark {
+
+    @Param({
+            "ORLIB/ORLIB-uncap/70/cap71.txt",
+            "ORLIB/ORLIB-uncap/100/cap101.txt",
+            "ORLIB/ORLIB-uncap/130/cap131.txt",
+            "ORLIB/ORLIB-uncap/a-c/capa.txt",
+            "M/Kcapmo1.txt",
+            "M/Kcapmr1.txt"
+    })
+    public String instance;
+
+    @Param({"0"})
+    public int evaluationThreads;
+
+    @Param({"0", "4096"})
+    public int fitnessCacheSize;
+
+    private ProblemScenario problemScenario;
+    private ForkJoinPool evaluationPool;
+    private GeneticAlgorithmSolution.DoubleBufferedPopulation population;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        problemScenario = BenchmarkScenarios.read(instance);
+        evaluationPool = (evaluationThreads > 0) ? new ForkJoinPool(evaluationThreads) : null;
+    }
+
+    @Setup(Level.Iteration)
+    public void setUpPopulation() {
+        population = new GeneticAlgorithmSolution.DoubleBufferedPopulation(problemScenario,
+                new GeneticAlgorithmParameters().setFitnessCacheSize(fitnessCacheSize), evaluationPool, new Random(42));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (evaluationPool != null)
+            evaluationPool.shutdown();
+    }
+
+    @Benchmark
+    public double evolveGeneration() throws Exception {
+        population.evolveGeneration();
+        return population.getBestSolution().getCurrentSolutionCost();
+    }
+}
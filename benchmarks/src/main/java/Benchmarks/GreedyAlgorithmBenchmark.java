@@ -0,0 +1,53 @@
+package Benchmarks;
+
+import Classes.GreedyAlgorithmSolution;
+import Classes.ProblemScenario;
+import Classes.UflpEvaluator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One greedy sweep (the cost of opening each closed warehouse, from the evaluator) over a partial greedy solution
+ * The solution is built by the first openedWarehouses sweeps and doesn't change during the benchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GreedyAlgorithmBenchmark {
+
+    @Param({
+            "ORLIB/ORLIB-uncap/70/cap71.txt",
+            "ORLIB/ORLIB-uncap/100/cap101.txt",
+            "ORLIB/ORLIB-uncap/130/cap131.txt",
+            "ORLIB/ORLIB-uncap/a-c/capa.txt",
+            "M/Kcapmo1.txt",
+            "M/Kcapmr1.txt"
+    })
+    public String instance;
+
+    @Param({"3"})
+    public int openedWarehouses;
+
+    private UflpEvaluator evaluator;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ProblemScenario problemScenario = BenchmarkScenarios.read(instance);
+        evaluator = new UflpEvaluator(problemScenario);
+        for (int k = 0; k < openedWarehouses; k++) {
+            int bestWarehouseToOpen = GreedyAlgorithmSolution.findBestWarehouseToOpen(evaluator);
+            if (bestWarehouseToOpen == -1)
+                break;
+            evaluator.openWarehouse(bestWarehouseToOpen);
+        }
+    }
+
+    @Benchmark
+    public int findBestWarehouseToOpen() {
+        return GreedyAlgorithmSolution.findBestWarehouseToOpen(evaluator);
+    }
+}
@@ -0,0 +1,67 @@
+package Benchmarks;
+
+import Classes.BitSolution;
+import Classes.GeometricSkipSampler;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mutation of a whole chromosome (a gene per warehouse, each one flips with the chance)
+ * perGeneRoulette is the old mutation (an int in [0, 101) per gene against the chance rounded to a %),
+ * geometricSkip is GeometricSkipSampler (a draw per flipped gene)
+ * numberOfGenes > 0 replaces the number of warehouses of the instance (-p numberOfGenes=1000 for a 1000 warehouses chromosome)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MutationBenchmark {
+
+    @Param({
+            "ORLIB/ORLIB-uncap/a-c/capa.txt",
+            "M/Kcapmo1.txt",
+            "M/Kcapmr1.txt"
+    })
+    public String instance;
+
+    @Param({"0"})
+    public int numberOfGenes;
+
+    @Param({"0.01", "0.05", "0.2"})
+    public double chanceOfGeneMutation;
+
+    private SplittableRandom random;
+    private BitSolution chromosome;
+    private GeometricSkipSampler geneMutationSampler;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        int chromosomeLength = (numberOfGenes > 0) ? numberOfGenes : BenchmarkScenarios.read(instance).getNumberOfWarehouseLocations();
+        random = new SplittableRandom(42);
+        chromosome = new BitSolution(chromosomeLength);
+        chromosome.randomize(random);
+        geneMutationSampler = new GeometricSkipSampler(chanceOfGeneMutation);
+    }
+
+    @Benchmark
+    public int perGeneRoulette() {
+        int numberOfFlippedGenes = 0;
+        int chanceOfGeneMutationNumber = (int) (chanceOfGeneMutation * 100);
+        for (int i = 0; i < chromosome.length(); i++) {
+            if (chanceOfGeneMutationNumber >= random.nextInt(0, 101)) {
+                chromosome.flip(i);
+                numberOfFlippedGenes++;
+            }
+        }
+        return numberOfFlippedGenes;
+    }
+
+    @Benchmark
+    public int geometricSkip() {
+        return geneMutationSampler.flipBits(chromosome, random);
+    }
+}
@@ -0,0 +1,49 @@
+package Benchmarks;
+
+import Classes.ProblemScenario;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to read a scenario file (numbers, warehouse and customer views and the sorted preference index)
+ * parser = tokenizer (ProblemScenario.ReadScenarioFromFile) or lineByLine (the original ProblemScenario.ReadScenarioFromFileLineByLine)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScenarioLoadBenchmark {
+
+    @Param({
+            "ORLIB/ORLIB-uncap/70/cap71.txt",
+            "ORLIB/ORLIB-uncap/a-c/capa.txt",
+            "M/Kcapmo1.txt",
+            "M/Kcapmr1.txt"
+    })
+    public String instance;
+
+    @Param({"tokenizer", "lineByLine"})
+    public String parser;
+
+    private Path problemScenarioFilePath;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        problemScenarioFilePath = Paths.get(BenchmarkScenarios.getDataDir(), instance);
+    }
+
+    @Benchmark
+    public ProblemScenario readScenario() {
+        ProblemScenario problemScenario = new ProblemScenario(instance, -1);
+        if (parser.equals("lineByLine"))
+            problemScenario.ReadScenarioFromFileLineByLine(problemScenarioFilePath);
+        else
+            problemScenario.ReadScenarioFromFile(problemScenarioFilePath);
+        return problemScenario;
+    }
+}
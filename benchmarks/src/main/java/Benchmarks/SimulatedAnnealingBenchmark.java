@@ -0,0 +1,68 @@
+package Benchmarks;
+
+import Classes.AnnealingMoveEngine;
+import Classes.ProblemScenario;
+import Classes.SimulatedAnnealingParameters;
+import Classes.SimulatedAnnealingSolution;
+import Classes.UflpEvaluator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One simulated annealing iteration (propose a move, evaluate its delta, accept or undo it) at a fixed temperature,
+ * with a single type of move (RANDOM_FLIPS is the original move of the annealing)
+ * Each iteration starts from a new random state
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SimulatedAnnealingBenchmark {
+
+    @Param({
+            "ORLIB/ORLIB-uncap/70/cap71.txt",
+            "ORLIB/ORLIB-uncap/100/cap101.txt",
+            "ORLIB/ORLIB-uncap/130/cap131.txt",
+            "ORLIB/ORLIB-uncap/a-c/capa.txt",
+            "M/Kcapmo1.txt",
+            "M/Kcapmr1.txt"
+    })
+    public String instance;
+
+    @Param({"FLIP", "SWAP", "K_FLIP", "RANDOM_FLIPS"})
+    public AnnealingMoveEngine.MoveType moveType;
+
+    @Param({"1000"})
+    public double temperature;
+
+    private ProblemScenario problemScenario;
+    private SimulatedAnnealingParameters parameters;
+    private SplittableRandom random;
+    private SimulatedAnnealingSolution annealingSolution;
+    private UflpEvaluator evaluator;
+    private AnnealingMoveEngine moveEngine;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        problemScenario = BenchmarkScenarios.read(instance);
+        parameters = new SimulatedAnnealingParameters().setOnlyMoveType(moveType);
+        random = new SplittableRandom(42);
+        evaluator = new UflpEvaluator(problemScenario);
+    }
+
+    @Setup(Level.Iteration)
+    public void setUpState() {
+        annealingSolution = new SimulatedAnnealingSolution(problemScenario, parameters, random);
+        evaluator.loadSolution(annealingSolution.getCurrentSolution());
+        moveEngine = new AnnealingMoveEngine(evaluator, parameters);
+    }
+
+    @Benchmark
+    public boolean tryMove() {
+        return annealingSolution.tryMove(moveEngine, temperature, random);
+    }
+}
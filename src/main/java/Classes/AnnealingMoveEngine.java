@@ -0,0 +1,220 @@
+package Classes;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * The neighborhood moves of the simulated annealing over the solution held by a UflpEvaluator:
+ *   FLIP: opens or closes a random warehouse
+ *   SWAP: closes a random open warehouse and opens a random closed one (the number of open warehouses stays the same)
+ *   K_FLIP: flips k different random warehouses
+ *   RANDOM_FLIPS: flips each warehouse with the chanceOfIndividualPointStateChange (the original move of the annealing)
+ * Each move is drawn with the weight of its type in the SimulatedAnnealingParameters, proposed (its cost delta calculated),
+ * and then accepted or rejected:
+ * FLIP and SWAP calculate their delta without changing the solution (O(customers)), so a rejected move costs nothing else,
+ * K_FLIP and RANDOM_FLIPS apply their flips one by one and undo them when they are rejected
+ * The open and closed warehouses are kept in a partitioned array, so the warehouses of a SWAP are drawn in O(1)
+ * Nothing is allocated after the engine is made, not thread safe (one engine per chain)
+ */
+public class AnnealingMoveEngine {
+
+    /**
+     * Types of moves
+     */
+    public enum MoveType {
+        FLIP,
+        SWAP,
+        K_FLIP,
+        RANDOM_FLIPS
+    }
+
+    private final static MoveType[] moveTypes = MoveType.values();
+
+    private final UflpEvaluator evaluator;
+    private final int numberOfWarehouseLocations;
+    private final int kFlipSize;
+    private final GeometricSkipSampler stateChangeSampler;
+    private final double[] cumulativeMoveWeights; //by MoveType ordinal, the last one is the total weight
+
+    //Open warehouses first, then the closed ones (numberOfOpenWarehouses is the border), and the position of each warehouse
+    private final int[] warehousesByState;
+    private final int[] warehouseStatePositions;
+    private final int[] shuffledWarehouses; //scratch permutation for the K_FLIP moves
+
+    //The proposed move, waiting for acceptMove or rejectMove
+    private MoveType proposedMoveType;
+    private int proposedWarehouseLocationI;
+    private int proposedWarehouseLocationK;
+    private final int[] changedWarehouses;
+    private int numberOfChangedWarehouses;
+
+    //Counters
+    private final long[] proposedMovesCounters = new long[moveTypes.length];
+    private final long[] acceptedMovesCounters = new long[moveTypes.length];
+
+    /**
+     * Makes an engine over the solution currently held by the evaluator (the moves of the given parameters)
+     */
+    public AnnealingMoveEngine(UflpEvaluator evaluator, SimulatedAnnealingParameters parameters) {
+        this.evaluator = evaluator;
+        this.numberOfWarehouseLocations = evaluator.getProblemScenario().getNumberOfWarehouseLocations();
+        this.kFlipSize = Math.min(parameters.getKFlipSize(), numberOfWarehouseLocations);
+        this.stateChangeSampler = new GeometricSkipSampler(parameters.getChanceOfIndividualPointStateChange());
+
+        this.cumulativeMoveWeights = new double[moveTypes.length];
+        double totalMoveWeight = 0;
+        for (MoveType moveType : moveTypes) {
+            totalMoveWeight += parameters.getMoveWeight(moveType);
+            cumulativeMoveWeights[moveType.ordinal()] = totalMoveWeight;
+        }
+
+        this.warehousesByState = new int[numberOfWarehouseLocations];
+        this.warehouseStatePositions = new int[numberOfWarehouseLocations];
+        this.shuffledWarehouses = new int[numberOfWarehouseLocations];
+        for (int i = 0; i < numberOfWarehouseLocations; i++)
+            shuffledWarehouses[i] = i;
+        this.changedWarehouses = new int[numberOfWarehouseLocations];
+        this.rebuildWarehouseStates();
+    }
+
+    public UflpEvaluator getEvaluator() {
+        return evaluator;
+    }
+
+    public BitSolution getCurrentSolution() {
+        return evaluator.getCurrentSolution();
+    }
+
+    public double getCurrentSolutionCost() {
+        return evaluator.getCurrentSolutionCost();
+    }
+
+    public long getProposedMovesCounter(MoveType moveType) {
+        return proposedMovesCounters[moveType.ordinal()];
+    }
+
+    public long getAcceptedMovesCounter(MoveType moveType) {
+        return acceptedMovesCounters[moveType.ordinal()];
+    }
+
+    /**
+     * Replaces the solution with a copy of the given one (full recalculation)
+     */
+    public void loadSolution(BitSolution newSolution) {
+        evaluator.loadSolution(newSolution);
+        this.rebuildWarehouseStates();
+    }
+
+    /**
+     * Draws a move and returns its cost delta (new cost - current cost, negative is GOOD)
+     * The move stays pending until acceptMove or rejectMove is called
+     */
+    public double proposeMove(RandomGenerator rand) {
+        proposedMoveType = this.drawMoveType(rand);
+        int numberOfOpenWarehouses = evaluator.getNumberOfOpenWarehouses();
+        //A swap needs an open and a closed warehouse
+        if (proposedMoveType == MoveType.SWAP && (numberOfOpenWarehouses == 0 || numberOfOpenWarehouses == numberOfWarehouseLocations))
+            proposedMoveType = MoveType.FLIP;
+        proposedMovesCounters[proposedMoveType.ordinal()]++;
+
+        switch (proposedMoveType) {
+            case FLIP:
+                proposedWarehouseLocationI = rand.nextInt(numberOfWarehouseLocations);
+                return evaluator.getFlipCostDelta(proposedWarehouseLocationI);
+            case SWAP:
+                proposedWarehouseLocationI = warehousesByState[rand.nextInt(numberOfOpenWarehouses)];
+                proposedWarehouseLocationK = warehousesByState[rand.nextInt(numberOfOpenWarehouses, numberOfWarehouseLocations)];
+                return evaluator.getSwapCostDelta(proposedWarehouseLocationI, proposedWarehouseLocationK);
+            case K_FLIP:
+                //k different warehouses, the first k positions of a partial shuffle
+                for (int k = 0; k < kFlipSize; k++) {
+                    int swapPosition = rand.nextInt(k, numberOfWarehouseLocations);
+                    int swapWarehouse = shuffledWarehouses[swapPosition];
+                    shuffledWarehouses[swapPosition] = shuffledWarehouses[k];
+                    shuffledWarehouses[k] = swapWarehouse;
+                    changedWarehouses[k] = swapWarehouse;
+                }
+                numberOfChangedWarehouses = kFlipSize;
+                return this.applyChangedWarehouses();
+            default:
+                numberOfChangedWarehouses = stateChangeSampler.samplePositions(numberOfWarehouseLocations, changedWarehouses, rand);
+                return this.applyChangedWarehouses();
+        }
+    }
+
+    /**
+     * Keeps the proposed move
+     */
+    public void acceptMove() {
+        acceptedMovesCounters[proposedMoveType.ordinal()]++;
+        switch (proposedMoveType) {
+            case FLIP:
+                this.flipWarehouse(proposedWarehouseLocationI);
+                break;
+            case SWAP:
+                //Opening first keeps the new warehouse as a candidate when the second best warehouses are looked for
+                this.flipWarehouse(proposedWarehouseLocationK);
+                this.flipWarehouse(proposedWarehouseLocationI);
+                break;
+            default:
+                //Already applied
+                break;
+        }
+    }
+
+    /**
+     * Drops the proposed move (the solution goes back to how it was before proposeMove)
+     */
+    public void rejectMove() {
+        if (proposedMoveType == MoveType.K_FLIP || proposedMoveType == MoveType.RANDOM_FLIPS) {
+            for (int k = numberOfChangedWarehouses - 1; k >= 0; k--)
+                this.flipWarehouse(changedWarehouses[k]);
+        }
+    }
+
+    /**
+     * Flips the changedWarehouses and returns the cost delta
+     */
+    private double applyChangedWarehouses() {
+        double previousSolutionCost = evaluator.getCurrentSolutionCost();
+        for (int k = 0; k < numberOfChangedWarehouses; k++)
+            this.flipWarehouse(changedWarehouses[k]);
+        return evaluator.getCurrentSolutionCost() - previousSolutionCost;
+    }
+
+    private MoveType drawMoveType(RandomGenerator rand) {
+        double randomWeight = rand.nextDouble() * cumulativeMoveWeights[moveTypes.length - 1];
+        for (int m = 0; m < moveTypes.length - 1; m++) {
+            if (randomWeight < cumulativeMoveWeights[m])
+                return moveTypes[m];
+        }
+        return moveTypes[moveTypes.length - 1];
+    }
+
+    /**
+     * Flips the warehouse in the evaluator and moves it to the other side of the open/closed border
+     */
+    private void flipWarehouse(int warehouseLocationI) {
+        boolean wasOpen = evaluator.getCurrentSolution().isOpen(warehouseLocationI);
+        evaluator.flipWarehouse(warehouseLocationI);
+        //The border is the first closed position: an opened warehouse goes to it (and the border moves right),
+        //a closed one goes to the last open position (and the border moves left)
+        int borderPosition = wasOpen ? evaluator.getNumberOfOpenWarehouses() : evaluator.getNumberOfOpenWarehouses() - 1;
+        int warehousePosition = warehouseStatePositions[warehouseLocationI];
+        int borderWarehouse = warehousesByState[borderPosition];
+        warehousesByState[borderPosition] = warehouseLocationI;
+        warehouseStatePositions[warehouseLocationI] = borderPosition;
+        warehousesByState[warehousePosition] = borderWarehouse;
+        warehouseStatePositions[borderWarehouse] = warehousePosition;
+    }
+
+    private void rebuildWarehouseStates() {
+        BitSolution solution = evaluator.getCurrentSolution();
+        int openPosition = 0;
+        int closedPosition = evaluator.getNumberOfOpenWarehouses();
+        for (int i = 0; i < numberOfWarehouseLocations; i++) {
+            int position = solution.isOpen(i) ? openPosition++ : closedPosition++;
+            warehousesByState[position] = i;
+            warehouseStatePositions[i] = position;
+        }
+    }
+}
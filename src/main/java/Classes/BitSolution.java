@@ -0,0 +1,193 @@
+package Classes;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * Solution (chromosome / state) of a UFLP scenario packed in bits: bit i is 1 if the warehouse i is open
+ * 64 warehouses per long word, so copies, crossovers, counts and comparisons work on whole words
+ * The unused bits of the last word are always 0
+ */
+public class BitSolution {
+
+    private final int length;
+    private final long[] words;
+
+    /**
+     * Makes a solution with the given number of warehouses, all closed
+     */
+    public BitSolution(int length) {
+        this.length = length;
+        this.words = new long[(length + 63) >>> 6];
+    }
+
+    /**
+     * Makes a deep copy of the given solution
+     */
+    public BitSolution(BitSolution bitSolutionToDeepCopy) {
+        this.length = bitSolutionToDeepCopy.length;
+        this.words = bitSolutionToDeepCopy.words.clone();
+    }
+
+    /**
+     * Makes a solution from a solution array (1 = warehouse open, 0 = warehouse closed)
+     */
+    public static BitSolution fromSolutionArray(int[] solutionArray) {
+        BitSolution bitSolution = new BitSolution(solutionArray.length);
+        for (int i = 0; i < solutionArray.length; i++) {
+            if (solutionArray[i] == 1)
+                bitSolution.words[i >>> 6] |= 1L << i;
+        }
+        return bitSolution;
+    }
+
+    /**
+     * Returns the solution as a new solution array (1 = warehouse open, 0 = warehouse closed)
+     */
+    public int[] toSolutionArray() {
+        int[] solutionArray = new int[length];
+        for (int i = 0; i < length; i++)
+            solutionArray[i] = (int) ((words[i >>> 6] >>> i) & 1L);
+        return solutionArray;
+    }
+
+    /**
+     * Number of warehouses (bits)
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * The packed words, bit i of the solution is bit (i % 64) of word (i / 64)
+     * The array is owned by the solution, don't change it
+     */
+    public long[] getWords() {
+        return words;
+    }
+
+    public boolean isOpen(int warehouseLocationI) {
+        return ((words[warehouseLocationI >>> 6] >>> warehouseLocationI) & 1L) != 0;
+    }
+
+    public void open(int warehouseLocationI) {
+        words[warehouseLocationI >>> 6] |= 1L << warehouseLocationI;
+    }
+
+    public void close(int warehouseLocationI) {
+        words[warehouseLocationI >>> 6] &= ~(1L << warehouseLocationI);
+    }
+
+    public void flip(int warehouseLocationI) {
+        words[warehouseLocationI >>> 6] ^= 1L << warehouseLocationI;
+    }
+
+    /**
+     * Number of open warehouses (popcount of the words)
+     */
+    public int countOpenWarehouses() {
+        int numberOfOpenWarehouses = 0;
+        for (long word : words)
+            numberOfOpenWarehouses += Long.bitCount(word);
+        return numberOfOpenWarehouses;
+    }
+
+    /**
+     * Makes this solution equal to the given one (same length), without allocating
+     */
+    public void copyFrom(BitSolution otherBitSolution) {
+        System.arraycopy(otherBitSolution.words, 0, this.words, 0, this.words.length);
+    }
+
+    /**
+     * Opens each warehouse with a 50% chance
+     */
+    public void randomize(RandomGenerator random) {
+        for (int w = 0; w < words.length; w++)
+            words[w] = random.nextLong();
+        clearUnusedBits();
+    }
+
+    /**
+     * Single point crossover, word by word
+     * The children get the bits [0, crossoverPoint) from their own parent and the bits [crossoverPoint, length) from the other parent
+     * The children can't be the parents
+     */
+    public static void singlePointCrossover(BitSolution parent1, BitSolution parent2, int crossoverPoint, BitSolution child1, BitSolution child2) {
+        int crossoverWord = crossoverPoint >>> 6;
+        //Whole words before the crossover point come from the own parent
+        System.arraycopy(parent1.words, 0, child1.words, 0, crossoverWord);
+        System.arraycopy(parent2.words, 0, child2.words, 0, crossoverWord);
+        if (crossoverWord == parent1.words.length)
+            return;
+        //The word with the crossover point is mixed with a mask (1 for the bits before the point)
+        long ownParentMask = (1L << crossoverPoint) - 1;
+        child1.words[crossoverWord] = (parent1.words[crossoverWord] & ownParentMask) | (parent2.words[crossoverWord] & ~ownParentMask);
+        child2.words[crossoverWord] = (parent2.words[crossoverWord] & ownParentMask) | (parent1.words[crossoverWord] & ~ownParentMask);
+        //Whole words after the crossover point come from the other parent
+        int numberOfWordsAfter = parent1.words.length - crossoverWord - 1;
+        System.arraycopy(parent2.words, crossoverWord + 1, child1.words, crossoverWord + 1, numberOfWordsAfter);
+        System.arraycopy(parent1.words, crossoverWord + 1, child2.words, crossoverWord + 1, numberOfWordsAfter);
+    }
+
+    /**
+     * Uniform crossover, word by word: each bit comes from one parent or the other with a 50% chance (one random mask per word)
+     * The children get complementary bits, the children can't be the parents
+     */
+    public static void uniformCrossover(BitSolution parent1, BitSolution parent2, RandomGenerator random, BitSolution child1, BitSolution child2) {
+        for (int w = 0; w < parent1.words.length; w++) {
+            long ownParentMask = random.nextLong();
+            child1.words[w] = (parent1.words[w] & ownParentMask) | (parent2.words[w] & ~ownParentMask);
+            child2.words[w] = (parent2.words[w] & ownParentMask) | (parent1.words[w] & ~ownParentMask);
+        }
+    }
+
+    /**
+     * 64 bit hash of the solution (mixes every word), for fast lookups and comparisons
+     */
+    public long longHashCode() {
+        long hash = 0x9E3779B97F4A7C15L ^ length;
+        for (long word : words) {
+            hash = (hash ^ word) * 0xBF58476D1CE4E5B9L;
+            hash ^= hash >>> 31;
+        }
+        hash *= 0x94D049BB133111EBL;
+        return hash ^ (hash >>> 29);
+    }
+
+    private void clearUnusedBits() {
+        if ((length & 63) != 0)
+            words[words.length - 1] &= (1L << length) - 1;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof BitSolution))
+            return false;
+        BitSolution otherBitSolution = (BitSolution) o;
+        return length == otherBitSolution.length && Arrays.equals(words, otherBitSolution.words);
+    }
+
+    @Override
+    public int hashCode() {
+        long hash = longHashCode();
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    /**
+     * Same format as Arrays.toString of the solution array: [0, 1, 1, 0]
+     */
+    @Override
+    public String toString() {
+        StringBuilder stringBuilder = new StringBuilder(length * 3 + 2);
+        stringBuilder.append('[');
+        for (int i = 0; i < length; i++) {
+            if (i > 0)
+                stringBuilder.append(", ");
+            stringBuilder.append(isOpen(i) ? '1' : '0');
+        }
+        return stringBuilder.append(']').toString();
+    }
+}
@@ -0,0 +1,526 @@
+package Classes;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.DoubleAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Exact solver (DUALOC style branch and bound): proves how far the best solution found is from the optimal one, without optimal.txt
+ *
+ * Lower bound of a node: dual ascent (Erlenkotter) of the condensed dual of the UFLP
+ *   max sum(v[j])  such that  sum over j of max(0, v[j] - allocationCost[j][i]) <= fixedCost[i]  for each warehouse i
+ * The v[j] of each customer is raised, one cost level at a time, until a warehouse it could go to has no slack left
+ * A child node starts from the duals of its parent (they stay feasible when a warehouse is fixed), so only a few levels are climbed per node
+ * The warehouses with no slack left (tight) are opened to get a solution of the node (an upper bound)
+ * Upper bound: the greedy algorithm and the local search at the root, then the solutions of the nodes (improved with the local search near the root)
+ *
+ * Each node fixes some warehouses open or closed, and is split in two (a warehouse closed / open) unless its bound is not lower than the best solution
+ * The nodes near the root are explored in parallel (ForkJoin), the best solution is shared by all of them (SharedBestSolution)
+ * When the time is up the unexplored nodes keep their bound, so the result always has a proven lower bound and gap
+ */
+public class BranchAndBoundSolution {
+
+    private final static int parallelDepth = 12; //the nodes above this depth explore their two children in parallel
+    private final static int localSearchDepth = 4; //the solutions of the nodes above this depth are improved with the local search
+    private final static double boundTolerance = 1e-9; //relative, a node is pruned if its bound is this close to the best solution
+    private final static byte freeWarehouse = 0;
+    private final static byte fixedOpenWarehouse = 1;
+    private final static byte fixedClosedWarehouse = 2;
+
+    private final ProblemScenario problemScenario;
+    private BitSolution currentSolution;
+    private double currentSolutionCost;
+    private double lowerBound;
+    private long numberOfNodes;
+
+    //Makes an instance with the result of a search (deep copy of the solution)
+    public BranchAndBoundSolution(ProblemScenario problemScenario, BitSolution solution, double lowerBound, long numberOfNodes) {
+        this.problemScenario = problemScenario;
+        this.currentSolution = new BitSolution(solution);
+        this.currentSolutionCost = problemScenario.calculateTotalCost(this.currentSolution);
+        this.lowerBound = Math.min(lowerBound, this.currentSolutionCost);
+        this.numberOfNodes = numberOfNodes;
+    }
+
+    //Makes a deep copy of the given solution
+    public BranchAndBoundSolution(BranchAndBoundSolution branchAndBoundSolutionToDeepCopy) {
+        this.problemScenario = branchAndBoundSolutionToDeepCopy.getProblemScenario();
+        this.currentSolution = new BitSolution(branchAndBoundSolutionToDeepCopy.getCurrentSolution());
+        this.currentSolutionCost = branchAndBoundSolutionToDeepCopy.getCurrentSolutionCost();
+        this.lowerBound = branchAndBoundSolutionToDeepCopy.getLowerBound();
+        this.numberOfNodes = branchAndBoundSolutionToDeepCopy.getNumberOfNodes();
+    }
+
+    public double getCurrentSolutionCost() {
+        return currentSolutionCost;
+    }
+
+    public BitSolution getCurrentSolution() {
+        return currentSolution;
+    }
+
+    /**
+     * Returns the current solution as a new solution array (1 = warehouse open, 0 = warehouse closed)
+     */
+    public int[] getCurrentSolutionArray() {
+        return currentSolution.toSolutionArray();
+    }
+
+    public ProblemScenario getProblemScenario() {
+        return problemScenario;
+    }
+
+    /**
+     * No solution of the scenario costs less than this
+     */
+    public double getLowerBound() {
+        return lowerBound;
+    }
+
+    public long getNumberOfNodes() {
+        return numberOfNodes;
+    }
+
+    /**
+     * (cost - lower bound) / cost, 0 if the solution is proven optimal
+     */
+    public double getOptimalityGap() {
+        return (currentSolutionCost - lowerBound) / currentSolutionCost;
+    }
+
+    public boolean isProvenOptimal() {
+        return getOptimalityGap() <= boundTolerance;
+    }
+
+    /**
+     * State of a search shared by all its nodes
+     */
+    private static class TreeSearch {
+        private final ProblemScenario problemScenario;
+        private final int numberOfWarehouseLocations;
+        private final int numberOfCustomers;
+        private final double[] fixedCosts;
+        private final double[] allocationCosts;
+        private final int[] sortedWarehousePreferences;
+        private final TerminationPolicy.Tracker terminationTracker; //only its time budget, shared by the threads (read only)
+        private final double pruningTolerance; //relative
+
+        private final SharedBestSolution bestSolution = new SharedBestSolution();
+        private final DoubleAccumulator unexploredLowerBound = new DoubleAccumulator(Math::min, Double.POSITIVE_INFINITY); //lowest bound of the nodes left when the time was up
+        private final LongAdder nodeCounter = new LongAdder();
+        private final ConcurrentLinkedQueue<UflpEvaluator> idleEvaluators = new ConcurrentLinkedQueue<>(); //about one per thread of the pool, dropped with the search
+
+        private TreeSearch(ProblemScenario problemScenario, TerminationPolicy terminationPolicy, TerminationPolicy.Tracker terminationTracker) {
+            this.problemScenario = problemScenario;
+            this.numberOfWarehouseLocations = problemScenario.getNumberOfWarehouseLocations();
+            this.numberOfCustomers = problemScenario.getNumberOfCustomers();
+            this.fixedCosts = problemScenario.getFixedCosts();
+            this.allocationCosts = problemScenario.getAllocationCosts();
+            this.sortedWarehousePreferences = problemScenario.getSortedWarehousePreferences();
+            this.terminationTracker = terminationTracker;
+            this.pruningTolerance = Math.max(boundTolerance, terminationPolicy.getTargetGap());
+        }
+
+        /**
+         * An evaluator of the scenario no other node is using (a new one if they are all in use)
+         */
+        private UflpEvaluator borrowEvaluator() {
+            UflpEvaluator evaluator = idleEvaluators.poll();
+            return (evaluator != null) ? evaluator : new UflpEvaluator(problemScenario);
+        }
+
+        private void returnEvaluator(UflpEvaluator evaluator) {
+            idleEvaluators.offer(evaluator);
+        }
+
+        /**
+         * Greedy algorithm followed by the local search, the first best solution
+         */
+        private void findInitialSolution() {
+            UflpEvaluator evaluator = borrowEvaluator();
+            evaluator.loadSolution(new BitSolution(numberOfWarehouseLocations));
+            GreedyAlgorithmSolution.openBestWarehouses(evaluator);
+            LocalSearchSolution.improve(evaluator);
+            bestSolution.offer(evaluator.getCurrentSolution(), evaluator.getCurrentSolutionCost());
+            returnEvaluator(evaluator);
+        }
+
+        /**
+         * True if a node with this bound can't have a solution cheaper than the best one (or only within the target gap)
+         * The nodes pruned only by the target gap keep their bound, like the unexplored ones
+         */
+        private boolean isPruned(double nodeLowerBound) {
+            double bestSolutionCost = bestSolution.getBestSolutionCost();
+            if (nodeLowerBound >= bestSolutionCost - boundTolerance * Math.abs(bestSolutionCost))
+                return true;
+            if (nodeLowerBound >= bestSolutionCost - pruningTolerance * Math.abs(bestSolutionCost)) {
+                unexploredLowerBound.accumulate(nodeLowerBound);
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Explores a node: bounds it, offers its solution and splits it in two if it can still have a cheaper solution
+         */
+        private void exploreNode(DualAscent dualAscent, int depth, double parentLowerBound) {
+            //When the time is up the node is left unexplored (its parent bound is still valid for it)
+            if (terminationTracker.isTimeUp()) {
+                unexploredLowerBound.accumulate(parentLowerBound);
+                return;
+            }
+            nodeCounter.increment();
+
+            //Lower bound: dual ascent, from the duals of the parent
+            byte[] warehouseStates = dualAscent.warehouseStates;
+            dualAscent.ascend();
+            double nodeLowerBound = dualAscent.getLowerBound();
+            if (isPruned(nodeLowerBound))
+                return;
+
+            //Solution of the node: the fixed open warehouses and the free ones without slack
+            //The evaluator is given back before the children are explored, so the nodes waiting for their children don't hold one
+            UflpEvaluator evaluator = borrowEvaluator();
+            double nodeSolutionCost;
+            int branchingWarehouse;
+            try {
+                BitSolution nodeSolution = new BitSolution(numberOfWarehouseLocations);
+                for (int i = 0; i < numberOfWarehouseLocations; i++) {
+                    if (warehouseStates[i] == fixedOpenWarehouse || (warehouseStates[i] == freeWarehouse && dualAscent.isTight(i)))
+                        nodeSolution.open(i);
+                }
+                evaluator.loadSolution(nodeSolution);
+                nodeSolutionCost = evaluator.getCurrentSolutionCost();
+                branchingWarehouse = chooseBranchingWarehouse(warehouseStates, dualAscent, evaluator);
+
+                //Share it (improved by the local search near the root, the improved one may not respect the fixed warehouses, it doesn't matter)
+                if (depth < localSearchDepth)
+                    LocalSearchSolution.improve(evaluator);
+                bestSolution.offer(evaluator.getCurrentSolution(), evaluator.getCurrentSolutionCost());
+            } finally {
+                returnEvaluator(evaluator);
+            }
+
+            //If the solution of the node costs the same as its bound it is the best one of the node, and with no free warehouse there is nothing to split
+            if (nodeSolutionCost <= nodeLowerBound + boundTolerance * Math.abs(nodeLowerBound) || branchingWarehouse == -1 || isPruned(nodeLowerBound))
+                return;
+
+            //Split the node: the warehouse closed and the warehouse open
+            DualAscent closedDualAscent = new DualAscent(dualAscent, branchingWarehouse, fixedClosedWarehouse);
+            DualAscent openDualAscent = new DualAscent(dualAscent, branchingWarehouse, fixedOpenWarehouse);
+            if (depth < parallelDepth) {
+                ForkJoinTask.invokeAll(new NodeSearch(this, closedDualAscent, depth + 1, nodeLowerBound),
+                        new NodeSearch(this, openDualAscent, depth + 1, nodeLowerBound));
+            } else {
+                exploreNode(closedDualAscent, depth + 1, nodeLowerBound);
+                exploreNode(openDualAscent, depth + 1, nodeLowerBound);
+            }
+        }
+
+        /**
+         * The free warehouse of the node solution that serves the most customers,
+         * or the free warehouse with the least slack if the node solution has none (-1 if there are no free warehouses)
+         */
+        private int chooseBranchingWarehouse(byte[] warehouseStates, DualAscent dualAscent, UflpEvaluator evaluator) {
+            int[] numberOfAssignedCustomers = new int[numberOfWarehouseLocations];
+            for (int j = 0; j < numberOfCustomers; j++) {
+                if (evaluator.getAssignedWarehouse(j) != -1)
+                    numberOfAssignedCustomers[evaluator.getAssignedWarehouse(j)]++;
+            }
+            int branchingWarehouse = -1;
+            for (int i = 0; i < numberOfWarehouseLocations; i++) {
+                if (warehouseStates[i] == freeWarehouse && evaluator.getCurrentSolution().isOpen(i)
+                        && (branchingWarehouse == -1 || numberOfAssignedCustomers[i] > numberOfAssignedCustomers[branchingWarehouse]))
+                    branchingWarehouse = i;
+            }
+            if (branchingWarehouse != -1)
+                return branchingWarehouse;
+            for (int i = 0; i < numberOfWarehouseLocations; i++) {
+                if (warehouseStates[i] == freeWarehouse && (branchingWarehouse == -1 || dualAscent.warehouseSlacks[i] < dualAscent.warehouseSlacks[branchingWarehouse]))
+                    branchingWarehouse = i;
+            }
+            return branchingWarehouse;
+        }
+    }
+
+    /**
+     * Dual ascent of a node
+     * A fixed open warehouse is paid up front and caps the v[j] of every customer at its allocation cost, a fixed closed one is ignored
+     */
+    private static class DualAscent {
+        private final int numberOfWarehouseLocations;
+        private final int numberOfCustomers;
+        private final double[] fixedCosts;
+        private final double[] allocationCosts;
+        private final int[] sortedWarehousePreferences;
+        private final byte[] warehouseStates;
+
+        private final double[] warehouseSlacks; // fixedCost[i] - sum over j of max(0, v[j] - allocationCost[j][i]), only of the free warehouses
+        private final double[] customerDuals; // v[j]
+        private final double[] customerDualCaps; // allocation cost of the cheapest fixed open warehouse (POSITIVE_INFINITY if none)
+        private final int[] nextLevelPositions; // position in the sorted preferences of the first warehouse that costs more than v[j]
+        private final boolean[] blockedCustomers; // v[j] can't be raised (a warehouse it reaches has no slack or it is at its cap)
+        private double fixedOpenWarehousesCost;
+        private boolean feasible = true; // false if a customer has all its warehouses closed
+
+        /**
+         * Starts each v[j] at the cheapest warehouse that is not closed (root node)
+         */
+        private DualAscent(TreeSearch treeSearch, byte[] warehouseStates) {
+            this.numberOfWarehouseLocations = treeSearch.numberOfWarehouseLocations;
+            this.numberOfCustomers = treeSearch.numberOfCustomers;
+            this.fixedCosts = treeSearch.fixedCosts;
+            this.allocationCosts = treeSearch.allocationCosts;
+            this.sortedWarehousePreferences = treeSearch.sortedWarehousePreferences;
+            this.warehouseStates = warehouseStates;
+            this.warehouseSlacks = new double[numberOfWarehouseLocations];
+            this.customerDuals = new double[numberOfCustomers];
+            this.customerDualCaps = new double[numberOfCustomers];
+            this.nextLevelPositions = new int[numberOfCustomers];
+            this.blockedCustomers = new boolean[numberOfCustomers];
+
+            for (int i = 0; i < numberOfWarehouseLocations; i++) {
+                warehouseSlacks[i] = (warehouseStates[i] == freeWarehouse) ? fixedCosts[i] : 0;
+                if (warehouseStates[i] == fixedOpenWarehouse)
+                    fixedOpenWarehousesCost += fixedCosts[i];
+            }
+            for (int j = 0; j < numberOfCustomers; j++) {
+                int rowOffset = j * numberOfWarehouseLocations;
+                int rowEnd = rowOffset + numberOfWarehouseLocations;
+                int k = rowOffset;
+                while (k < rowEnd && warehouseStates[sortedWarehousePreferences[k]] == fixedClosedWarehouse)
+                    k++;
+                if (k == rowEnd) {
+                    feasible = false;
+                    return;
+                }
+                customerDuals[j] = allocationCosts[rowOffset + sortedWarehousePreferences[k]];
+                customerDualCaps[j] = Double.POSITIVE_INFINITY;
+                for (int c = k; c < rowEnd; c++) {
+                    if (warehouseStates[sortedWarehousePreferences[c]] == fixedOpenWarehouse) {
+                        customerDualCaps[j] = allocationCosts[rowOffset + sortedWarehousePreferences[c]];
+                        break;
+                    }
+                }
+                nextLevelPositions[j] = skipLevel(rowOffset, k, customerDuals[j]);
+            }
+        }
+
+        /**
+         * Starts from the duals of the parent node, with one more warehouse fixed closed or open
+         * The duals of the parent are still feasible without the constraint of that warehouse,
+         * only the v[j] above the allocation cost of a fixed open warehouse are lowered to it
+         */
+        private DualAscent(DualAscent parentDualAscent, int fixedWarehouseLocationI, byte fixedWarehouseState) {
+            this.numberOfWarehouseLocations = parentDualAscent.numberOfWarehouseLocations;
+            this.numberOfCustomers = parentDualAscent.numberOfCustomers;
+            this.fixedCosts = parentDualAscent.fixedCosts;
+            this.allocationCosts = parentDualAscent.allocationCosts;
+            this.sortedWarehousePreferences = parentDualAscent.sortedWarehousePreferences;
+            this.warehouseStates = parentDualAscent.warehouseStates.clone();
+            this.warehouseSlacks = parentDualAscent.warehouseSlacks.clone();
+            this.customerDuals = parentDualAscent.customerDuals.clone();
+            this.customerDualCaps = parentDualAscent.customerDualCaps.clone();
+            this.nextLevelPositions = parentDualAscent.nextLevelPositions.clone();
+            this.blockedCustomers = new boolean[numberOfCustomers];
+            this.fixedOpenWarehousesCost = parentDualAscent.fixedOpenWarehousesCost;
+
+            warehouseStates[fixedWarehouseLocationI] = fixedWarehouseState;
+            warehouseSlacks[fixedWarehouseLocationI] = 0;
+            if (fixedWarehouseState == fixedClosedWarehouse) {
+                //Every customer can go to any warehouse, there is no solution only if all of them are closed
+                feasible = false;
+                for (int i = 0; i < numberOfWarehouseLocations && !feasible; i++)
+                    feasible = (warehouseStates[i] != fixedClosedWarehouse);
+            } else {
+                fixedOpenWarehousesCost += fixedCosts[fixedWarehouseLocationI];
+                for (int j = 0; j < numberOfCustomers; j++) {
+                    double allocationCost = allocationCosts[j * numberOfWarehouseLocations + fixedWarehouseLocationI];
+                    if (allocationCost < customerDualCaps[j])
+                        customerDualCaps[j] = allocationCost;
+                    if (customerDuals[j] > allocationCost)
+                        lowerCustomerDual(j, allocationCost);
+                }
+            }
+        }
+
+        /**
+         * sum(v[j]) + fixed costs of the fixed open warehouses (POSITIVE_INFINITY if the node has no solution)
+         */
+        private double getLowerBound() {
+            if (!feasible)
+                return Double.POSITIVE_INFINITY;
+            double lowerBound = fixedOpenWarehousesCost;
+            for (int j = 0; j < numberOfCustomers; j++)
+                lowerBound += customerDuals[j];
+            return lowerBound;
+        }
+
+        private boolean isTight(int warehouseLocationI) {
+            return warehouseSlacks[warehouseLocationI] <= boundTolerance * fixedCosts[warehouseLocationI];
+        }
+
+        /**
+         * Raises each v[j] that is not blocked one level per pass, until every customer is blocked
+         */
+        private void ascend() {
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                for (int j = 0; j < numberOfCustomers; j++) {
+                    if (blockedCustomers[j])
+                        continue;
+                    int rowOffset = j * numberOfWarehouseLocations;
+                    int rowEnd = rowOffset + numberOfWarehouseLocations;
+                    int nextLevelPosition = nextLevelPositions[j];
+                    double nextLevel = (nextLevelPosition < rowEnd) ? allocationCosts[rowOffset + sortedWarehousePreferences[nextLevelPosition]] : Double.POSITIVE_INFINITY;
+                    double increase = Math.min(nextLevel, customerDualCaps[j]) - customerDuals[j];
+                    //It can't take more than the slack of the warehouses it already reaches
+                    for (int k = rowOffset; k < nextLevelPosition; k++) {
+                        int warehouseLocationI = sortedWarehousePreferences[k];
+                        if (warehouseStates[warehouseLocationI] == freeWarehouse)
+                            increase = Math.min(increase, warehouseSlacks[warehouseLocationI]);
+                    }
+                    if (increase <= 0 || customerDuals[j] >= customerDualCaps[j]) {
+                        blockedCustomers[j] = true;
+                        continue;
+                    }
+                    customerDuals[j] += increase;
+                    for (int k = rowOffset; k < nextLevelPosition; k++) {
+                        int warehouseLocationI = sortedWarehousePreferences[k];
+                        if (warehouseStates[warehouseLocationI] == freeWarehouse)
+                            warehouseSlacks[warehouseLocationI] -= increase;
+                    }
+                    if (customerDuals[j] >= nextLevel)
+                        nextLevelPositions[j] = skipLevel(rowOffset, nextLevelPosition, customerDuals[j]);
+                    changed = true;
+                }
+            }
+        }
+
+        /**
+         * Lowers v[j], giving its slack back to the warehouses it paid into
+         */
+        private void lowerCustomerDual(int customerJ, double newCustomerDual) {
+            int rowOffset = customerJ * numberOfWarehouseLocations;
+            double customerDual = customerDuals[customerJ];
+            for (int k = rowOffset; k < nextLevelPositions[customerJ]; k++) {
+                int warehouseLocationI = sortedWarehousePreferences[k];
+                if (warehouseStates[warehouseLocationI] == freeWarehouse)
+                    warehouseSlacks[warehouseLocationI] += customerDual - Math.max(allocationCosts[rowOffset + warehouseLocationI], newCustomerDual);
+            }
+            customerDuals[customerJ] = newCustomerDual;
+            nextLevelPositions[customerJ] = skipLevel(rowOffset, rowOffset, newCustomerDual);
+        }
+
+        /**
+         * First position from k in the sorted preferences of a customer of a warehouse that is not closed and costs more than the level
+         */
+        private int skipLevel(int rowOffset, int k, double level) {
+            int rowEnd = rowOffset + numberOfWarehouseLocations;
+            while (k < rowEnd && (warehouseStates[sortedWarehousePreferences[k]] == fixedClosedWarehouse
+                    || allocationCosts[rowOffset + sortedWarehousePreferences[k]] <= level))
+                k++;
+            return k;
+        }
+    }
+
+    /**
+     * A node of the tree as a ForkJoin task
+     */
+    private static class NodeSearch extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final TreeSearch treeSearch;
+        private final DualAscent dualAscent;
+        private final int depth;
+        private final double parentLowerBound;
+
+        private NodeSearch(TreeSearch treeSearch, DualAscent dualAscent, int depth, double parentLowerBound) {
+            this.treeSearch = treeSearch;
+            this.dualAscent = dualAscent;
+            this.depth = depth;
+            this.parentLowerBound = parentLowerBound;
+        }
+
+        @Override
+        protected void compute() {
+            treeSearch.exploreNode(dualAscent, depth, parentLowerBound);
+        }
+    }
+
+    /**
+     * Solves the scenario: returns the best solution found and a proven lower bound (the same cost if it finished in time)
+     */
+    public static BranchAndBoundSolution run(ProblemScenario problemScenario, boolean showProgressMessages) {
+        return BranchAndBoundSolution.run(problemScenario, new TerminationPolicy(), showProgressMessages);
+    }
+
+    /**
+     * Solves the scenario within the time budget of the termination policy
+     * Its target gap is used as the pruning tolerance: a node is pruned if its bound is within the gap of the best solution,
+     * so the best solution is proven to be within the target gap of the optimal one (instead of optimal)
+     */
+    public static BranchAndBoundSolution run(ProblemScenario problemScenario, TerminationPolicy terminationPolicy, boolean showProgressMessages) {
+        return BranchAndBoundSolution.run(problemScenario, terminationPolicy, ForkJoinPool.commonPool(), showProgressMessages);
+    }
+
+    /**
+     * Solves the scenario within the time budget of the termination policy, exploring the nodes in the given pool
+     * (each run can have its own, the pool is not shut down)
+     */
+    public static BranchAndBoundSolution run(ProblemScenario problemScenario, TerminationPolicy terminationPolicy, ForkJoinPool searchPool, boolean showProgressMessages) {
+
+        System.out.println("\n#################################");
+        System.out.println("### -- The Branch and Bound -- ###");
+        System.out.println("#################################");
+        System.out.println("ScenarioName: " + problemScenario.getName() + "\t" + "OptimalSolution: " + problemScenario.getOptimalSolutionValue());
+        System.out.println("NumberOfWarehouses: " + problemScenario.getWarehouseLocations().length + "\t" + "NumberOfCustomers: " + problemScenario.getCustomers().length);
+        System.out.println("#################################");
+
+        //Save starting time
+        TerminationPolicy.Tracker terminationTracker = terminationPolicy.start(problemScenario);
+        long startTime = terminationTracker.getStartTime();
+
+        TreeSearch treeSearch = new TreeSearch(problemScenario, terminationPolicy, terminationTracker);
+        treeSearch.findInitialSolution();
+        if (showProgressMessages) {
+            System.out.println("\n#################################");
+            System.out.println("CompilationTime(ms): " + (System.currentTimeMillis() - startTime) + " milliseconds");
+            System.out.println("InitialSolutionCost: " + String.format("%.3f", treeSearch.bestSolution.getBestSolutionCost()));
+            System.out.println("#################################");
+        }
+
+        //Explore the tree from the root (all the warehouses free)
+        DualAscent rootDualAscent = new DualAscent(treeSearch, new byte[problemScenario.getNumberOfWarehouseLocations()]);
+        searchPool.invoke(new NodeSearch(treeSearch, rootDualAscent, 0, Double.NEGATIVE_INFINITY));
+
+        //All done
+        //Print the result and return the best solution with its bound
+        BranchAndBoundSolution bestSolution = new BranchAndBoundSolution(problemScenario, treeSearch.bestSolution.getBestSolution(),
+                treeSearch.unexploredLowerBound.get(), treeSearch.nodeCounter.sum());
+
+        System.out.println("CompilationTime(ms): " + (System.currentTimeMillis() - startTime) + " milliseconds");
+        System.out.println("Nodes: " + bestSolution.numberOfNodes + "\t" + "LowerBound: " + String.format("%.3f", bestSolution.lowerBound)
+                + "\t" + "Gap: " + String.format("%.5f", bestSolution.getOptimalityGap() * 100) + "%");
+        System.out.println("BestSolution: " + bestSolution.toString());
+        System.out.println("OptimalRatio: " + String.format("%.5f", (problemScenario.getOptimalSolutionValue()/bestSolution.currentSolutionCost)));
+        if (bestSolution.isProvenOptimal())
+            System.out.println("PROVEN OPTIMAL SOLUTION!");
+        System.out.println("#################################");
+
+        return bestSolution;
+    }
+
+    @Override
+    public String toString() {
+        return "BranchAndBoundSolution{" +
+                "currentSolutionCost=" + String.format("%.3f", currentSolutionCost) +
+                ", lowerBound=" + String.format("%.3f", lowerBound) +
+                ", currentSolutionArray=" + currentSolution.toString() +
+                '}';
+    }
+}
@@ -0,0 +1,256 @@
+package Classes;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * The temperature of one annealing run (or chain), lowered every movesPerTemperature moves by the schedule of the parameters:
+ *   GEOMETRIC: T = T * coolingRate (the original schedule)
+ *   LUNDY_MEES: T = T / (1 + beta * T), beta chosen so it gets to the final temperature after as many temperatures as GEOMETRIC
+ *   TIME_BASED: T = T0 * (Tf / T0)^progress, progress = fraction of the budget used (time or evaluations),
+ *     so the run cools down to the final temperature right at the end of its budget, whatever the speed of the moves
+ *   ADAPTIVE: keeps the acceptance rate of the moves on a target that goes from initialAcceptanceRate to finalAcceptanceRate
+ *     (geometrically over the progress): colder when more moves than the target are accepted, hotter when fewer are
+ * Without a budget, the progress of TIME_BASED and ADAPTIVE is the number of temperatures over the ones GEOMETRIC would take
+ * Reheating (reheatAfterTemperatures > 0, runs with a budget only): after reheatAfterTemperatures temperatures without a better
+ * best cost in the cold half of the schedule (below sqrt(T0 * Tf), the hot half is exploring), or when the final temperature
+ * is reached before the end of the budget, the temperature goes back to reheatTemperatureRatio * T0 and the schedule starts
+ * again from there (TIME_BASED cools down over the rest of the budget)
+ * The temperatures can be calibrated for the scenario (calibrateTemperatures) from the cost deltas of sampled moves:
+ * T0 and Tf are the temperatures at which initialAcceptanceRate and finalAcceptanceRate of the sampled worse moves are accepted
+ * Not thread safe (one per chain)
+ */
+public class CoolingSchedule {
+
+    /**
+     * Types of schedules
+     */
+    public enum Type {
+        GEOMETRIC,
+        LUNDY_MEES,
+        TIME_BASED,
+        ADAPTIVE
+    }
+
+    private final static int calibrationMoves = 1000; //moves sampled to calibrate the temperatures
+    private final static int calibrationBisections = 100;
+    private final static double adaptiveGain = 0.5; //how much of the log distance to the target acceptance rate is corrected at each temperature
+    private final static double maximumAdaptiveFactor = 2; //the most the temperature changes at each temperature
+
+    private final Type type;
+    private final TerminationPolicy.Tracker terminationTracker;
+    private final boolean useBudget; //progress from the budget, otherwise from the number of temperatures
+    private final int movesPerTemperature;
+    private final double coolingRate;
+    private final double initialAcceptanceRate;
+    private final double finalAcceptanceRate;
+    private final int reheatAfterTemperatures;
+    private final double reheatTemperatureRatio;
+    private double initialTemperature;
+    private double finalTemperature;
+    private double plannedTemperatures; //temperatures of the GEOMETRIC schedule from the initial to the final temperature
+    private double coldTemperature; //below it the temperatures without improvement count for the reheats
+    private double lundyMeesBeta;
+
+    //Current temperature, and the temperature and progress the schedule started from (the last reheat)
+    private double temperature;
+    private double segmentStartTemperature;
+    private double segmentStartProgress;
+
+    //Counters
+    private int movesAtTemperature = 0;
+    private int acceptedMovesAtTemperature = 0;
+    private long temperaturesCounter = 0;
+    private long temperaturesWithoutImprovementCounter = 0;
+    private double bestCost = Double.POSITIVE_INFINITY;
+    private int reheatsCounter = 0;
+
+    /**
+     * Makes the schedule of a run with the given parameters, the budget of the run comes from its termination tracker
+     */
+    public CoolingSchedule(SimulatedAnnealingParameters parameters, TerminationPolicy.Tracker terminationTracker) {
+        this.type = parameters.getCoolingSchedule();
+        this.terminationTracker = terminationTracker;
+        this.useBudget = terminationTracker.hasBudget();
+        this.movesPerTemperature = parameters.getMovesPerTemperature();
+        this.coolingRate = parameters.getCoolingRate();
+        this.initialAcceptanceRate = parameters.getInitialAcceptanceRate();
+        this.finalAcceptanceRate = parameters.getFinalAcceptanceRate();
+        this.reheatAfterTemperatures = parameters.getReheatAfterTemperatures();
+        this.reheatTemperatureRatio = parameters.getReheatTemperatureRatio();
+        this.setTemperatures(parameters.getInitialTemperature(), parameters.getFinalTemperature());
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public double getTemperature() {
+        return temperature;
+    }
+
+    public double getInitialTemperature() {
+        return initialTemperature;
+    }
+
+    public double getFinalTemperature() {
+        return finalTemperature;
+    }
+
+    public long getTemperaturesCounter() {
+        return temperaturesCounter;
+    }
+
+    public int getReheatsCounter() {
+        return reheatsCounter;
+    }
+
+    /**
+     * True when the run is over: the temperature got to the final one (and it didn't reheat),
+     * or an ADAPTIVE schedule without a budget got to the end of its temperatures
+     */
+    public boolean isFrozen() {
+        return temperature <= finalTemperature || (type == Type.ADAPTIVE && !useBudget && temperaturesCounter >= plannedTemperatures);
+    }
+
+    /**
+     * Sets the initial and final temperatures from the cost deltas of calibrationMoves moves proposed (and all rejected)
+     * from the current state of the engine: the temperatures at which initialAcceptanceRate and finalAcceptanceRate
+     * of the worse moves would be accepted (on average)
+     * The moves that close every open warehouse (infinite delta, never accepted) are not sampled
+     * Keeps the temperatures of the parameters if none of the sampled moves is worse (with a finite delta)
+     */
+    public void calibrateTemperatures(AnnealingMoveEngine moveEngine, RandomGenerator rand) {
+        //Samples the deltas of the worse moves
+        double[] worseCostDeltas = new double[calibrationMoves];
+        int numberOfWorseMoves = 0;
+        double maximumCostDelta = 0;
+        for (int m = 0; m < calibrationMoves; m++) {
+            double costDelta = moveEngine.proposeMove(rand);
+            moveEngine.rejectMove();
+            if (costDelta > 0 && Double.isFinite(costDelta)) {
+                worseCostDeltas[numberOfWorseMoves++] = costDelta;
+                maximumCostDelta = Math.max(maximumCostDelta, costDelta);
+            }
+        }
+        if (numberOfWorseMoves == 0)
+            return;
+
+        //The acceptance rate grows with the temperature, so each temperature is found by bisection (on its logarithm)
+        this.setTemperatures(
+                CoolingSchedule.findTemperature(worseCostDeltas, numberOfWorseMoves, maximumCostDelta, initialAcceptanceRate),
+                CoolingSchedule.findTemperature(worseCostDeltas, numberOfWorseMoves, maximumCostDelta, finalAcceptanceRate));
+    }
+
+    /**
+     * Counts a move (accepted or not) with the best cost found so far, and moves to the next temperature after movesPerTemperature moves
+     */
+    public void countMove(boolean accepted, double bestSolutionCost) {
+        if (accepted)
+            acceptedMovesAtTemperature++;
+        if (++movesAtTemperature < movesPerTemperature)
+            return;
+
+        //Stagnation (the same improvement threshold as the termination policy), only counted in the cold half of the schedule
+        if (bestSolutionCost < bestCost - TerminationPolicy.minimumImprovement) {
+            bestCost = bestSolutionCost;
+            temperaturesWithoutImprovementCounter = 0;
+        } else if (temperature < coldTemperature) {
+            temperaturesWithoutImprovementCounter++;
+        }
+
+        //Next temperature
+        temperaturesCounter++;
+        this.lowerTemperature();
+        movesAtTemperature = 0;
+        acceptedMovesAtTemperature = 0;
+
+        //Reheat when stuck, or frozen with budget left
+        if (reheatAfterTemperatures > 0 && useBudget && this.getProgress() < 1
+                && (temperaturesWithoutImprovementCounter >= reheatAfterTemperatures || this.isFrozen()))
+            this.reheat();
+    }
+
+    private void lowerTemperature() {
+        switch (type) {
+            case GEOMETRIC:
+                temperature *= coolingRate;
+                break;
+            case LUNDY_MEES:
+                temperature /= 1 + lundyMeesBeta * temperature;
+                break;
+            case TIME_BASED: {
+                //Cools from the start of the segment down to the final temperature at the end of the budget
+                double segmentProgress = (this.getProgress() - segmentStartProgress) / (1 - segmentStartProgress);
+                temperature = (segmentProgress >= 1) ? finalTemperature
+                        : segmentStartTemperature * Math.pow(finalTemperature / segmentStartTemperature, segmentProgress);
+                break;
+            }
+            default: {
+                //Moves the logarithm of the temperature towards the target acceptance rate
+                double targetAcceptanceRate = initialAcceptanceRate * Math.pow(finalAcceptanceRate / initialAcceptanceRate, this.getProgress());
+                double acceptanceRate = (acceptedMovesAtTemperature + 0.5) / (movesAtTemperature + 1);
+                double adaptiveFactor = Math.exp(adaptiveGain * Math.log(targetAcceptanceRate / acceptanceRate));
+                temperature *= Math.max(1 / maximumAdaptiveFactor, Math.min(maximumAdaptiveFactor, adaptiveFactor));
+                break;
+            }
+        }
+    }
+
+    private void reheat() {
+        temperature = reheatTemperatureRatio * initialTemperature;
+        segmentStartTemperature = temperature;
+        segmentStartProgress = this.getProgress();
+        temperaturesWithoutImprovementCounter = 0;
+        reheatsCounter++;
+    }
+
+    /**
+     * Fraction (0 to 1) of the run done: of the budget, or of the temperatures of the GEOMETRIC schedule if there is no budget
+     */
+    private double getProgress() {
+        if (useBudget)
+            return terminationTracker.getUsedBudgetFraction();
+        return Math.min(temperaturesCounter / plannedTemperatures, 1);
+    }
+
+    private void setTemperatures(double initialTemperature, double finalTemperature) {
+        this.initialTemperature = initialTemperature;
+        this.finalTemperature = finalTemperature;
+        this.plannedTemperatures = Math.max(Math.log(finalTemperature / initialTemperature) / Math.log(coolingRate), 1);
+        this.coldTemperature = Math.sqrt(initialTemperature * finalTemperature);
+        this.lundyMeesBeta = (initialTemperature - finalTemperature) / (plannedTemperatures * initialTemperature * finalTemperature);
+        this.temperature = initialTemperature;
+        this.segmentStartTemperature = initialTemperature;
+        this.segmentStartProgress = 0;
+    }
+
+    /**
+     * The temperature at which the average chance of accepting the worse moves (exp(-delta / T)) is the given acceptance rate
+     */
+    private static double findTemperature(double[] worseCostDeltas, int numberOfWorseMoves, double maximumCostDelta, double acceptanceRate) {
+        double lowLogTemperature = Math.log(maximumCostDelta) - 50;
+        double highLogTemperature = Math.log(maximumCostDelta) + 50;
+        for (int b = 0; b < calibrationBisections; b++) {
+            double logTemperature = (lowLogTemperature + highLogTemperature) / 2;
+            double temperature = Math.exp(logTemperature);
+            double acceptedSum = 0;
+            for (int m = 0; m < numberOfWorseMoves; m++)
+                acceptedSum += Math.exp(-worseCostDeltas[m] / temperature);
+            if (acceptedSum / numberOfWorseMoves < acceptanceRate)
+                lowLogTemperature = logTemperature;
+            else
+                highLogTemperature = logTemperature;
+        }
+        return Math.exp((lowLogTemperature + highLogTemperature) / 2);
+    }
+
+    @Override
+    public String toString() {
+        return "CoolingSchedule{" +
+                "type=" + type +
+                ", temperatures=" + String.format("%.3f", initialTemperature) + " - " + String.format("%.3f", finalTemperature) +
+                ", temperature=" + String.format("%.3f", temperature) +
+                ", reheats=" + reheatsCounter +
+                '}';
+    }
+}
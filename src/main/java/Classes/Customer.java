@@ -1,5 +1,6 @@
 package Classes;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -8,6 +9,10 @@ public class Customer {
     private int demand;
     private Map<Integer, Double> costOfAllocation; // i from warehouse, cost
 
+    //Row of the scenario allocationCosts array this customer is a view of (null if the customer owns its map)
+    private double[] allocationCosts;
+    private int numberOfWarehouseLocations;
+
     public Customer(int j, int demand) {
         this.j = j;
         this.demand = demand;
@@ -21,6 +26,16 @@ public class Customer {
         this.costOfAllocation.putAll(costOfAllocation);
     }
 
+    /**
+     * Makes a read only view of the customer row j of a scenario allocationCosts array
+     */
+    public Customer(int j, int demand, double[] allocationCosts, int numberOfWarehouseLocations) {
+        this.j = j;
+        this.demand = demand;
+        this.allocationCosts = allocationCosts;
+        this.numberOfWarehouseLocations = numberOfWarehouseLocations;
+    }
+
     //Constructor to make deep copy
     public Customer(Customer customerToDeepCopy) {
         this.j = customerToDeepCopy.j;
@@ -37,6 +52,8 @@ public class Customer {
      * @param costOfAllocation
      */
     public void addCostOfAllocation(int WarehouseLocationI, double costOfAllocation) {
+        if (this.allocationCosts != null)
+            throw new UnsupportedOperationException("Customer is a read only view of the scenario allocationCosts");
         this.costOfAllocation.put(WarehouseLocationI, costOfAllocation);
     }
 
@@ -57,8 +74,18 @@ public class Customer {
         this.demand = demand;
     }
 
+    /**
+     * Returns the costs of allocation (i from warehouse, cost)
+     * For a view, a new read only map is built from the row on every call, so don't use it in hot loops
+     */
     public Map<Integer, Double> getCostOfAllocation() {
-        return costOfAllocation;
+        if (this.allocationCosts == null)
+            return costOfAllocation;
+        Map<Integer, Double> costOfAllocationView = new HashMap<Integer, Double>();
+        int rowOffset = this.j * this.numberOfWarehouseLocations;
+        for (int i = 0; i < this.numberOfWarehouseLocations; i++)
+            costOfAllocationView.put(i, this.allocationCosts[rowOffset + i]);
+        return Collections.unmodifiableMap(costOfAllocationView);
     }
 
     @Override
@@ -66,7 +93,7 @@ public class Customer {
         return "Customer{" +
                 "j=" + j +
                 ", demand=" + demand +
-                ", costOfAllocation=" + costOfAllocation.toString() +
+                ", costOfAllocation=" + getCostOfAllocation().toString() +
                 '}';
     }
 }
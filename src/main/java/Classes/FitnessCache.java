@@ -0,0 +1,197 @@
+package Classes;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of the total costs of the chromosomes of a scenario, so a chromosome bred again (an elite copied, a crossover of
+ * similar parents, a mutation that undoes another one...) doesn't get its cost calculated again
+ * Set associative: the 64 bit hash of a chromosome (BitSolution.longHashCode) picks a set of waysPerSet entries, and an entry
+ * is only a hit if its words are the same as the chromosome (a hash collision is a miss, never a wrong cost)
+ * When a set is full the CLOCK algorithm picks the entry to replace: each set has a hand that goes around its entries,
+ * an entry that was hit since the hand last passed gets a second chance, the first one that wasn't is replaced
+ * (a new entry starts without its second chance, so the chromosomes that are only seen once go first)
+ * Thread safe: the sets are split between lock stripes, the costs are calculated outside the locks,
+ * and the counters are LongAdders (the parallel evaluations don't fight over them)
+ */
+public class FitnessCache {
+
+    private final static int waysPerSet = 4;
+    private final static int maximumLockStripes = 64;
+
+    private final ProblemScenario problemScenario;
+    private final int wordsPerChromosome;
+    private final int setMask;
+    private final int lockStripeMask;
+
+    //Entries (set s has the entries s * waysPerSet to s * waysPerSet + waysPerSet - 1), the words of entry e start at e * wordsPerChromosome
+    private final long[] entryHashes;
+    private final long[] entryWords;
+    private final double[] entryCosts;
+    private final boolean[] entryOccupied;
+    private final boolean[] entryReferenced; //hit since the clock hand last passed
+    private final int[] setClockHands;
+    private final Object[] lockStripes;
+
+    //Counters
+    private final LongAdder hitsCounter = new LongAdder();
+    private final LongAdder missesCounter = new LongAdder();
+    private final LongAdder evictionsCounter = new LongAdder();
+
+    /**
+     * Makes an empty cache of the chromosomes of the scenario, with room for at least the given number of costs
+     * (rounded up to a power of 2)
+     */
+    public FitnessCache(ProblemScenario problemScenario, int capacity) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("The capacity of the cache must be at least 1: " + capacity);
+        this.problemScenario = problemScenario;
+        this.wordsPerChromosome = (problemScenario.getNumberOfWarehouseLocations() + 63) >>> 6;
+        int numberOfSets = Integer.highestOneBit(Math.max((capacity + waysPerSet - 1) / waysPerSet * 2 - 1, 1));
+        this.setMask = numberOfSets - 1;
+        int numberOfLockStripes = Math.min(numberOfSets, maximumLockStripes);
+        this.lockStripeMask = numberOfLockStripes - 1;
+
+        int numberOfEntries = numberOfSets * waysPerSet;
+        this.entryHashes = new long[numberOfEntries];
+        this.entryWords = new long[numberOfEntries * wordsPerChromosome];
+        this.entryCosts = new double[numberOfEntries];
+        this.entryOccupied = new boolean[numberOfEntries];
+        this.entryReferenced = new boolean[numberOfEntries];
+        this.setClockHands = new int[numberOfSets];
+        this.lockStripes = new Object[numberOfLockStripes];
+        for (int k = 0; k < numberOfLockStripes; k++)
+            this.lockStripes[k] = new Object();
+    }
+
+    public ProblemScenario getProblemScenario() {
+        return problemScenario;
+    }
+
+    /**
+     * Number of costs the cache can hold
+     */
+    public int getCapacity() {
+        return entryCosts.length;
+    }
+
+    public long getHitsCounter() {
+        return hitsCounter.sum();
+    }
+
+    public long getMissesCounter() {
+        return missesCounter.sum();
+    }
+
+    public long getEvictionsCounter() {
+        return evictionsCounter.sum();
+    }
+
+    /**
+     * Fraction of the lookups that were hits (0 if there were none)
+     */
+    public double getHitRate() {
+        long hits = hitsCounter.sum();
+        long lookups = hits + missesCounter.sum();
+        return (lookups == 0) ? 0 : (double) hits / lookups;
+    }
+
+    /**
+     * Total cost of the chromosome: the cached one, or calculated (and cached) if it isn't in the cache
+     */
+    public double calculateTotalCost(BitSolution chromosome) {
+        long hash = chromosome.longHashCode();
+        int set = (int) (hash ^ (hash >>> 32)) & setMask;
+
+        //Looks for it
+        double cachedCost = this.find(set, hash, chromosome.getWords());
+        if (!Double.isNaN(cachedCost)) {
+            hitsCounter.increment();
+            return cachedCost;
+        }
+
+        //Calculates it (outside the lock, other threads can use the set meanwhile) and caches it
+        missesCounter.increment();
+        double totalCost = problemScenario.calculateTotalCost(chromosome);
+        this.insert(set, hash, chromosome.getWords(), totalCost);
+        return totalCost;
+    }
+
+    /**
+     * Cost of the entry of the set with the same words, NaN if there is none
+     */
+    private double find(int set, long hash, long[] words) {
+        synchronized (lockStripes[set & lockStripeMask]) {
+            int entry = this.findEntry(set, hash, words);
+            if (entry < 0)
+                return Double.NaN;
+            entryReferenced[entry] = true;
+            return entryCosts[entry];
+        }
+    }
+
+    /**
+     * Puts the cost in a free entry of the set, or in the one the clock picks (unless another thread cached it meanwhile)
+     */
+    private void insert(int set, long hash, long[] words, double totalCost) {
+        synchronized (lockStripes[set & lockStripeMask]) {
+            if (this.findEntry(set, hash, words) >= 0)
+                return;
+
+            //A free entry, or the first one without a second chance from the hand of the set
+            int firstEntry = set * waysPerSet;
+            int entry = -1;
+            for (int way = 0; way < waysPerSet && entry < 0; way++) {
+                if (!entryOccupied[firstEntry + way])
+                    entry = firstEntry + way;
+            }
+            if (entry < 0) {
+                int clockHand = setClockHands[set];
+                while (entryReferenced[firstEntry + clockHand]) {
+                    entryReferenced[firstEntry + clockHand] = false;
+                    clockHand = (clockHand + 1) % waysPerSet;
+                }
+                entry = firstEntry + clockHand;
+                setClockHands[set] = (clockHand + 1) % waysPerSet;
+                evictionsCounter.increment();
+            }
+
+            entryHashes[entry] = hash;
+            System.arraycopy(words, 0, entryWords, entry * wordsPerChromosome, wordsPerChromosome);
+            entryCosts[entry] = totalCost;
+            entryOccupied[entry] = true;
+            entryReferenced[entry] = false;
+        }
+    }
+
+    /**
+     * Entry of the set with the same hash and words, -1 if there is none (called with the lock of the set)
+     */
+    private int findEntry(int set, long hash, long[] words) {
+        int firstEntry = set * waysPerSet;
+        for (int entry = firstEntry; entry < firstEntry + waysPerSet; entry++) {
+            if (entryOccupied[entry] && entryHashes[entry] == hash && this.hasSameWords(entry, words))
+                return entry;
+        }
+        return -1;
+    }
+
+    private boolean hasSameWords(int entry, long[] words) {
+        int firstWord = entry * wordsPerChromosome;
+        for (int w = 0; w < wordsPerChromosome; w++) {
+            if (entryWords[firstWord + w] != words[w])
+                return false;
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "FitnessCache{" +
+                "capacity=" + getCapacity() +
+                ", hits=" + getHitsCounter() +
+                ", misses=" + getMissesCounter() +
+                ", hitRate=" + String.format("%.4f", getHitRate()) +
+                ", evictions=" + getEvictionsCounter() +
+                '}';
+    }
+}
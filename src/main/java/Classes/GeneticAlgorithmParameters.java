@@ -0,0 +1,264 @@
+package Classes;
+
+/**
+ * Parameters of a run of the genetic algorithm (the defaults are the values the algorithm was tuned with)
+ * Can be read from a properties file (see SolverConfiguration), so they can be tuned without recompiling
+ */
+public class GeneticAlgorithmParameters {
+
+    private final static String propertiesPrefix = "geneticAlgorithm.";
+
+    private int numberOfSolutionsPerGeneration = 100;
+    private int xNumberOfBestSolutionsForSelectionFunction = 40; //Even Number if possible
+
+    private int xPopulationSizeGoalForCrossoverFunction = 100;
+    private int yNumberOfEliteNonCrossedSolutions = 6; //Even Number if possible
+
+    private int xPopulationSizeGoalForMutationFunction = 120;
+    private int yNumberOfEliteNonMutatedSolutions = 6;
+    private double chanceOfSolutionMutation = 0.60;
+    private double chanceOfGeneMutation = 0.20;
+    private boolean useUniformCrossover = false; //false = single point crossover
+    private boolean useDoubleBufferedPopulations = true; //false = new lists and solutions every generation
+
+    private int maxNumberOfGenerations = 200;
+
+    private int fitnessCacheSize = 4096; //costs kept by the FitnessCache of a run (0 = no cache, every bred solution is calculated)
+
+    private int evaluationThreads = 0; //threads of the pool of a run that calculates the costs of each population (0 = sequentially)
+
+    /**
+     * Makes the default parameters
+     */
+    public GeneticAlgorithmParameters() {
+    }
+
+    /**
+     * Makes a copy of the given parameters
+     */
+    public GeneticAlgorithmParameters(GeneticAlgorithmParameters geneticAlgorithmParametersToCopy) {
+        this.numberOfSolutionsPerGeneration = geneticAlgorithmParametersToCopy.numberOfSolutionsPerGeneration;
+        this.xNumberOfBestSolutionsForSelectionFunction = geneticAlgorithmParametersToCopy.xNumberOfBestSolutionsForSelectionFunction;
+        this.xPopulationSizeGoalForCrossoverFunction = geneticAlgorithmParametersToCopy.xPopulationSizeGoalForCrossoverFunction;
+        this.yNumberOfEliteNonCrossedSolutions = geneticAlgorithmParametersToCopy.yNumberOfEliteNonCrossedSolutions;
+        this.xPopulationSizeGoalForMutationFunction = geneticAlgorithmParametersToCopy.xPopulationSizeGoalForMutationFunction;
+        this.yNumberOfEliteNonMutatedSolutions = geneticAlgorithmParametersToCopy.yNumberOfEliteNonMutatedSolutions;
+        this.chanceOfSolutionMutation = geneticAlgorithmParametersToCopy.chanceOfSolutionMutation;
+        this.chanceOfGeneMutation = geneticAlgorithmParametersToCopy.chanceOfGeneMutation;
+        this.useUniformCrossover = geneticAlgorithmParametersToCopy.useUniformCrossover;
+        this.useDoubleBufferedPopulations = geneticAlgorithmParametersToCopy.useDoubleBufferedPopulations;
+        this.maxNumberOfGenerations = geneticAlgorithmParametersToCopy.maxNumberOfGenerations;
+        this.fitnessCacheSize = geneticAlgorithmParametersToCopy.fitnessCacheSize;
+        this.evaluationThreads = geneticAlgorithmParametersToCopy.evaluationThreads;
+    }
+
+    public int getNumberOfSolutionsPerGeneration() {
+        return numberOfSolutionsPerGeneration;
+    }
+
+    public GeneticAlgorithmParameters setNumberOfSolutionsPerGeneration(int numberOfSolutionsPerGeneration) {
+        this.numberOfSolutionsPerGeneration = numberOfSolutionsPerGeneration;
+        return this;
+    }
+
+    public int getXNumberOfBestSolutionsForSelectionFunction() {
+        return xNumberOfBestSolutionsForSelectionFunction;
+    }
+
+    public GeneticAlgorithmParameters setXNumberOfBestSolutionsForSelectionFunction(int xNumberOfBestSolutionsForSelectionFunction) {
+        this.xNumberOfBestSolutionsForSelectionFunction = xNumberOfBestSolutionsForSelectionFunction;
+        return this;
+    }
+
+    public int getXPopulationSizeGoalForCrossoverFunction() {
+        return xPopulationSizeGoalForCrossoverFunction;
+    }
+
+    public GeneticAlgorithmParameters setXPopulationSizeGoalForCrossoverFunction(int xPopulationSizeGoalForCrossoverFunction) {
+        this.xPopulationSizeGoalForCrossoverFunction = xPopulationSizeGoalForCrossoverFunction;
+        return this;
+    }
+
+    public int getYNumberOfEliteNonCrossedSolutions() {
+        return yNumberOfEliteNonCrossedSolutions;
+    }
+
+    public GeneticAlgorithmParameters setYNumberOfEliteNonCrossedSolutions(int yNumberOfEliteNonCrossedSolutions) {
+        this.yNumberOfEliteNonCrossedSolutions = yNumberOfEliteNonCrossedSolutions;
+        return this;
+    }
+
+    public int getXPopulationSizeGoalForMutationFunction() {
+        return xPopulationSizeGoalForMutationFunction;
+    }
+
+    public GeneticAlgorithmParameters setXPopulationSizeGoalForMutationFunction(int xPopulationSizeGoalForMutationFunction) {
+        this.xPopulationSizeGoalForMutationFunction = xPopulationSizeGoalForMutationFunction;
+        return this;
+    }
+
+    public int getYNumberOfEliteNonMutatedSolutions() {
+        return yNumberOfEliteNonMutatedSolutions;
+    }
+
+    public GeneticAlgorithmParameters setYNumberOfEliteNonMutatedSolutions(int yNumberOfEliteNonMutatedSolutions) {
+        this.yNumberOfEliteNonMutatedSolutions = yNumberOfEliteNonMutatedSolutions;
+        return this;
+    }
+
+    public double getChanceOfSolutionMutation() {
+        return chanceOfSolutionMutation;
+    }
+
+    public GeneticAlgorithmParameters setChanceOfSolutionMutation(double chanceOfSolutionMutation) {
+        this.chanceOfSolutionMutation = chanceOfSolutionMutation;
+        return this;
+    }
+
+    public double getChanceOfGeneMutation() {
+        return chanceOfGeneMutation;
+    }
+
+    public GeneticAlgorithmParameters setChanceOfGeneMutation(double chanceOfGeneMutation) {
+        this.chanceOfGeneMutation = chanceOfGeneMutation;
+        return this;
+    }
+
+    public boolean isUseUniformCrossover() {
+        return useUniformCrossover;
+    }
+
+    public GeneticAlgorithmParameters setUseUniformCrossover(boolean useUniformCrossover) {
+        this.useUniformCrossover = useUniformCrossover;
+        return this;
+    }
+
+    public boolean isUseDoubleBufferedPopulations() {
+        return useDoubleBufferedPopulations;
+    }
+
+    public GeneticAlgorithmParameters setUseDoubleBufferedPopulations(boolean useDoubleBufferedPopulations) {
+        this.useDoubleBufferedPopulations = useDoubleBufferedPopulations;
+        return this;
+    }
+
+    public int getMaxNumberOfGenerations() {
+        return maxNumberOfGenerations;
+    }
+
+    public GeneticAlgorithmParameters setMaxNumberOfGenerations(int maxNumberOfGenerations) {
+        this.maxNumberOfGenerations = maxNumberOfGenerations;
+        return this;
+    }
+
+    public int getFitnessCacheSize() {
+        return fitnessCacheSize;
+    }
+
+    public GeneticAlgorithmParameters setFitnessCacheSize(int fitnessCacheSize) {
+        this.fitnessCacheSize = fitnessCacheSize;
+        return this;
+    }
+
+    public int getEvaluationThreads() {
+        return evaluationThreads;
+    }
+
+    public GeneticAlgorithmParameters setEvaluationThreads(int evaluationThreads) {
+        this.evaluationThreads = evaluationThreads;
+        return this;
+    }
+
+    /**
+     * Evaluations of a generation (at most): the crossed and the mutated solutions that are not elites
+     */
+    public int getNumberOfBredSolutionsPerGeneration() {
+        return (xPopulationSizeGoalForCrossoverFunction - yNumberOfEliteNonCrossedSolutions)
+                + (xPopulationSizeGoalForMutationFunction - yNumberOfEliteNonMutatedSolutions);
+    }
+
+    /**
+     * Throws an IllegalArgumentException if the parameters can't make a population
+     * (the selection keeps the elites and at least a pair of parents, and the chances are between 0 and 1)
+     */
+    public void validate() {
+        if (numberOfSolutionsPerGeneration < 2 || xNumberOfBestSolutionsForSelectionFunction < 2
+                || xNumberOfBestSolutionsForSelectionFunction > numberOfSolutionsPerGeneration)
+            throw new IllegalArgumentException("The selection must keep between 2 and numberOfSolutionsPerGeneration solutions: " + this);
+        if (yNumberOfEliteNonCrossedSolutions < 0 || yNumberOfEliteNonCrossedSolutions >= xNumberOfBestSolutionsForSelectionFunction
+                || xPopulationSizeGoalForCrossoverFunction < xNumberOfBestSolutionsForSelectionFunction)
+            throw new IllegalArgumentException("The crossover elites must be less than the selected solutions, and its population goal at least as big: " + this);
+        if (yNumberOfEliteNonMutatedSolutions < 0 || yNumberOfEliteNonMutatedSolutions >= xPopulationSizeGoalForCrossoverFunction
+                || xPopulationSizeGoalForMutationFunction < xPopulationSizeGoalForCrossoverFunction)
+            throw new IllegalArgumentException("The mutation elites must be less than the crossed solutions, and its population goal at least as big: " + this);
+        if (chanceOfSolutionMutation < 0 || chanceOfSolutionMutation > 1 || chanceOfGeneMutation < 0 || chanceOfGeneMutation > 1)
+            throw new IllegalArgumentException("The mutation chances must be between 0 and 1: " + this);
+        if (maxNumberOfGenerations < 1)
+            throw new IllegalArgumentException("maxNumberOfGenerations must be at least 1: " + this);
+        if (fitnessCacheSize < 0)
+            throw new IllegalArgumentException("fitnessCacheSize can't be negative: " + this);
+        if (evaluationThreads < 0)
+            throw new IllegalArgumentException("evaluationThreads can't be negative: " + this);
+    }
+
+    /**
+     * Sets the parameters that have a key in the properties (geneticAlgorithm.name), the others keep their values
+     */
+    void ReadFromProperties(ParameterProperties parameterProperties) {
+        numberOfSolutionsPerGeneration = parameterProperties.readInt(propertiesPrefix, "numberOfSolutionsPerGeneration", numberOfSolutionsPerGeneration);
+        xNumberOfBestSolutionsForSelectionFunction = parameterProperties.readInt(propertiesPrefix, "xNumberOfBestSolutionsForSelectionFunction", xNumberOfBestSolutionsForSelectionFunction);
+        xPopulationSizeGoalForCrossoverFunction = parameterProperties.readInt(propertiesPrefix, "xPopulationSizeGoalForCrossoverFunction", xPopulationSizeGoalForCrossoverFunction);
+        yNumberOfEliteNonCrossedSolutions = parameterProperties.readInt(propertiesPrefix, "yNumberOfEliteNonCrossedSolutions", yNumberOfEliteNonCrossedSolutions);
+        xPopulationSizeGoalForMutationFunction = parameterProperties.readInt(propertiesPrefix, "xPopulationSizeGoalForMutationFunction", xPopulationSizeGoalForMutationFunction);
+        yNumberOfEliteNonMutatedSolutions = parameterProperties.readInt(propertiesPrefix, "yNumberOfEliteNonMutatedSolutions", yNumberOfEliteNonMutatedSolutions);
+        chanceOfSolutionMutation = parameterProperties.readDouble(propertiesPrefix, "chanceOfSolutionMutation", chanceOfSolutionMutation);
+        chanceOfGeneMutation = parameterProperties.readDouble(propertiesPrefix, "chanceOfGeneMutation", chanceOfGeneMutation);
+        useUniformCrossover = parameterProperties.readBoolean(propertiesPrefix, "useUniformCrossover", useUniformCrossover);
+        useDoubleBufferedPopulations = parameterProperties.readBoolean(propertiesPrefix, "useDoubleBufferedPopulations", useDoubleBufferedPopulations);
+        maxNumberOfGenerations = parameterProperties.readInt(propertiesPrefix, "maxNumberOfGenerations", maxNumberOfGenerations);
+        fitnessCacheSize = parameterProperties.readInt(propertiesPrefix, "fitnessCacheSize", fitnessCacheSize);
+        evaluationThreads = parameterProperties.readInt(propertiesPrefix, "evaluationThreads", evaluationThreads);
+    }
+
+    /**
+     * Writes all the parameters to the properties (geneticAlgorithm.name)
+     */
+    void WriteToProperties(ParameterProperties parameterProperties) {
+        parameterProperties.write(propertiesPrefix, "numberOfSolutionsPerGeneration", numberOfSolutionsPerGeneration);
+        parameterProperties.write(propertiesPrefix, "xNumberOfBestSolutionsForSelectionFunction", xNumberOfBestSolutionsForSelectionFunction);
+        parameterProperties.write(propertiesPrefix, "xPopulationSizeGoalForCrossoverFunction", xPopulationSizeGoalForCrossoverFunction);
+        parameterProperties.write(propertiesPrefix, "yNumberOfEliteNonCrossedSolutions", yNumberOfEliteNonCrossedSolutions);
+        parameterProperties.write(propertiesPrefix, "xPopulationSizeGoalForMutationFunction", xPopulationSizeGoalForMutationFunction);
+        parameterProperties.write(propertiesPrefix, "yNumberOfEliteNonMutatedSolutions", yNumberOfEliteNonMutatedSolutions);
+        parameterProperties.write(propertiesPrefix, "chanceOfSolutionMutation", chanceOfSolutionMutation);
+        parameterProperties.write(propertiesPrefix, "chanceOfGeneMutation", chanceOfGeneMutation);
+        parameterProperties.write(propertiesPrefix, "useUniformCrossover", useUniformCrossover);
+        parameterProperties.write(propertiesPrefix, "useDoubleBufferedPopulations", useDoubleBufferedPopulations);
+        parameterProperties.write(propertiesPrefix, "maxNumberOfGenerations", maxNumberOfGenerations);
+        parameterProperties.write(propertiesPrefix, "fitnessCacheSize", fitnessCacheSize);
+        parameterProperties.write(propertiesPrefix, "evaluationThreads", evaluationThreads);
+    }
+
+    static String getPropertiesPrefix() {
+        return propertiesPrefix;
+    }
+
+    @Override
+    public String toString() {
+        return "GeneticAlgorithmParameters{" +
+                "numberOfSolutionsPerGeneration=" + numberOfSolutionsPerGeneration +
+                ", xNumberOfBestSolutionsForSelectionFunction=" + xNumberOfBestSolutionsForSelectionFunction +
+                ", xPopulationSizeGoalForCrossoverFunction=" + xPopulationSizeGoalForCrossoverFunction +
+                ", yNumberOfEliteNonCrossedSolutions=" + yNumberOfEliteNonCrossedSolutions +
+                ", xPopulationSizeGoalForMutationFunction=" + xPopulationSizeGoalForMutationFunction +
+                ", yNumberOfEliteNonMutatedSolutions=" + yNumberOfEliteNonMutatedSolutions +
+                ", chanceOfSolutionMutation=" + chanceOfSolutionMutation +
+                ", chanceOfGeneMutation=" + chanceOfGeneMutation +
+                ", useUniformCrossover=" + useUniformCrossover +
+                ", useDoubleBufferedPopulations=" + useDoubleBufferedPopulations +
+                ", maxNumberOfGenerations=" + maxNumberOfGenerations +
+                ", fitnessCacheSize=" + fitnessCacheSize +
+                ", evaluationThreads=" + evaluationThreads +
+                '}';
+    }
+}
@@ -1,106 +1,111 @@
 package Classes;
 
-import com.sun.net.httpserver.Authenticator;
-
-import java.text.DecimalFormat;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.random.RandomGenerator;
 
 public class GeneticAlgorithmSolution implements Comparable<GeneticAlgorithmSolution> {
 
-    private final static int numberOfSolutionsPerGeneration = 100;
-    private final static int xNumberOfBestSolutionsForSelectionFunction = 40; //Even Number if possible
-
-    private final static int xPopulationSizeGoalForCrossoverFunction = 100;
-    private final static int yNumberOfEliteNonCrossedSolutions = 6; //Even Number if possible
-
-    private final static int xPopulationSizeGoalForMutationFunction = 120;
-    private final static int yNumberOfEliteNonMutatedSolutions = 6;
-    private final static double chanceOfSolutionMutation = 0.60;
-    private final static double chanceOfGeneMutation = 0.20;
+    //The sizes of the populations and the chances of the mutations are in GeneticAlgorithmParameters
 
-    private final static int maxNumberOfGenerations = 200;
-    private final static long maxRunEvolutionDuration = 50000; //milliseconds
+    private final static double costNotCalculated = Double.NaN; //cost of a solution waiting for a PopulationEvaluation
 
-
-    private static ProblemScenario problemScenario = null;
-
-    private int[] chromosome;
+    private final ProblemScenario problemScenario;
+    private BitSolution chromosome;
     private double currentSolutionCost;
 
     /**
-     * Makes a solution with the given chromosome
+     * Makes a solution with the given chromosome (1 = warehouse open, 0 = warehouse closed)
      * Also calculates the total cost of the created solution
      */
-    public GeneticAlgorithmSolution(int[] chromosome) {
-        this.chromosome = GeneticAlgorithmSolution.generateChromosomeDeepCopy(chromosome);
-        this.calculateTotalCost();
+    public GeneticAlgorithmSolution(ProblemScenario problemScenario, int[] chromosome) {
+        this(problemScenario, BitSolution.fromSolutionArray(chromosome));
+    }
+
+    /**
+     * Makes a solution with a copy of the given chromosome
+     * Also calculates the total cost of the created solution
+     */
+    public GeneticAlgorithmSolution(ProblemScenario problemScenario, BitSolution chromosome) {
+        this.problemScenario = problemScenario;
+        this.chromosome = new BitSolution(chromosome);
+        this.calculateTotalCost(null);
     }
 
     /**
      * Makes a deep copy with the given solution
      */
     public GeneticAlgorithmSolution(GeneticAlgorithmSolution geneticAlgorithmSolutionToDeepCopy) {
-        this.chromosome = GeneticAlgorithmSolution.generateChromosomeDeepCopy(geneticAlgorithmSolutionToDeepCopy.getChromosome());
+        this.problemScenario = geneticAlgorithmSolutionToDeepCopy.getProblemScenario();
+        this.chromosome = new BitSolution(geneticAlgorithmSolutionToDeepCopy.chromosome);
         this.currentSolutionCost = geneticAlgorithmSolutionToDeepCopy.getCurrentSolutionCost();
     }
 
-    //Sets the problem scenario ... needs to be set BEFORE the constructor
-    public static void setProblemScenario(ProblemScenario problemScenario) {
-        GeneticAlgorithmSolution.problemScenario = problemScenario;
+    /**
+     * Makes a solution that keeps the given chromosome (no copy) and the given cost
+     * Used with costNotCalculated to build a population first and calculate all its costs at once with a PopulationEvaluation
+     */
+    private GeneticAlgorithmSolution(ProblemScenario problemScenario, BitSolution chromosome, double currentSolutionCost) {
+        this.problemScenario = problemScenario;
+        this.chromosome = chromosome;
+        this.currentSolutionCost = currentSolutionCost;
     }
 
-    public int[] getChromosome() {
-        return chromosome;
+    public ProblemScenario getProblemScenario() {
+        return problemScenario;
     }
 
-    public double getCurrentSolutionCost() {
-        return currentSolutionCost;
+    /**
+     * The packed chromosome, owned by the solution (don't change it)
+     */
+    public BitSolution getPackedChromosome() {
+        return chromosome;
     }
 
     /**
-     * Generates and returns a deep copy of the provided Chromosome
+     * Returns the chromosome as a new array (1 = warehouse open, 0 = warehouse closed)
      */
-    private static int[] generateChromosomeDeepCopy(int[] originalChromosome) {
-        //Make deep copy of the chromosome
-        int[] chromosomeDeepCopy = new int[originalChromosome.length];
-        for (int i = 0; i < originalChromosome.length; i++) {
-            chromosomeDeepCopy[i] = originalChromosome[i];
-        }
-        return chromosomeDeepCopy;
+    public int[] getChromosome() {
+        return chromosome.toSolutionArray();
     }
 
+    public double getCurrentSolutionCost() {
+        return currentSolutionCost;
+    }
 
     /**
      * Generates and returns a random chromosome
      */
-    private static int[] generateRandomChromosome() {
-        Random rand = new Random();
-        //Creates a list to store the generated genes
-        int[] generatedChromosome = new int[problemScenario.getWarehouseLocations().length];
-
-        for (int i = 0; i < generatedChromosome.length; i++)
-            generatedChromosome[i] = rand.nextInt(0, 2);
+    private static BitSolution generateRandomChromosome(ProblemScenario problemScenario, RandomGenerator rand) {
+        //Creates a chromosome with a gene per warehouse and opens each one with a 50% chance (a whole word at a time)
+        BitSolution generatedChromosome = new BitSolution(problemScenario.getNumberOfWarehouseLocations());
+        generatedChromosome.randomize(rand);
         //Returns generated chromosome
         return generatedChromosome;
     }
 
     /**
-     * Generates and returns a random solution
+     * Generates and returns a random solution (its cost is calculated later by a PopulationEvaluation)
      */
-    private static GeneticAlgorithmSolution generateRandomSolution() {
+    private static GeneticAlgorithmSolution generateRandomSolution(ProblemScenario problemScenario, RandomGenerator rand) {
         //Creates a solution with a random chromosome
-        return new GeneticAlgorithmSolution(GeneticAlgorithmSolution.generateRandomChromosome());
+        return new GeneticAlgorithmSolution(problemScenario, GeneticAlgorithmSolution.generateRandomChromosome(problemScenario, rand), costNotCalculated);
     }
 
     /**
      * Generates and returns a list with X number of random solutions
      */
-    private static List<GeneticAlgorithmSolution> generateXRandomSolutions(int numberOfRandomSolutions) {
+    private static List<GeneticAlgorithmSolution> generateXRandomSolutions(ProblemScenario problemScenario, int numberOfRandomSolutions,
+                                                                           PopulationEvaluation populationEvaluation, RandomGenerator rand) {
         //Creates a list to store the generated solutions
         List<GeneticAlgorithmSolution> generatedSolutions = new ArrayList<>();
         //Generates random solutions and stores them in the list
         for (int i = 0; i < numberOfRandomSolutions; i++)
-            generatedSolutions.add(GeneticAlgorithmSolution.generateRandomSolution());
+            generatedSolutions.add(GeneticAlgorithmSolution.generateRandomSolution(problemScenario, rand));
+        //Calculates their costs
+        populationEvaluation.evaluate(generatedSolutions);
         //Sorts the generated Solutions
         generatedSolutions.sort(Comparator.naturalOrder());
         //Returns the generated solutions
@@ -108,58 +113,18 @@ public class GeneticAlgorithmSolution implements Comparable<GeneticAlgorithmSolu
     }
 
     /**
-     * Calculate the total cost value of the current solution
+     * Calculate the total cost value of the current solution (the cached one if the chromosome is in the fitnessCache, if there is one)
      */
-    private void calculateTotalCost() {
-        double totalCost = 0;
-        //For each warehouse with 1 value in the chromosome, add the fixed cost
-        //For each chromosome
-        for (int i = 0; i < this.chromosome.length; i++) {
-            //if the chromosome is 1 (warehouse is open)
-            if (this.chromosome[i] == 1) {
-                //Add the fixed cost of the warehouse to the total cost
-                totalCost += this.problemScenario.getWarehouseLocations()[i].getFixedCost();
-            }
-        }
-
-        //For each customer, add the costOfAllocation of the nearest opened warehouse
-        //For each customer
-        for (int i = 0; i < this.problemScenario.getCustomers().length; i++) {
-            //Get the cost of allocations
-            Map<Integer, Double> costOfAllocation = this.problemScenario.getCustomers()[i].getCostOfAllocation();
-            // Create a list of the map entries
-            List<Map.Entry<Integer, Double>> entries = new ArrayList<>(costOfAllocation.entrySet());
-
-            // Sort the list by values
-            entries.sort(Map.Entry.comparingByValue());
-
-            // Iterate over the sorted entries
-            for (Map.Entry<Integer, Double> entry : entries) {
-                //Logger.WriteMessage("Key: " + entry.getKey() + ", Value: " + entry.getValue());
-                // Until we find the first opened warehouse
-                if (this.chromosome[entry.getKey()] == 1) {
-                    //If so ... Add the value to the total cost and break the loop
-                    totalCost += entry.getValue();
-                    break;
-                }
-            }
-        }
-        //If all the warehouses are closed (the cost is 0.0, then make the cost a very large number)
-        if (totalCost == 0) {
-            totalCost = Double.POSITIVE_INFINITY;
-        }
-
-        //All done ... set the new cost for the current solution
-        this.currentSolutionCost = totalCost;
+    private void calculateTotalCost(FitnessCache fitnessCache) {
+        //Fixed costs of the open warehouses plus the cheapest open warehouse of each customer (from the scenario cost arrays)
+        this.currentSolutionCost = (fitnessCache == null) ? problemScenario.calculateTotalCost(this.chromosome) : fitnessCache.calculateTotalCost(this.chromosome);
     }
 
     /**
-     * Calculates the total cost value of each solution in a list
+     * Makes the cache of the costs of a run (null if the parameters don't use one)
      */
-    private static void calculateTotalCosts(List<GeneticAlgorithmSolution> solutionsList) {
-        //For each solution in the solutionsList, it calculates the total cost
-        for (GeneticAlgorithmSolution solution : solutionsList)
-            solution.calculateTotalCost();
+    private static FitnessCache makeFitnessCache(ProblemScenario problemScenario, GeneticAlgorithmParameters parameters) {
+        return (parameters.getFitnessCacheSize() > 0) ? new FitnessCache(problemScenario, parameters.getFitnessCacheSize()) : null;
     }
 
     /**
@@ -184,29 +149,30 @@ public class GeneticAlgorithmSolution implements Comparable<GeneticAlgorithmSolu
     /**
      * Given an array with 2 initial solutions, returns an array with the 2 resulting solutions from crossing of the 2 initial ones
      */
-    private static GeneticAlgorithmSolution[] crossoverFunction(GeneticAlgorithmSolution initial2SolutionFirst, GeneticAlgorithmSolution initial2SolutionSecond) {
+    private static GeneticAlgorithmSolution[] crossoverFunction(GeneticAlgorithmSolution initial2SolutionFirst, GeneticAlgorithmSolution initial2SolutionSecond,
+                                                         boolean useUniformCrossover, RandomGenerator rand) {
         //Get initial chromosomes
-        int[] initialChromosome1 = initial2SolutionFirst.getChromosome();
-        int[] initialChromosome2 = initial2SolutionSecond.getChromosome();
-        //Get the random part where u will part them (from position 1 to the one before the last)
-        int randomPartPosition = (new Random()).nextInt(1, initialChromosome1.length - 1);
+        BitSolution initialChromosome1 = initial2SolutionFirst.chromosome;
+        BitSolution initialChromosome2 = initial2SolutionSecond.chromosome;
 
         //Build the new crossed chromosomes
-        int[] crossedChromosome1 = new int[initialChromosome1.length];
-        int[] crossedChromosome2 = new int[initialChromosome1.length];
+        BitSolution crossedChromosome1 = new BitSolution(initialChromosome1.length());
+        BitSolution crossedChromosome2 = new BitSolution(initialChromosome1.length());
 
-        // Copy the first part from each parent into the new chromosomes
-        System.arraycopy(initialChromosome1, 0, crossedChromosome1, 0, randomPartPosition);
-        System.arraycopy(initialChromosome2, 0, crossedChromosome2, 0, randomPartPosition);
-
-        // Copy the second part from the other parent into the new chromosomes
-        System.arraycopy(initialChromosome2, randomPartPosition, crossedChromosome1, randomPartPosition, initialChromosome1.length - randomPartPosition);
-        System.arraycopy(initialChromosome1, randomPartPosition, crossedChromosome2, randomPartPosition, initialChromosome2.length - randomPartPosition);
+        if (useUniformCrossover) {
+            //Each gene comes from one parent or the other (a random mask per word)
+            BitSolution.uniformCrossover(initialChromosome1, initialChromosome2, rand, crossedChromosome1, crossedChromosome2);
+        } else {
+            //Get the random part where u will part them (from position 1 to the one before the last)
+            int randomPartPosition = rand.nextInt(1, initialChromosome1.length() - 1);
+            //First part from each parent and second part from the other parent (whole words are copied at once)
+            BitSolution.singlePointCrossover(initialChromosome1, initialChromosome2, randomPartPosition, crossedChromosome1, crossedChromosome2);
+        }
 
-        //Build new SolutionArray
+        //Build new SolutionArray (the costs are calculated later by a PopulationEvaluation)
         GeneticAlgorithmSolution[] crossed2SolutionArray = new GeneticAlgorithmSolution[2];
-        crossed2SolutionArray[0] = new GeneticAlgorithmSolution(crossedChromosome1);
-        crossed2SolutionArray[1] = new GeneticAlgorithmSolution(crossedChromosome2);
+        crossed2SolutionArray[0] = new GeneticAlgorithmSolution(initial2SolutionFirst.getProblemScenario(), crossedChromosome1, costNotCalculated);
+        crossed2SolutionArray[1] = new GeneticAlgorithmSolution(initial2SolutionFirst.getProblemScenario(), crossedChromosome2, costNotCalculated);
 
         //All done, return
         return crossed2SolutionArray;
@@ -219,10 +185,10 @@ public class GeneticAlgorithmSolution implements Comparable<GeneticAlgorithmSolu
     private static List<GeneticAlgorithmSolution> crossoverFunctionIntoXPopulation(
             List<GeneticAlgorithmSolution> originalSolutionsList,
             int xPopulationSizeGoal,
-            int yNumberOfEliteUnchangedSolutions) {
-
-
-        Random rand = new Random();
+            int yNumberOfEliteUnchangedSolutions,
+            boolean useUniformCrossover,
+            PopulationEvaluation populationEvaluation,
+            RandomGenerator rand) {
 
         //Creates a list to store the crossed solutions
         List<GeneticAlgorithmSolution> crossedSolutions = new ArrayList<>();
@@ -235,7 +201,7 @@ public class GeneticAlgorithmSolution implements Comparable<GeneticAlgorithmSolu
             GeneticAlgorithmSolution originalSolution2 = new GeneticAlgorithmSolution(originalSolutionsList.get(i + 1));
 
             //Makes crossover of the 2 original solutions
-            GeneticAlgorithmSolution[] crossed2SolutionsArray = GeneticAlgorithmSolution.crossoverFunction(originalSolution1, originalSolution2);
+            GeneticAlgorithmSolution[] crossed2SolutionsArray = GeneticAlgorithmSolution.crossoverFunction(originalSolution1, originalSolution2, useUniformCrossover, rand);
 
             //Adds the 2 non elite crossed solutions to the list
             crossedSolutions.add(crossed2SolutionsArray[0]);
@@ -243,6 +209,9 @@ public class GeneticAlgorithmSolution implements Comparable<GeneticAlgorithmSolu
             //Increments a second time the counter (we modified 2 solutions)
             i++;
         }
+        //If a non elite solution is left without a pair, it is kept unchanged
+        if ((originalSolutionsList.size() - yNumberOfEliteUnchangedSolutions) % 2 != 0)
+            crossedSolutions.add(new GeneticAlgorithmSolution(originalSolutionsList.get(originalSolutionsList.size() - 1)));
 
 
         //While number of solutions is below the population goal
@@ -252,7 +221,7 @@ public class GeneticAlgorithmSolution implements Comparable<GeneticAlgorithmSolu
             GeneticAlgorithmSolution originalSolution2 = new GeneticAlgorithmSolution(originalSolutionsList.get(rand.nextInt(1, originalSolutionsList.size())));
 
             //Makes crossover of the 2 original solutions
-            GeneticAlgorithmSolution[] crossed2SolutionsArray = GeneticAlgorithmSolution.crossoverFunction(originalSolution1, originalSolution2);
+            GeneticAlgorithmSolution[] crossed2SolutionsArray = GeneticAlgorithmSolution.crossoverFunction(originalSolution1, originalSolution2, useUniformCrossover, rand);
 
             //Adds the 2 crossed solutions to the list
             crossedSolutions.add(crossed2SolutionsArray[0]);
@@ -260,7 +229,12 @@ public class GeneticAlgorithmSolution implements Comparable<GeneticAlgorithmSolu
             //Increments a second time the counter (we modified 2 solutions)
             i++;
         }
+        //If a single solution is missing, adds a copy of a random (non best) parent
+        if ((xPopulationSizeGoal - originalSolutionsList.size()) % 2 != 0)
+            crossedSolutions.add(new GeneticAlgorithmSolution(originalSolutionsList.get(rand.nextInt(1, originalSolutionsList.size()))));
 
+        //Calculates the costs of the crossed solutions
+        populationEvaluation.evaluate(crossedSolutions);
         //Sorts the new list
         crossedSolutions.sort(Comparator.naturalOrder());
         //Returns the list with the mutated solutions
@@ -269,70 +243,40 @@ public class GeneticAlgorithmSolution implements Comparable<GeneticAlgorithmSolu
 
 
     /**
-     * Based on a eventSuccessChance, returns true of false if the event succeeds or not
+     * Based on a eventSuccessChance, returns true of false if the event succeeds or not (using the given random generator)
      */
-    private static boolean chanceEventRoulette(double eventSuccessChance) throws Exception {
+    private static boolean chanceEventRoulette(double eventSuccessChance, RandomGenerator rand) throws Exception {
         if (eventSuccessChance < 0 || eventSuccessChance > 1)
             throw new Exception("eventSuccessChance must be between 0 and 1");
-        if (eventSuccessChance == 1)
-            return true;
-        //Makes random number between 0 (inclusive) and 101(exclusive)
-        int randomNumber = (new Random()).nextInt(0, 101);
-        //Gets eventSuccessChance in % form
-        int eventSuccessChanceNumber = (int) (eventSuccessChance * 100);
-        //if eventSuccessChanceNumber >= randomNumber it means that the event had success, otherwise it failed
-        return (eventSuccessChanceNumber >= randomNumber);
-    }
-
-
-    /**
-     * Mutates a gene
-     */
-    private static int mutateGene(int originalGene) {
-
-        //Simple gene mutation ... if 0 becomes 1, if 1 becomes 0
-        if (originalGene == 0) {
-            return 1;
-        } else {
-            return 0;
-        }
+        //A random number in [0, 1) below the chance means that the event had success (exact chance, not rounded to a %)
+        return rand.nextDouble() < eventSuccessChance;
     }
 
 
     /**
      * Mutates a chromosome
      */
-    private static int[] mutateChromosome(
-            int[] originalChromosome,
-            double chanceOfMutatedGene) throws Exception {
-        Random rand = new Random();
-        //Creates an array to store the mutated genes
-        int[] mutatedChromosome = new int[originalChromosome.length];
-
-        //For each gene in the originalChromosome
-        for (int i = 0; i < originalChromosome.length; i++) {
-            int mutatedGene = originalChromosome[i];
-            //If given the chance of gene mutation, it mutates
-            if (GeneticAlgorithmSolution.chanceEventRoulette(chanceOfMutatedGene)) {
-                mutatedGene = GeneticAlgorithmSolution.mutateGene(mutatedGene);
-                //With the mutation done, stores the mutated gene in the mutated chromosome
-                mutatedChromosome[i] = mutatedGene;
-            } else {
-                //If not stores the gene without mutation
-                mutatedChromosome[i] = mutatedGene;
-            }
-        }
+    private static BitSolution mutateChromosome(
+            BitSolution originalChromosome,
+            GeometricSkipSampler geneMutationSampler,
+            RandomGenerator rand) {
+        //Copies the original chromosome
+        BitSolution mutatedChromosome = new BitSolution(originalChromosome);
+
+        //Each gene mutates with the chance of gene mutation (simple gene mutation ... if 0 becomes 1, if 1 becomes 0)
+        //The sampler jumps from a mutated gene to the next one, so only the mutated genes cost a random number
+        geneMutationSampler.flipBits(mutatedChromosome, rand);
         //With all the mutations done, returns the mutated chromosome
         return mutatedChromosome;
     }
 
     /**
-     * Mutates a Solution
+     * Mutates a copy of the chromosome of this Solution (its cost is calculated later by a PopulationEvaluation)
      */
-    private void mutateSolution(double chanceOfGeneMutation) throws Exception {
+    private void mutateSolutionCopy(GeometricSkipSampler geneMutationSampler, RandomGenerator rand) {
         //Mutates the current solution
-        this.chromosome = GeneticAlgorithmSolution.mutateChromosome(this.chromosome, chanceOfGeneMutation);
-        this.calculateTotalCost();
+        this.chromosome = GeneticAlgorithmSolution.mutateChromosome(this.chromosome, geneMutationSampler, rand);
+        this.currentSolutionCost = costNotCalculated;
     }
 
     /**
@@ -345,8 +289,10 @@ public class GeneticAlgorithmSolution implements Comparable<GeneticAlgorithmSolu
             int xPopulationSizeGoal,
             int yNumberOfEliteUnchangedSolutions,
             double chanceOfSolutionMutation,
-            double chanceOfGeneMutation) throws Exception { 
-        Random rand = new Random();
+            double chanceOfGeneMutation,
+            PopulationEvaluation populationEvaluation,
+            RandomGenerator rand) throws Exception {
+        GeometricSkipSampler geneMutationSampler = new GeometricSkipSampler(chanceOfGeneMutation);
         //Creates a list to store the mutated solutions
         List<GeneticAlgorithmSolution> mutatedSolutions = new ArrayList<>();
         //Adds the elites to the mutatedSolutions
@@ -356,8 +302,8 @@ public class GeneticAlgorithmSolution implements Comparable<GeneticAlgorithmSolu
         for (int i = yNumberOfEliteUnchangedSolutions; i < originalSolutionsList.size(); i++) {
             GeneticAlgorithmSolution mutatedSolution = new GeneticAlgorithmSolution(originalSolutionsList.get(i));
             //If given the chanceOfSolutionMutation, it mutates
-            if (GeneticAlgorithmSolution.chanceEventRoulette(chanceOfSolutionMutation))
-                mutatedSolution.mutateSolution(chanceOfGeneMutation);
+            if (GeneticAlgorithmSolution.chanceEventRoulette(chanceOfSolutionMutation, rand))
+                mutatedSolution.mutateSolutionCopy(geneMutationSampler, rand);
             //Adds the non elite solution to the list
             mutatedSolutions.add(mutatedSolution);
         }
@@ -365,9 +311,11 @@ public class GeneticAlgorithmSolution implements Comparable<GeneticAlgorithmSolu
         for (int i = originalSolutionsList.size(); i < xPopulationSizeGoal; i++) {
             //adds new mutated versions
             GeneticAlgorithmSolution mutatedSolution = new GeneticAlgorithmSolution(originalSolutionsList.get(rand.nextInt(originalSolutionsList.size())));
-            mutatedSolution.mutateSolution(chanceOfGeneMutation);
+            mutatedSolution.mutateSolutionCopy(geneMutationSampler, rand);
             mutatedSolutions.add(mutatedSolution);
         }
+        //Calculates the costs of the mutated solutions
+        populationEvaluation.evaluate(mutatedSolutions);
         //Sorts the new list
         mutatedSolutions.sort(Comparator.naturalOrder());
         //Returns the list with the mutated solutions
@@ -376,72 +324,499 @@ public class GeneticAlgorithmSolution implements Comparable<GeneticAlgorithmSolu
 
 
     /**
-     * Runs the evolution, finds and returns the best solution
+     * Runs the evolution for the given scenario, finds and returns the best solution
+     */
+    public static GeneticAlgorithmSolution runEvolution(ProblemScenario problemScenario, boolean showProgressMessages) throws Exception {
+        return GeneticAlgorithmSolution.runEvolution(problemScenario, new TerminationPolicy(), showProgressMessages);
+    }
+
+    /**
+     * Runs the evolution for the given scenario until maxNumberOfGenerations or the termination policy stops it, finds and returns the best solution
+     * An iteration of the policy is a generation, and its evaluations are the bred (not elite) solutions
+     */
+    public static GeneticAlgorithmSolution runEvolution(ProblemScenario problemScenario, TerminationPolicy terminationPolicy, boolean showProgressMessages) throws Exception {
+        return GeneticAlgorithmSolution.runEvolution(problemScenario, new GeneticAlgorithmParameters(), terminationPolicy, showProgressMessages);
+    }
+
+    /**
+     * Runs the evolution with the given parameters (population sizes, elites, mutation chances...) and a new random seed
      */
-    public static GeneticAlgorithmSolution runEvolution(boolean showProgressMessages) throws Exception {
+    public static GeneticAlgorithmSolution runEvolution(ProblemScenario problemScenario, GeneticAlgorithmParameters parameters,
+                                                        TerminationPolicy terminationPolicy, boolean showProgressMessages) throws Exception {
+        return GeneticAlgorithmSolution.runEvolution(problemScenario, parameters, terminationPolicy, new RandomStreams().split(), showProgressMessages);
+    }
+
+    /**
+     * Runs the evolution drawing all its random numbers from the given generator (see RandomStreams)
+     * The same generator state and parameters give the same best solution, unless the time budget stops the run
+     * With evaluationThreads in the parameters, the run calculates the costs of each population in its own pool with that many threads
+     * (only the cost calculations run in the pool, all the random choices stay in the calling thread, so the evolution is the same)
+     */
+    public static GeneticAlgorithmSolution runEvolution(ProblemScenario problemScenario, GeneticAlgorithmParameters parameters,
+                                                        TerminationPolicy terminationPolicy, RandomGenerator rand, boolean showProgressMessages) throws Exception {
+        parameters.validate();
 
         System.out.println("\n#################################");
         System.out.println("### -- The Great Evolution -- ###");
         System.out.println("#################################");
         System.out.println("ScenarioName: " + problemScenario.getName() + "\t" + "OptimalSolution: " + problemScenario.getOptimalSolutionValue());
         System.out.println("NumberOfWarehouses: " + problemScenario.getWarehouseLocations().length + "\t" + "NumberOfCustomers: " + problemScenario.getCustomers().length);
-        System.out.println("MaxGeneration: " + maxNumberOfGenerations + "\t" + "PopulationSize: " + numberOfSolutionsPerGeneration + "\t" + "MaxTime(ms): " + maxRunEvolutionDuration);
+        System.out.println("MaxGeneration: " + parameters.getMaxNumberOfGenerations() + "\t" + "PopulationSize: " + parameters.getNumberOfSolutionsPerGeneration() + "\t" + "MaxTime(ms): " + terminationPolicy.getMaxRunDuration());
+
+        ForkJoinPool evaluationPool = (parameters.getEvaluationThreads() > 0) ? new ForkJoinPool(parameters.getEvaluationThreads()) : null;
+        try {
+            //Breeds the generations in place, in 2 preallocated population buffers
+            if (parameters.isUseDoubleBufferedPopulations())
+                return GeneticAlgorithmSolution.runDoubleBufferedEvolution(problemScenario, parameters, terminationPolicy, evaluationPool, rand, showProgressMessages);
+            return GeneticAlgorithmSolution.runListEvolution(problemScenario, parameters, terminationPolicy, evaluationPool, rand, showProgressMessages);
+        } finally {
+            if (evaluationPool != null)
+                evaluationPool.shutdown();
+        }
+    }
 
+    /**
+     * Runs the evolution with new lists and solutions every generation (evaluationPool = null to calculate the costs sequentially)
+     */
+    private static GeneticAlgorithmSolution runListEvolution(ProblemScenario problemScenario, GeneticAlgorithmParameters parameters,
+                                                             TerminationPolicy terminationPolicy, ForkJoinPool evaluationPool, RandomGenerator rand,
+                                                             boolean showProgressMessages) throws Exception {
+        int maxNumberOfGenerations = parameters.getMaxNumberOfGenerations();
+        int progressInterval = Math.max(1, maxNumberOfGenerations / 40);
 
         //Generates X numberOfRandomSolutions (initial population)
-        List<GeneticAlgorithmSolution> generatedSolutions = GeneticAlgorithmSolution.generateXRandomSolutions(numberOfSolutionsPerGeneration);
+        TerminationPolicy.Tracker terminationTracker = terminationPolicy.start(problemScenario);
+        FitnessCache fitnessCache = GeneticAlgorithmSolution.makeFitnessCache(problemScenario, parameters);
+        PopulationEvaluation populationEvaluation = new PopulationEvaluation(evaluationPool, fitnessCache);
+        List<GeneticAlgorithmSolution> generatedSolutions = GeneticAlgorithmSolution.generateXRandomSolutions(problemScenario, parameters.getNumberOfSolutionsPerGeneration(), populationEvaluation, rand);
+        terminationTracker.countEvaluations(parameters.getNumberOfSolutionsPerGeneration());
 
         //While X, Selects, Mutates and repeat
         int currentGeneration = 0;
-        long startTime = System.currentTimeMillis();
-        long maxDuration = maxRunEvolutionDuration;// 0.5 seconds in milliseconds
+        long startTime = terminationTracker.getStartTime();
 
-        //Stops when you reach max number of solutions, max number of time or u get the optimal solution
+        //Stops when you reach max number of generations or the termination policy stops it (time, evaluations, target gap or stagnation)
         while (currentGeneration < maxNumberOfGenerations
-                && (System.currentTimeMillis() - startTime) <= maxDuration
-                && !(String.format("%.2f", generatedSolutions.get(0).currentSolutionCost)).equals(String.format("%.2f", problemScenario.getOptimalSolutionValue()))
+                && !terminationTracker.shouldStop(generatedSolutions.get(0).currentSolutionCost)
         ) {
             //Selects top solutions
-            generatedSolutions = GeneticAlgorithmSolution.selectionFunctionXBest(generatedSolutions, GeneticAlgorithmSolution.xNumberOfBestSolutionsForSelectionFunction);
+            generatedSolutions = GeneticAlgorithmSolution.selectionFunctionXBest(generatedSolutions, parameters.getXNumberOfBestSolutionsForSelectionFunction());
 
             //Crosses the solutions (not the elites)
             generatedSolutions = GeneticAlgorithmSolution.crossoverFunctionIntoXPopulation(
                     generatedSolutions,
-                    xPopulationSizeGoalForCrossoverFunction,
-                    yNumberOfEliteNonCrossedSolutions);
+                    parameters.getXPopulationSizeGoalForCrossoverFunction(),
+                    parameters.getYNumberOfEliteNonCrossedSolutions(),
+                    parameters.isUseUniformCrossover(),
+                    populationEvaluation,
+                    rand);
 
             //Mutates the solutions (not the elites)
             generatedSolutions = GeneticAlgorithmSolution.mutationFunctionIntoXPopulationChanceBased(
                     generatedSolutions,
-                    xPopulationSizeGoalForMutationFunction,
-                    yNumberOfEliteNonMutatedSolutions,
-                    chanceOfSolutionMutation,
-                    chanceOfGeneMutation);
+                    parameters.getXPopulationSizeGoalForMutationFunction(),
+                    parameters.getYNumberOfEliteNonMutatedSolutions(),
+                    parameters.getChanceOfSolutionMutation(),
+                    parameters.getChanceOfGeneMutation(),
+                    populationEvaluation,
+                    rand);
 
             //Print Progress every few generations
-            if ((currentGeneration % (maxNumberOfGenerations / 40) == 0) && showProgressMessages) {
-                System.out.println("\n#################################");
-                System.out.println("CurrentGeneration: " + currentGeneration + "\t" + "CompilationTime(ms): " + (System.currentTimeMillis() - startTime) + " milliseconds");
-                System.out.println("BestSolution: " + generatedSolutions.get(0));
-                System.out.println("OptimalRatio: " + String.format("%.5f", (problemScenario.getOptimalSolutionValue()/generatedSolutions.get(0).currentSolutionCost)));
-                System.out.println("#################################");
-            }
+            if ((currentGeneration % progressInterval == 0) && showProgressMessages)
+                GeneticAlgorithmSolution.printGenerationProgress(generatedSolutions.get(0), currentGeneration, startTime);
 
             //Increase counters
             currentGeneration++;
+            terminationTracker.countEvaluations(parameters.getNumberOfBredSolutionsPerGeneration());
+            terminationTracker.countIteration(generatedSolutions.get(0).currentSolutionCost);
         }
 
         //returns Best Solution //the solutions all get sorted during the process
         GeneticAlgorithmSolution bestSolution = generatedSolutions.get(0);
+        GeneticAlgorithmSolution.printEvolutionResult(bestSolution, currentGeneration, terminationTracker, fitnessCache);
+        return bestSolution;
+    }
+
+    /**
+     * Runs the evolution in a DoubleBufferedPopulation (the generations don't allocate solutions or chromosomes)
+     * Same selection, crossover and mutation steps (and sizes) as the list based evolution
+     */
+    private static GeneticAlgorithmSolution runDoubleBufferedEvolution(ProblemScenario problemScenario, GeneticAlgorithmParameters parameters,
+                                                                       TerminationPolicy terminationPolicy, ForkJoinPool evaluationPool,
+                                                                       RandomGenerator rand, boolean showProgressMessages) throws Exception {
+        int maxNumberOfGenerations = parameters.getMaxNumberOfGenerations();
+        int progressInterval = Math.max(1, maxNumberOfGenerations / 40);
+
+        //Generates the initial population (one random generator for the whole run)
+        TerminationPolicy.Tracker terminationTracker = terminationPolicy.start(problemScenario);
+        DoubleBufferedPopulation population = new DoubleBufferedPopulation(problemScenario, parameters, evaluationPool, rand);
+        terminationTracker.countEvaluations(parameters.getNumberOfSolutionsPerGeneration());
+
+        int currentGeneration = 0;
+        long startTime = terminationTracker.getStartTime();
+
+        //Stops when you reach max number of generations or the termination policy stops it (time, evaluations, target gap or stagnation)
+        while (currentGeneration < maxNumberOfGenerations
+                && !terminationTracker.shouldStop(population.getBestSolution().currentSolutionCost)
+        ) {
+            //Selects, crosses and mutates
+            population.evolveGeneration();
+
+            //Print Progress every few generations
+            if ((currentGeneration % progressInterval == 0) && showProgressMessages)
+                GeneticAlgorithmSolution.printGenerationProgress(population.getBestSolution(), currentGeneration, startTime);
+
+            //Increase counters
+            currentGeneration++;
+            terminationTracker.countEvaluations(parameters.getNumberOfBredSolutionsPerGeneration());
+            terminationTracker.countIteration(population.getBestSolution().currentSolutionCost);
+        }
+
+        //returns a copy of the Best Solution (the buffers are dropped)
+        GeneticAlgorithmSolution bestSolution = new GeneticAlgorithmSolution(population.getBestSolution());
+        GeneticAlgorithmSolution.printEvolutionResult(bestSolution, currentGeneration, terminationTracker, population.getFitnessCache());
+        return bestSolution;
+    }
+
+    /**
+     * Population evolved in 2 preallocated buffers (front = current population, back = the one being bred)
+     * Each step breeds from the front buffer into the back buffer (copying and crossing/mutating the chromosomes in place) and swaps them,
+     * so after the buffers are made the generations don't allocate solutions or chromosomes (only the sort may allocate a small merge buffer)
+     * Calculates the costs in the given pool (if there is one), with a FitnessCache if the parameters have a fitnessCacheSize
+     */
+    public static class DoubleBufferedPopulation {
+        private final GeneticAlgorithmParameters parameters;
+        private final RandomGenerator rand;
+        private final GeometricSkipSampler geneMutationSampler;
+        private final PopulationEvaluation populationEvaluation;
+        private GeneticAlgorithmSolution[] frontPopulation;
+        private GeneticAlgorithmSolution[] backPopulation;
+        private int frontPopulationSize;
+
+        /**
+         * Makes the buffers and a random initial population with the default parameters
+         */
+        public DoubleBufferedPopulation(ProblemScenario problemScenario, RandomGenerator rand) {
+            this(problemScenario, new GeneticAlgorithmParameters(), rand);
+        }
+
+        /**
+         * Makes the buffers and a random initial population with the sizes of the given parameters, calculating the costs sequentially
+         */
+        public DoubleBufferedPopulation(ProblemScenario problemScenario, GeneticAlgorithmParameters parameters, RandomGenerator rand) {
+            this(problemScenario, parameters, null, rand);
+        }
+
+        /**
+         * Makes the buffers and a random initial population (sorted, with its costs calculated), with the sizes of the given parameters
+         * The costs of the populations are calculated in the given pool (null to calculate them sequentially), the pool is not shut down
+         */
+        public DoubleBufferedPopulation(ProblemScenario problemScenario, GeneticAlgorithmParameters parameters, ForkJoinPool evaluationPool,
+                                        RandomGenerator rand) {
+            this.parameters = new GeneticAlgorithmParameters(parameters);
+            this.rand = rand;
+            this.geneMutationSampler = new GeometricSkipSampler(parameters.getChanceOfGeneMutation());
+            this.populationEvaluation = new PopulationEvaluation(evaluationPool, GeneticAlgorithmSolution.makeFitnessCache(problemScenario, parameters));
+
+            //Preallocates the 2 buffers, big enough for the biggest population of a generation
+            int bufferSize = Math.max(parameters.getNumberOfSolutionsPerGeneration(),
+                    Math.max(parameters.getXPopulationSizeGoalForCrossoverFunction(), parameters.getXPopulationSizeGoalForMutationFunction()));
+            this.frontPopulation = GeneticAlgorithmSolution.generatePopulationBuffer(problemScenario, bufferSize);
+            this.backPopulation = GeneticAlgorithmSolution.generatePopulationBuffer(problemScenario, bufferSize);
+
+            //Generates the initial population with random chromosomes
+            this.frontPopulationSize = parameters.getNumberOfSolutionsPerGeneration();
+            for (int i = 0; i < frontPopulationSize; i++) {
+                frontPopulation[i].chromosome.randomize(rand);
+                frontPopulation[i].currentSolutionCost = costNotCalculated;
+            }
+            populationEvaluation.evaluate(frontPopulation, frontPopulationSize);
+            Arrays.sort(frontPopulation, 0, frontPopulationSize);
+        }
+
+        /**
+         * Cache of the costs of the population (null if it doesn't use one), with its hit rate
+         */
+        public FitnessCache getFitnessCache() {
+            return populationEvaluation.fitnessCache;
+        }
+
+        /**
+         * Best solution of the current population
+         * The solution is owned by the population and gets overwritten by the next generation (copy it to keep it)
+         */
+        public GeneticAlgorithmSolution getBestSolution() {
+            return frontPopulation[0];
+        }
+
+        /**
+         * The solutions of the current population (best first), in a new array
+         * The solutions are owned by the population and get overwritten by the next generation
+         */
+        GeneticAlgorithmSolution[] getPopulation() {
+            return Arrays.copyOf(frontPopulation, frontPopulationSize);
+        }
+
+        /**
+         * Selects, crosses and mutates the current population into the next generation
+         */
+        public void evolveGeneration() throws Exception {
+            //Selects top solutions (the front buffer is sorted, so they are the X first ones)
+            int selectedPopulationSize = parameters.getXNumberOfBestSolutionsForSelectionFunction();
+
+            //Crosses the solutions (not the elites) into the back buffer and swaps the buffers
+            GeneticAlgorithmSolution.crossoverIntoPopulationBuffer(
+                    frontPopulation, selectedPopulationSize,
+                    backPopulation, parameters.getXPopulationSizeGoalForCrossoverFunction(),
+                    parameters.getYNumberOfEliteNonCrossedSolutions(),
+                    parameters.isUseUniformCrossover(),
+                    rand);
+            this.sortBackPopulationAndSwap(parameters.getXPopulationSizeGoalForCrossoverFunction());
+
+            //Mutates the solutions (not the elites) into the back buffer and swaps the buffers
+            GeneticAlgorithmSolution.mutationIntoPopulationBufferChanceBased(
+                    frontPopulation, frontPopulationSize,
+                    backPopulation, parameters.getXPopulationSizeGoalForMutationFunction(),
+                    parameters.getYNumberOfEliteNonMutatedSolutions(),
+                    parameters.getChanceOfSolutionMutation(),
+                    geneMutationSampler,
+                    rand);
+            this.sortBackPopulationAndSwap(parameters.getXPopulationSizeGoalForMutationFunction());
+        }
+
+        /**
+         * Calculates the costs of the bred back population, sorts it and makes it the front one
+         */
+        private void sortBackPopulationAndSwap(int backPopulationSize) {
+            populationEvaluation.evaluate(backPopulation, backPopulationSize);
+            Arrays.sort(backPopulation, 0, backPopulationSize);
+            GeneticAlgorithmSolution[] swapPopulation = frontPopulation;
+            frontPopulation = backPopulation;
+            backPopulation = swapPopulation;
+            frontPopulationSize = backPopulationSize;
+        }
+    }
+
+    /**
+     * Generates a population buffer with X solutions, each with its own chromosome, to be overwritten by the generations
+     */
+    private static GeneticAlgorithmSolution[] generatePopulationBuffer(ProblemScenario problemScenario, int bufferSize) {
+        GeneticAlgorithmSolution[] populationBuffer = new GeneticAlgorithmSolution[bufferSize];
+        for (int i = 0; i < bufferSize; i++)
+            populationBuffer[i] = new GeneticAlgorithmSolution(problemScenario, new BitSolution(problemScenario.getNumberOfWarehouseLocations()), costNotCalculated);
+        return populationBuffer;
+    }
+
+    /**
+     * Makes this solution equal to the given one (chromosome and cost), without allocating
+     */
+    private void copyFrom(GeneticAlgorithmSolution geneticAlgorithmSolutionToCopy) {
+        this.chromosome.copyFrom(geneticAlgorithmSolutionToCopy.chromosome);
+        this.currentSolutionCost = geneticAlgorithmSolutionToCopy.currentSolutionCost;
+    }
+
+    /**
+     * Crosses 2 solutions into 2 existing solutions (their chromosomes are overwritten, their costs are calculated later by a PopulationEvaluation)
+     */
+    private static void crossoverInto(
+            GeneticAlgorithmSolution initial2SolutionFirst,
+            GeneticAlgorithmSolution initial2SolutionSecond,
+            GeneticAlgorithmSolution crossedSolutionFirst,
+            GeneticAlgorithmSolution crossedSolutionSecond,
+            boolean useUniformCrossover,
+            RandomGenerator rand) {
+        BitSolution initialChromosome1 = initial2SolutionFirst.chromosome;
+        BitSolution initialChromosome2 = initial2SolutionSecond.chromosome;
+        if (useUniformCrossover) {
+            BitSolution.uniformCrossover(initialChromosome1, initialChromosome2, rand, crossedSolutionFirst.chromosome, crossedSolutionSecond.chromosome);
+        } else {
+            //Get the random part where u will part them (from position 1 to the one before the last)
+            int randomPartPosition = rand.nextInt(1, initialChromosome1.length() - 1);
+            BitSolution.singlePointCrossover(initialChromosome1, initialChromosome2, randomPartPosition, crossedSolutionFirst.chromosome, crossedSolutionSecond.chromosome);
+        }
+        crossedSolutionFirst.currentSolutionCost = costNotCalculated;
+        crossedSolutionSecond.currentSolutionCost = costNotCalculated;
+    }
+
+    /**
+     * Crosses the first X solutions of a sorted population buffer into a total of Y solutions in another buffer
+     * Elites are the Z number of solutions that we copy unchanged (same pairs and random parents as crossoverFunctionIntoXPopulation)
+     * Every one of the Y solutions is written: when the pairs leave a solution out, it is a copy of a parent
+     */
+    private static void crossoverIntoPopulationBuffer(
+            GeneticAlgorithmSolution[] originalPopulation,
+            int originalPopulationSize,
+            GeneticAlgorithmSolution[] crossedPopulation,
+            int xPopulationSizeGoal,
+            int yNumberOfEliteUnchangedSolutions,
+            boolean useUniformCrossover,
+            RandomGenerator rand) {
+        //Copies the elites
+        for (int i = 0; i < yNumberOfEliteUnchangedSolutions; i++)
+            crossedPopulation[i].copyFrom(originalPopulation[i]);
+        //For each 2 non elite solution, crosses them into the same positions
+        int i = yNumberOfEliteUnchangedSolutions;
+        for (; i + 1 < originalPopulationSize; i += 2)
+            GeneticAlgorithmSolution.crossoverInto(originalPopulation[i], originalPopulation[i + 1], crossedPopulation[i], crossedPopulation[i + 1], useUniformCrossover, rand);
+        //If a non elite solution is left without a pair, it is kept unchanged
+        if (i < originalPopulationSize)
+            crossedPopulation[i].copyFrom(originalPopulation[i]);
+        //While number of solutions is below the population goal, adds new crossed versions of random (non best) parents
+        for (i = originalPopulationSize; i + 1 < xPopulationSizeGoal; i += 2) {
+            GeneticAlgorithmSolution.crossoverInto(
+                    originalPopulation[rand.nextInt(1, originalPopulationSize)],
+                    originalPopulation[rand.nextInt(1, originalPopulationSize)],
+                    crossedPopulation[i], crossedPopulation[i + 1], useUniformCrossover, rand);
+        }
+        //If a single solution is missing, it is a copy of a random (non best) parent
+        if (i < xPopulationSizeGoal)
+            crossedPopulation[i].copyFrom(originalPopulation[rand.nextInt(1, originalPopulationSize)]);
+    }
+
+    /**
+     * Mutates the chromosome of this solution in place (its cost is calculated later by a PopulationEvaluation, if a gene changed)
+     */
+    private void mutateSolution(GeometricSkipSampler geneMutationSampler, RandomGenerator rand) {
+        //Each gene mutates with the chance of gene mutation (the sampler only draws a random number per mutated gene)
+        if (geneMutationSampler.flipBits(chromosome, rand) > 0)
+            this.currentSolutionCost = costNotCalculated;
+    }
+
+    /**
+     * Mutates a sorted population buffer into a total of X solutions in another buffer, on a chance base except for Y number of elites
+     * (same steps as mutationFunctionIntoXPopulationChanceBased)
+     */
+    private static void mutationIntoPopulationBufferChanceBased(
+            GeneticAlgorithmSolution[] originalPopulation,
+            int originalPopulationSize,
+            GeneticAlgorithmSolution[] mutatedPopulation,
+            int xPopulationSizeGoal,
+            int yNumberOfEliteUnchangedSolutions,
+            double chanceOfSolutionMutation,
+            GeometricSkipSampler geneMutationSampler,
+            RandomGenerator rand) throws Exception {
+        //Copies the elites
+        for (int i = 0; i < yNumberOfEliteUnchangedSolutions; i++)
+            mutatedPopulation[i].copyFrom(originalPopulation[i]);
+        //For each non elite solution, copies it and if given the chanceOfSolutionMutation, it mutates
+        for (int i = yNumberOfEliteUnchangedSolutions; i < originalPopulationSize; i++) {
+            mutatedPopulation[i].copyFrom(originalPopulation[i]);
+            if (GeneticAlgorithmSolution.chanceEventRoulette(chanceOfSolutionMutation, rand))
+                mutatedPopulation[i].mutateSolution(geneMutationSampler, rand);
+        }
+        //While number of solutions is below the population goal, adds new mutated versions
+        for (int i = originalPopulationSize; i < xPopulationSizeGoal; i++) {
+            mutatedPopulation[i].copyFrom(originalPopulation[rand.nextInt(originalPopulationSize)]);
+            mutatedPopulation[i].mutateSolution(geneMutationSampler, rand);
+        }
+    }
+
+    private static void printGenerationProgress(GeneticAlgorithmSolution bestSolution, int currentGeneration, long startTime) {
+        System.out.println("\n#################################");
+        System.out.println("CurrentGeneration: " + currentGeneration + "\t" + "CompilationTime(ms): " + (System.currentTimeMillis() - startTime) + " milliseconds");
+        System.out.println("BestSolution: " + bestSolution);
+        System.out.println("OptimalRatio: " + String.format("%.5f", (bestSolution.problemScenario.getOptimalSolutionValue() / bestSolution.currentSolutionCost)));
         System.out.println("#################################");
-        System.out.println("CurrentGeneration: " + (currentGeneration - 1) + "\t" + "CompilationTime(ms): " + (System.currentTimeMillis() - startTime) + " milliseconds");
+    }
+
+    private static void printEvolutionResult(GeneticAlgorithmSolution bestSolution, int currentGeneration, TerminationPolicy.Tracker terminationTracker,
+                                             FitnessCache fitnessCache) {
+        System.out.println("#################################");
+        System.out.println("CurrentGeneration: " + (currentGeneration - 1) + "\t" + "CompilationTime(ms): " + terminationTracker.getElapsedTime() + " milliseconds" + "\t" + "StopReason: " + terminationTracker.getStopReason());
+        if (fitnessCache != null)
+            System.out.println("FitnessCacheHits: " + fitnessCache.getHitsCounter() + "\t" + "CalculatedCosts: " + fitnessCache.getMissesCounter() + "\t" + "HitRate: " + String.format("%.5f", fitnessCache.getHitRate()) + "\t" + "Evictions: " + fitnessCache.getEvictionsCounter());
         System.out.println("BestSolution: " + bestSolution.toString());
-        System.out.println("OptimalRatio: " + String.format("%.5f", (problemScenario.getOptimalSolutionValue()/bestSolution.currentSolutionCost)));
+        System.out.println("OptimalRatio: " + String.format("%.5f", (bestSolution.problemScenario.getOptimalSolutionValue() / bestSolution.currentSolutionCost)));
+        if (bestSolution.problemScenario.getOptimalSolutionValue() < 0)
+            System.out.println("LowerBoundGap: " + String.format("%.5f", bestSolution.problemScenario.calculateLowerBoundGap(bestSolution.currentSolutionCost) * 100) + "%");
         //Sometimes u might get a very small decimal case of difference ... so lets round it up
-        if ((String.format("%.2f", bestSolution.currentSolutionCost)).equals(String.format("%.2f", problemScenario.getOptimalSolutionValue())))
+        if (bestSolution.problemScenario.isOptimalSolutionCost(bestSolution.currentSolutionCost))
             System.out.println("U GOT THE OPTIMAL SOLUTION!");
         System.out.println("#################################");
-        return bestSolution;
+    }
+
+    /**
+     * Reusable cost calculation of the solutions of a population that are still waiting for it (costNotCalculated),
+     * with the fitnessCache of the run if there is one (it is thread safe)
+     * With a pool: one task per pool thread, each with a slice of the population
+     * (each cost calculation only reads the scenario), without a pool: in the calling thread
+     * The tasks are made once and reinitialized every time, so the generations don't allocate new tasks
+     */
+    private static class PopulationEvaluation extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final ForkJoinPool pool; //null = sequentially
+        private final FitnessCache fitnessCache; //null = no cache
+        private final PopulationSliceEvaluation[] sliceEvaluations;
+
+        private PopulationEvaluation(ForkJoinPool pool, FitnessCache fitnessCache) {
+            int numberOfSlices = (pool == null) ? 0 : pool.getParallelism();
+            this.pool = pool;
+            this.fitnessCache = fitnessCache;
+            this.sliceEvaluations = new PopulationSliceEvaluation[numberOfSlices];
+            for (int k = 0; k < numberOfSlices; k++)
+                this.sliceEvaluations[k] = new PopulationSliceEvaluation(fitnessCache);
+        }
+
+        /**
+         * Calculates the costs of the solutions of a list
+         */
+        private void evaluate(List<GeneticAlgorithmSolution> solutionsList) {
+            GeneticAlgorithmSolution[] population = solutionsList.toArray(new GeneticAlgorithmSolution[0]);
+            this.evaluate(population, population.length);
+        }
+
+        /**
+         * Calculates the costs of the first populationSize solutions of a population buffer
+         */
+        private void evaluate(GeneticAlgorithmSolution[] population, int populationSize) {
+            if (pool == null) {
+                for (int i = 0; i < populationSize; i++) {
+                    if (Double.isNaN(population[i].currentSolutionCost))
+                        population[i].calculateTotalCost(fitnessCache);
+                }
+                return;
+            }
+            //Splits the first populationSize solutions between the slices
+            for (int k = 0; k < sliceEvaluations.length; k++) {
+                PopulationSliceEvaluation sliceEvaluation = sliceEvaluations[k];
+                sliceEvaluation.reinitialize();
+                sliceEvaluation.population = population;
+                sliceEvaluation.fromIndex = (int) ((long) populationSize * k / sliceEvaluations.length);
+                sliceEvaluation.toIndex = (int) ((long) populationSize * (k + 1) / sliceEvaluations.length);
+            }
+            this.reinitialize();
+            pool.invoke(this);
+        }
+
+        @Override
+        protected void compute() {
+            ForkJoinTask.invokeAll(sliceEvaluations);
+        }
+    }
+
+    /**
+     * Cost calculation of the solutions [fromIndex, toIndex) of a population buffer that are still waiting for it
+     */
+    private static class PopulationSliceEvaluation extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final FitnessCache fitnessCache; //shared by the slices (null = no cache)
+        private GeneticAlgorithmSolution[] population;
+        private int fromIndex;
+        private int toIndex;
+
+        private PopulationSliceEvaluation(FitnessCache fitnessCache) {
+            this.fitnessCache = fitnessCache;
+        }
+
+        @Override
+        protected void compute() {
+            for (int i = fromIndex; i < toIndex; i++) {
+                if (Double.isNaN(population[i].currentSolutionCost))
+                    population[i].calculateTotalCost(fitnessCache);
+            }
+        }
     }
 
     @Override
@@ -460,7 +835,7 @@ public class GeneticAlgorithmSolution implements Comparable<GeneticAlgorithmSolu
     public String toString() {
         return "GeneticAlgorithmSolution{" +
                 "currentSolutionCost=" + String.format("%.3f", currentSolutionCost) +
-                ", chromosome=" + Arrays.toString(chromosome) +
+                ", chromosome=" + chromosome +
                 '}';
     }
 }
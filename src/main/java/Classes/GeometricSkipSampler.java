@@ -0,0 +1,89 @@
+package Classes;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Samples which positions of a row of independent events with the same chance succeed (the genes of a chromosome that mutate,
+ * the warehouses of a state that change...) without drawing a number per position:
+ * the number of failures before the next success follows a geometric distribution, so it is drawn directly
+ * (floor(log(U) / log(1 - chance)), U uniform in (0, 1]) and the positions in between are skipped
+ * The cost is one draw per success instead of one per position, and the chance is exact (not rounded to a percentage)
+ * Above maximumSkipChance most positions succeed and a logarithm costs more than the draws it saves,
+ * so it draws a number per position instead (same distribution)
+ * Immutable, it can be shared by threads that have their own random generators
+ */
+public class GeometricSkipSampler {
+
+    private final static double maximumSkipChance = 0.25; //measured on 500 positions, the skips are slower above it
+
+    private final double chance;
+    private final boolean useSkips;
+    private final double inverseLogOfFailureChance; //1 / log(1 - chance), only used with skips
+
+    public GeometricSkipSampler(double chance) {
+        if (!(chance >= 0 && chance <= 1))
+            throw new IllegalArgumentException("The chance must be between 0 and 1: " + chance);
+        this.chance = chance;
+        this.useSkips = chance > 0 && chance <= maximumSkipChance;
+        this.inverseLogOfFailureChance = useSkips ? 1 / Math.log1p(-chance) : 0;
+    }
+
+    public double getChance() {
+        return chance;
+    }
+
+    /**
+     * The first position after the given one that succeeds, or length if there is none
+     * (start with position -1, so the first position can succeed)
+     */
+    public int nextPosition(int position, int length, RandomGenerator rand) {
+        if (chance == 0)
+            return length;
+        if (chance == 1)
+            return Math.min(position + 1, length);
+        if (!useSkips) {
+            //A draw per position until one succeeds
+            int nextPosition = position + 1;
+            while (nextPosition < length && rand.nextDouble() >= chance)
+                nextPosition++;
+            return nextPosition;
+        }
+        //Failures before the next success (U = 1 - nextDouble is never 0, so the log is finite)
+        double numberOfSkippedPositions = Math.floor(Math.log(1 - rand.nextDouble()) * inverseLogOfFailureChance);
+        int numberOfRemainingPositions = length - position - 1;
+        if (numberOfSkippedPositions >= numberOfRemainingPositions)
+            return length;
+        return position + 1 + (int) numberOfSkippedPositions;
+    }
+
+    /**
+     * Stores the positions (from 0 to length - 1) that succeed in increasing order and returns how many there are
+     * positions must have room for length positions
+     */
+    public int samplePositions(int length, int[] positions, RandomGenerator rand) {
+        int numberOfPositions = 0;
+        for (int i = this.nextPosition(-1, length, rand); i < length; i = this.nextPosition(i, length, rand))
+            positions[numberOfPositions++] = i;
+        return numberOfPositions;
+    }
+
+    /**
+     * Flips each bit of the solution with the chance, returns how many were flipped
+     */
+    public int flipBits(BitSolution solution, RandomGenerator rand) {
+        int length = solution.length();
+        int numberOfFlippedBits = 0;
+        for (int i = this.nextPosition(-1, length, rand); i < length; i = this.nextPosition(i, length, rand)) {
+            solution.flip(i);
+            numberOfFlippedBits++;
+        }
+        return numberOfFlippedBits;
+    }
+
+    @Override
+    public String toString() {
+        return "GeometricSkipSampler{" +
+                "chance=" + chance +
+                '}';
+    }
+}
@@ -1,105 +1,208 @@
 package Classes;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
-import java.util.Map;
-
 public class GreedyAlgorithmSolution {
 
 
-    private static ProblemScenario problemScenario = null;
-    private final static long maxRunDuration = 50000; //milliseconds
+    private final static boolean useLazyGreedy = true; //false = try every closed warehouse on each pass
 
-    private int[] currentSolutionArray;
+    private final ProblemScenario problemScenario;
+    private BitSolution currentSolution;
     private double currentSolutionCost;
 
     //Makes an instance with a given initial solution
-    public GreedyAlgorithmSolution(int[] initialSolution) {
-        this.currentSolutionArray = GreedyAlgorithmSolution.generateSolutionArrayDeepCopy(initialSolution);
+    public GreedyAlgorithmSolution(ProblemScenario problemScenario, int[] initialSolution) {
+        this(problemScenario, BitSolution.fromSolutionArray(initialSolution));
+    }
+
+    //Makes an instance with a given initial solution (deep copy)
+    public GreedyAlgorithmSolution(ProblemScenario problemScenario, BitSolution initialSolution) {
+        this.problemScenario = problemScenario;
+        this.currentSolution = new BitSolution(initialSolution);
         this.calculateTotalCost();
     }
 
     //Makes a deep copy of the given solution
     public GreedyAlgorithmSolution(GreedyAlgorithmSolution greedyAlgorithmSolutionToDeepCopy) {
-        this.currentSolutionArray = GreedyAlgorithmSolution.generateSolutionArrayDeepCopy(greedyAlgorithmSolutionToDeepCopy.getCurrentSolutionArray());
+        this.problemScenario = greedyAlgorithmSolutionToDeepCopy.getProblemScenario();
+        this.currentSolution = new BitSolution(greedyAlgorithmSolutionToDeepCopy.getCurrentSolution());
         this.currentSolutionCost = greedyAlgorithmSolutionToDeepCopy.getCurrentSolutionCost();
     }
 
-    /**
-     * Generates and returns a deep copy of the provided solution array
-     */
-    private static int[] generateSolutionArrayDeepCopy(int[] originalSolutionArray) {
-        //Make deep copy of the stateArray
-        int[] stateArrayDeepCopy = new int[originalSolutionArray.length];
-        for (int i = 0; i < originalSolutionArray.length; i++) {
-            stateArrayDeepCopy[i] = originalSolutionArray[i];
-        }
-        return stateArrayDeepCopy;
-    }
-
     public double getCurrentSolutionCost() {
         return currentSolutionCost;
     }
 
+    public BitSolution getCurrentSolution() {
+        return currentSolution;
+    }
+
+    /**
+     * Returns the current solution as a new solution array (1 = warehouse open, 0 = warehouse closed)
+     */
     public int[] getCurrentSolutionArray() {
-        return currentSolutionArray;
+        return currentSolution.toSolutionArray();
     }
 
-    //Sets the problem scenario ... needs to be set BEFORE the constructor
-    public static void setProblemScenario(ProblemScenario problemScenario) {
-        GreedyAlgorithmSolution.problemScenario = problemScenario;
+    public ProblemScenario getProblemScenario() {
+        return problemScenario;
     }
 
     /**
      * Calculate the total cost value of the current solution
      */
     private void calculateTotalCost() {
-        double totalCost = 0;
-        //For each warehouse with 1 value in the chromosome, add the fixed cost
-        //For each chromosome
-        for (int i = 0; i < this.currentSolutionArray.length; i++) {
-            //if the chromosome is 1 (warehouse is open)
-            if (this.currentSolutionArray[i] == 1) {
-                //Add the fixed cost of the warehouse to the total cost
-                totalCost += this.problemScenario.getWarehouseLocations()[i].getFixedCost();
-                //System.out.println("i: " + i + " cost: " + this.problemScenario.getWarehouseLocations()[i].getFixedCost());
+        //Fixed costs of the open warehouses plus the cheapest open warehouse of each customer (from the scenario cost arrays)
+        this.currentSolutionCost = problemScenario.calculateTotalCost(this.currentSolution);
+    }
+
+
+    /**
+     * One greedy sweep: returns the closed warehouse that lowers the cost of the evaluator solution the most when opened
+     * (-1 if opening any of them makes it worse)
+     */
+    public static int findBestWarehouseToOpen(UflpEvaluator evaluator) {
+        //Store the best improvement (warehouse to open and the resulting cost)
+        int bestWarehouseToOpen = -1;
+        double newBestSolutionCost = evaluator.getCurrentSolutionCost();
+
+        //For each closed position in the array (each closed warehouse)
+        BitSolution currentSolution = evaluator.getCurrentSolution();
+        for (int i = 0; i < currentSolution.length(); i++) {
+            if (currentSolution.isOpen(i))
+                continue;
+            //Get the cost of the solution with that warehouse open
+            double newSolutionCost = evaluator.getCostAfterFlip(i);
+
+            //Now, check if the cost of the new solution is lower than the current new best solution
+            if (newSolutionCost < newBestSolutionCost) {
+                //If so, make it the new best one
+                bestWarehouseToOpen = i;
+                newBestSolutionCost = newSolutionCost;
             }
         }
-        //System.out.println("TotalFixedCost: " + totalCost);
-        //For each customer, add the costOfAllocation of the nearest opened warehouse
-        //For each customer
-        for (int i = 0; i < this.problemScenario.getCustomers().length; i++) {
-            //Get the cost of allocations
-            Map<Integer, Double> costOfAllocation = this.problemScenario.getCustomers()[i].getCostOfAllocation();
-            // Create a list of the map entries
-            List<Map.Entry<Integer, Double>> entries = new ArrayList<>(costOfAllocation.entrySet());
-
-            // Sort the list by values
-            entries.sort(Map.Entry.comparingByValue());
-
-            // Iterate over the sorted entries
-            for (Map.Entry<Integer, Double> entry : entries) {
-                //Logger.WriteMessage("Key: " + entry.getKey() + ", Value: " + entry.getValue());
-                // Until we find the first opened warehouse
-                if (this.currentSolutionArray[entry.getKey()] == 1) {
-                    //If so ... Add the value to the total cost and break the loop
-                    totalCost += entry.getValue();
+        return bestWarehouseToOpen;
+    }
+
+    /**
+     * Lazy greedy (ADD heuristic): gives the same warehouses as findBestWarehouseToOpen, one after the other, for a solution that only gets openings
+     * When a warehouse opens the customers can only get cheaper, so the savings of opening any other warehouse can only shrink:
+     * the savings stored in a max heap are upper bounds, and only the warehouse on top is recalculated until it stays on top
+     * (ties go to the lowest warehouse i, like findBestWarehouseToOpen)
+     * The returned warehouse must be opened in the evaluator before the next call
+     */
+    private static class LazyWarehouseQueue {
+        private final UflpEvaluator evaluator;
+        private final int[] heapWarehouses; // heap of warehouses i, best savings on top
+        private final double[] heapSavings; // savings of the warehouse in the same heap position (upper bound)
+        private int heapSize = -1; // -1 = not built yet
+
+        private LazyWarehouseQueue(UflpEvaluator evaluator) {
+            this.evaluator = evaluator;
+            int numberOfWarehouseLocations = evaluator.getCurrentSolution().length();
+            this.heapWarehouses = new int[numberOfWarehouseLocations];
+            this.heapSavings = new double[numberOfWarehouseLocations];
+        }
+
+        /**
+         * Returns the closed warehouse that lowers the cost the most when opened (-1 if opening any of them makes it worse)
+         */
+        private int findBestWarehouseToOpen() {
+            //With all the warehouses closed there are no savings yet (the cost is infinite), try them all
+            if (evaluator.getNumberOfOpenWarehouses() == 0)
+                return GreedyAlgorithmSolution.findBestWarehouseToOpen(evaluator);
+            //The first time, calculate the savings of every closed warehouse
+            if (heapSize == -1)
+                buildHeap();
+
+            while (heapSize > 0) {
+                //Take the top warehouse and recalculate its savings
+                int warehouseLocationI = heapWarehouses[0];
+                removeTop();
+                if (evaluator.getCurrentSolution().isOpen(warehouseLocationI))
+                    continue;
+                double savings = -evaluator.getFlipCostDelta(warehouseLocationI);
+                //If it is still better than the upper bound of every other one, it is the best one
+                if (heapSize == 0 || isBetter(savings, warehouseLocationI, heapSavings[0], heapWarehouses[0]))
+                    return (savings > 0) ? warehouseLocationI : -1;
+                //Otherwise put it back with its new savings
+                insert(warehouseLocationI, savings);
+            }
+            return -1;
+        }
+
+        private void buildHeap() {
+            heapSize = 0;
+            BitSolution currentSolution = evaluator.getCurrentSolution();
+            for (int i = 0; i < currentSolution.length(); i++) {
+                if (!currentSolution.isOpen(i))
+                    insert(i, -evaluator.getFlipCostDelta(i));
+            }
+        }
+
+        /**
+         * Bigger savings first, then lower warehouse i first
+         */
+        private static boolean isBetter(double savings, int warehouseLocationI, double otherSavings, int otherWarehouseLocationI) {
+            return savings > otherSavings || (savings == otherSavings && warehouseLocationI < otherWarehouseLocationI);
+        }
+
+        private void insert(int warehouseLocationI, double savings) {
+            //Sift up from the new last position
+            int position = heapSize++;
+            while (position > 0) {
+                int parent = (position - 1) >>> 1;
+                if (!isBetter(savings, warehouseLocationI, heapSavings[parent], heapWarehouses[parent]))
                     break;
-                }
+                heapWarehouses[position] = heapWarehouses[parent];
+                heapSavings[position] = heapSavings[parent];
+                position = parent;
             }
+            heapWarehouses[position] = warehouseLocationI;
+            heapSavings[position] = savings;
         }
-        //If all the warehouses are closed (the cost is 0.0, then make the cost a very large number)
-        if (totalCost == 0) {
-            totalCost = Double.POSITIVE_INFINITY;
+
+        private void removeTop() {
+            //Sift down the last one from the top
+            heapSize--;
+            int warehouseLocationI = heapWarehouses[heapSize];
+            double savings = heapSavings[heapSize];
+            int position = 0;
+            while (true) {
+                int child = 2 * position + 1;
+                if (child >= heapSize)
+                    break;
+                if (child + 1 < heapSize && isBetter(heapSavings[child + 1], heapWarehouses[child + 1], heapSavings[child], heapWarehouses[child]))
+                    child++;
+                if (!isBetter(heapSavings[child], heapWarehouses[child], savings, warehouseLocationI))
+                    break;
+                heapWarehouses[position] = heapWarehouses[child];
+                heapSavings[position] = heapSavings[child];
+                position = child;
+            }
+            heapWarehouses[position] = warehouseLocationI;
+            heapSavings[position] = savings;
         }
+    }
 
-        //All done ... set the new cost for the current solution
-        this.currentSolutionCost = totalCost;
+    /**
+     * Opens, one by one, the warehouse that lowers the cost of the evaluator solution the most, until none of them does (no messages, no time limit)
+     * Starting with all the warehouses closed this is the greedy algorithm
+     */
+    public static void openBestWarehouses(UflpEvaluator evaluator) {
+        LazyWarehouseQueue lazyWarehouseQueue = new LazyWarehouseQueue(evaluator);
+        int bestWarehouseToOpen;
+        while ((bestWarehouseToOpen = lazyWarehouseQueue.findBestWarehouseToOpen()) != -1)
+            evaluator.openWarehouse(bestWarehouseToOpen);
     }
 
+    public static GreedyAlgorithmSolution run(ProblemScenario problemScenario, boolean showProgressMessages) {
+        return GreedyAlgorithmSolution.run(problemScenario, new TerminationPolicy(), showProgressMessages);
+    }
 
-    public static GreedyAlgorithmSolution run(boolean showProgressMessages) {
+    /**
+     * Opens the best warehouse until no warehouse lowers the cost or the termination policy stops the run
+     */
+    public static GreedyAlgorithmSolution run(ProblemScenario problemScenario, TerminationPolicy terminationPolicy, boolean showProgressMessages) {
 
         System.out.println("\n#################################");
         System.out.println("### ---- The Greedy One  ---- ###");
@@ -109,43 +212,29 @@ public class GreedyAlgorithmSolution {
         System.out.println("#################################");
 
         //Save starting time
-        long startTime = System.currentTimeMillis();
+        TerminationPolicy.Tracker terminationTracker = terminationPolicy.start(problemScenario);
+        long startTime = terminationTracker.getStartTime();
 
-        //Initialize solution with all warehouses closed (default int is 0)
-        GreedyAlgorithmSolution bestSolution = new GreedyAlgorithmSolution(new int[problemScenario.getWarehouseLocations().length]);
+        //Initialize solution with all warehouses closed
+        GreedyAlgorithmSolution bestSolution = new GreedyAlgorithmSolution(problemScenario, new BitSolution(problemScenario.getWarehouseLocations().length));
+        //The evaluator holds the best solution and knows the cost of opening each warehouse without recalculating everything
+        UflpEvaluator evaluator = new UflpEvaluator(problemScenario);
+        //The lazy queue only recalculates the savings of the warehouses that may be the best one
+        LazyWarehouseQueue lazyWarehouseQueue = useLazyGreedy ? new LazyWarehouseQueue(evaluator) : null;
 
         int iterationCounter = 0;
-        int improvementCounter;
-
-        //Do while bestSolution != optimal one
-        while ((System.currentTimeMillis() - startTime) <= maxRunDuration
-                && !(String.format("%.2f", bestSolution.getCurrentSolutionCost())).equals(String.format("%.2f", problemScenario.getOptimalSolutionValue()))
-        ) {
-            //Store the best improvement difference
-            GreedyAlgorithmSolution newBestSolution = new GreedyAlgorithmSolution(bestSolution);
-            //Counts the improvements in each for cycle
-            improvementCounter = 0;
-
-            //For each position in the array (each warehouse)
-            for (int i = 0; i < problemScenario.getWarehouseLocations().length; i++) {
-                //Make a solutionArray (deep copy of the best one)
-                int[] newSolutionArray = GreedyAlgorithmSolution.generateSolutionArrayDeepCopy(bestSolution.currentSolutionArray);
-                //Change the current warehouse to open
-                newSolutionArray[i] = 1;
-                //And make a solution with it
-                GreedyAlgorithmSolution newSolution = new GreedyAlgorithmSolution(newSolutionArray);
-
-                //Now, check if the cost of the new solution is lower than the current new best solution
-                if (newSolution.getCurrentSolutionCost() < newBestSolution.getCurrentSolutionCost()) {
-                    //If so, make the current solution the new best one (use deep copy)
-                    newBestSolution = new GreedyAlgorithmSolution(newSolution);
-                    improvementCounter++;
-                }
-            }
 
-            //If improvements were made, make the best solution the new best one
-            if (improvementCounter != 0) {
-                bestSolution = new GreedyAlgorithmSolution(newBestSolution);
+        //Do while the termination policy doesn't stop it (time, evaluations, target gap or stagnation)
+        while (!terminationTracker.shouldStop(evaluator.getCurrentSolutionCost())) {
+            //Find the closed warehouse that lowers the cost the most when opened
+            int bestWarehouseToOpen = useLazyGreedy
+                    ? lazyWarehouseQueue.findBestWarehouseToOpen()
+                    : GreedyAlgorithmSolution.findBestWarehouseToOpen(evaluator);
+
+            //If improvements were made, open the warehouse (the evaluator holds the best solution)
+            if (bestWarehouseToOpen != -1) {
+                evaluator.openWarehouse(bestWarehouseToOpen);
+                terminationTracker.countEvaluations(1);
             } else {
                 //Else, break the cycle (no new improvements are possible)
                 break;
@@ -153,6 +242,7 @@ public class GreedyAlgorithmSolution {
 
             //Print Progress every once in a while
             if ((iterationCounter % 1) == 0 && showProgressMessages) {
+                bestSolution = new GreedyAlgorithmSolution(problemScenario, evaluator.getCurrentSolution());
                 System.out.println("\n#################################");
                 System.out.println("CompilationTime(ms): " + (System.currentTimeMillis() - startTime) + " milliseconds");
                 System.out.println("BestSolution: " + bestSolution.toString());
@@ -160,15 +250,19 @@ public class GreedyAlgorithmSolution {
                 System.out.println("#################################");
             }
             iterationCounter++;
+            terminationTracker.countIteration(evaluator.getCurrentSolutionCost());
         }
 
         //All done
         //Print the result and return the best solution
+        bestSolution = new GreedyAlgorithmSolution(problemScenario, evaluator.getCurrentSolution());
 
-        System.out.println("CompilationTime(ms): " + (System.currentTimeMillis() - startTime) + " milliseconds");
+        System.out.println("CompilationTime(ms): " + (System.currentTimeMillis() - startTime) + " milliseconds" + "\t" + "StopReason: " + terminationTracker.getStopReason());
         System.out.println("BestSolution: " + bestSolution.toString());
         System.out.println("OptimalRatio: " + String.format("%.5f", (problemScenario.getOptimalSolutionValue()/bestSolution.currentSolutionCost)));
-        if ((String.format("%.2f", bestSolution.currentSolutionCost)).equals(String.format("%.2f", problemScenario.getOptimalSolutionValue())))
+        if (problemScenario.getOptimalSolutionValue() < 0)
+            System.out.println("LowerBoundGap: " + String.format("%.5f", problemScenario.calculateLowerBoundGap(bestSolution.currentSolutionCost) * 100) + "%");
+        if (problemScenario.isOptimalSolutionCost(bestSolution.currentSolutionCost))
             System.out.println("U GOT THE OPTIMAL SOLUTION!");
         System.out.println("#################################");
 
@@ -179,7 +273,7 @@ public class GreedyAlgorithmSolution {
     public String toString() {
         return "GreedyAlgorithmSolution{" +
                 "currentSolutionCost=" + String.format("%.3f", currentSolutionCost) +
-                ", currentSolutionArray=" + Arrays.toString(currentSolutionArray) +
+                ", currentSolutionArray=" + currentSolution.toString() +
                 '}';
     }
 }
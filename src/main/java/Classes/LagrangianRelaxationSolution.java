@@ -0,0 +1,314 @@
+package Classes;
+
+import java.util.stream.IntStream;
+
+/**
+ * Lower bound of a scenario by Lagrangian relaxation, much cheaper than the branch and bound
+ *
+ * The constraints "each customer j is assigned to exactly one warehouse" are moved to the cost with a multiplier lambda[j]:
+ *   L(lambda) = sum(lambda[j]) + sum over i of min(0, reducedFixedCost[i]),  reducedFixedCost[i] = fixedCost[i] + sum over j of min(0, allocationCost[j][i] - lambda[j])
+ * (at least one warehouse is open, so if no reducedFixedCost is negative the smallest one is added)
+ * Every L(lambda) is a lower bound, the best one is searched with subgradient optimization:
+ *   subgradient[j] = 1 - (number of open warehouses i in the relaxed solution with allocationCost[j][i] < lambda[j])
+ *   lambda[j] += stepFactor * (upper bound - L(lambda)) / |subgradient|^2 * subgradient[j]   (stepFactor is halved when L stops improving)
+ * Each iteration is one pass over the cost matrix, by warehouse (transposed matrix, in parallel for big scenarios)
+ * Upper bound (Lagrangian heuristic): the warehouses open in the relaxed solution, improved with the local search
+ */
+public class LagrangianRelaxationSolution {
+
+    private final static int maxIterations = 5000;
+    private final static double initialStepFactor = 2;
+    private final static double minimumStepFactor = 1e-4;
+    private final static int iterationsBeforeHalvingStepFactor = 30; //iterations without a better bound
+    private final static int heuristicInterval = 10; //the relaxed solution is evaluated every this number of iterations
+    private final static double gapTolerance = 1e-9; //relative
+    private final static long minimumCostsForParallelIterations = 1 << 16; //smaller cost matrices are done by a single thread
+    private final static long lowerBoundMaxRunDuration = 2000; //milliseconds, budget of the bound used by the termination policy (calculateLowerBound)
+
+    private final ProblemScenario problemScenario;
+    private BitSolution currentSolution;
+    private double currentSolutionCost;
+    private double lowerBound;
+    private int numberOfIterations;
+
+    //Makes an instance with the result of an optimization (deep copy of the solution)
+    public LagrangianRelaxationSolution(ProblemScenario problemScenario, BitSolution solution, double lowerBound, int numberOfIterations) {
+        this.problemScenario = problemScenario;
+        this.currentSolution = new BitSolution(solution);
+        this.currentSolutionCost = problemScenario.calculateTotalCost(this.currentSolution);
+        this.lowerBound = Math.min(lowerBound, this.currentSolutionCost);
+        this.numberOfIterations = numberOfIterations;
+    }
+
+    //Makes a deep copy of the given solution
+    public LagrangianRelaxationSolution(LagrangianRelaxationSolution lagrangianRelaxationSolutionToDeepCopy) {
+        this.problemScenario = lagrangianRelaxationSolutionToDeepCopy.getProblemScenario();
+        this.currentSolution = new BitSolution(lagrangianRelaxationSolutionToDeepCopy.getCurrentSolution());
+        this.currentSolutionCost = lagrangianRelaxationSolutionToDeepCopy.getCurrentSolutionCost();
+        this.lowerBound = lagrangianRelaxationSolutionToDeepCopy.getLowerBound();
+        this.numberOfIterations = lagrangianRelaxationSolutionToDeepCopy.getNumberOfIterations();
+    }
+
+    public double getCurrentSolutionCost() {
+        return currentSolutionCost;
+    }
+
+    public BitSolution getCurrentSolution() {
+        return currentSolution;
+    }
+
+    /**
+     * Returns the current solution as a new solution array (1 = warehouse open, 0 = warehouse closed)
+     */
+    public int[] getCurrentSolutionArray() {
+        return currentSolution.toSolutionArray();
+    }
+
+    public ProblemScenario getProblemScenario() {
+        return problemScenario;
+    }
+
+    /**
+     * No solution of the scenario costs less than this
+     */
+    public double getLowerBound() {
+        return lowerBound;
+    }
+
+    public int getNumberOfIterations() {
+        return numberOfIterations;
+    }
+
+    /**
+     * (cost - lower bound) / cost
+     */
+    public double getOptimalityGap() {
+        return (currentSolutionCost - lowerBound) / currentSolutionCost;
+    }
+
+    /**
+     * State of the subgradient optimization: the multipliers and the relaxed solution of the last evaluated ones
+     */
+    private static class SubgradientOptimization {
+        private final int numberOfWarehouseLocations;
+        private final int numberOfCustomers;
+        private final double[] fixedCosts;
+        private final double[] allocationCostsByWarehouse; // column major, [i * numberOfCustomers + j] = cost of allocating customer j to warehouse i
+        private final boolean parallel;
+
+        private final double[] multipliers; // lambda[j]
+        private final double[] reducedFixedCosts; // i from warehouse
+        private final double[] subgradient; // j from customer
+        private final BitSolution relaxedSolution; // warehouses open in the relaxed problem
+
+        private SubgradientOptimization(ProblemScenario problemScenario) {
+            this.numberOfWarehouseLocations = problemScenario.getNumberOfWarehouseLocations();
+            this.numberOfCustomers = problemScenario.getNumberOfCustomers();
+            this.fixedCosts = problemScenario.getFixedCosts();
+            this.parallel = (long) numberOfWarehouseLocations * numberOfCustomers >= minimumCostsForParallelIterations;
+            this.multipliers = new double[numberOfCustomers];
+            this.reducedFixedCosts = new double[numberOfWarehouseLocations];
+            this.subgradient = new double[numberOfCustomers];
+            this.relaxedSolution = new BitSolution(numberOfWarehouseLocations);
+
+            //Transpose the cost matrix, so the pass of each warehouse reads its costs one after the other
+            double[] allocationCosts = problemScenario.getAllocationCosts();
+            this.allocationCostsByWarehouse = new double[numberOfCustomers * numberOfWarehouseLocations];
+            for (int j = 0; j < numberOfCustomers; j++) {
+                int rowOffset = j * numberOfWarehouseLocations;
+                for (int i = 0; i < numberOfWarehouseLocations; i++)
+                    allocationCostsByWarehouse[i * numberOfCustomers + j] = allocationCosts[rowOffset + i];
+            }
+
+            //lambda[j] starts at the cost of the cheapest warehouse of the customer
+            for (int j = 0; j < numberOfCustomers; j++)
+                multipliers[j] = problemScenario.getAllocationCost(j, problemScenario.getSortedWarehousePreferences()[j * numberOfWarehouseLocations]);
+        }
+
+        /**
+         * Solves the relaxed problem for the current multipliers: returns L(lambda) and leaves the open warehouses in relaxedSolution
+         */
+        private double evaluate() {
+            //Reduced fixed cost of each warehouse (one pass over the cost matrix)
+            if (parallel)
+                IntStream.range(0, numberOfWarehouseLocations).parallel().forEach(this::calculateReducedFixedCost);
+            else
+                for (int i = 0; i < numberOfWarehouseLocations; i++)
+                    calculateReducedFixedCost(i);
+
+            //Open the warehouses with a negative reduced fixed cost (at least the cheapest one)
+            double lagrangianValue = 0;
+            for (int j = 0; j < numberOfCustomers; j++)
+                lagrangianValue += multipliers[j];
+            int cheapestWarehouse = 0;
+            boolean anyOpen = false;
+            for (int i = 0; i < numberOfWarehouseLocations; i++) {
+                if (reducedFixedCosts[i] < 0) {
+                    relaxedSolution.open(i);
+                    lagrangianValue += reducedFixedCosts[i];
+                    anyOpen = true;
+                } else {
+                    relaxedSolution.close(i);
+                }
+                if (reducedFixedCosts[i] < reducedFixedCosts[cheapestWarehouse])
+                    cheapestWarehouse = i;
+            }
+            if (!anyOpen) {
+                relaxedSolution.open(cheapestWarehouse);
+                lagrangianValue += reducedFixedCosts[cheapestWarehouse];
+            }
+            return lagrangianValue;
+        }
+
+        private void calculateReducedFixedCost(int warehouseLocationI) {
+            int columnOffset = warehouseLocationI * numberOfCustomers;
+            double reducedFixedCost = fixedCosts[warehouseLocationI];
+            for (int j = 0; j < numberOfCustomers; j++)
+                reducedFixedCost += Math.min(0, allocationCostsByWarehouse[columnOffset + j] - multipliers[j]);
+            reducedFixedCosts[warehouseLocationI] = reducedFixedCost;
+        }
+
+        /**
+         * Subgradient of the relaxed solution of the last evaluate, returns its squared norm
+         */
+        private double calculateSubgradient() {
+            for (int j = 0; j < numberOfCustomers; j++)
+                subgradient[j] = 1;
+            for (int i = 0; i < numberOfWarehouseLocations; i++) {
+                if (!relaxedSolution.isOpen(i))
+                    continue;
+                int columnOffset = i * numberOfCustomers;
+                for (int j = 0; j < numberOfCustomers; j++) {
+                    if (allocationCostsByWarehouse[columnOffset + j] < multipliers[j])
+                        subgradient[j] -= 1;
+                }
+            }
+            double squaredNorm = 0;
+            for (int j = 0; j < numberOfCustomers; j++)
+                squaredNorm += subgradient[j] * subgradient[j];
+            return squaredNorm;
+        }
+
+        private void moveMultipliers(double stepSize) {
+            for (int j = 0; j < numberOfCustomers; j++)
+                multipliers[j] += stepSize * subgradient[j];
+        }
+    }
+
+    /**
+     * Subgradient optimization of the scenario (no messages)
+     * Uses the time budget of the termination policy, its evaluation budget (as iterations) and its target gap (between the best solution and the bound)
+     * The policy is not started (its target could need the lower bound this calculates)
+     */
+    private static LagrangianRelaxationSolution optimize(ProblemScenario problemScenario, TerminationPolicy terminationPolicy, long startTime, boolean showProgressMessages) {
+        SubgradientOptimization subgradientOptimization = new SubgradientOptimization(problemScenario);
+
+        //First upper bound: the greedy algorithm followed by the local search
+        UflpEvaluator evaluator = new UflpEvaluator(problemScenario);
+        GreedyAlgorithmSolution.openBestWarehouses(evaluator);
+        LocalSearchSolution.improve(evaluator);
+        BitSolution bestSolution = new BitSolution(evaluator.getCurrentSolution());
+        double bestSolutionCost = evaluator.getCurrentSolutionCost();
+
+        double lowerBound = Double.NEGATIVE_INFINITY;
+        double stepFactor = initialStepFactor;
+        int iterationsWithoutImprovement = 0;
+        int iteration = 0;
+        long maxNumberOfIterations = Math.min(maxIterations, terminationPolicy.getMaxEvaluations());
+        double targetGap = Math.max(gapTolerance, terminationPolicy.getTargetGap());
+        while (iteration < maxNumberOfIterations && stepFactor >= minimumStepFactor
+                && (System.currentTimeMillis() - startTime) <= terminationPolicy.getMaxRunDuration()
+                && bestSolutionCost - lowerBound > targetGap * Math.abs(bestSolutionCost)) {
+            iteration++;
+            double lagrangianValue = subgradientOptimization.evaluate();
+            if (lagrangianValue > lowerBound) {
+                lowerBound = lagrangianValue;
+                iterationsWithoutImprovement = 0;
+            } else if (++iterationsWithoutImprovement >= iterationsBeforeHalvingStepFactor) {
+                stepFactor /= 2;
+                iterationsWithoutImprovement = 0;
+            }
+
+            //A zero subgradient means the relaxed solution is feasible (each customer has exactly one warehouse), so it is optimal
+            double squaredNorm = subgradientOptimization.calculateSubgradient();
+
+            //Lagrangian heuristic: the warehouses of the relaxed solution, improved with the local search
+            if (iteration % heuristicInterval == 0 || squaredNorm == 0) {
+                evaluator.loadSolution(subgradientOptimization.relaxedSolution);
+                LocalSearchSolution.improve(evaluator);
+                if (evaluator.getCurrentSolutionCost() < bestSolutionCost) {
+                    bestSolution.copyFrom(evaluator.getCurrentSolution());
+                    bestSolutionCost = evaluator.getCurrentSolutionCost();
+                }
+            }
+
+            //Print Progress every once in a while
+            if ((iteration % 100) == 0 && showProgressMessages) {
+                System.out.println("\n#################################");
+                System.out.println("Iteration: " + iteration + "\t" + "CompilationTime(ms): " + (System.currentTimeMillis() - startTime) + " milliseconds");
+                System.out.println("LowerBound: " + String.format("%.3f", lowerBound) + "\t" + "BestSolutionCost: " + String.format("%.3f", bestSolutionCost)
+                        + "\t" + "StepFactor: " + stepFactor);
+                System.out.println("#################################");
+            }
+
+            //Move the multipliers
+            if (squaredNorm == 0)
+                break;
+            subgradientOptimization.moveMultipliers(stepFactor * (bestSolutionCost - lagrangianValue) / squaredNorm);
+        }
+        return new LagrangianRelaxationSolution(problemScenario, bestSolution, lowerBound, iteration);
+    }
+
+    /**
+     * Lower bound of the scenario (no messages), within a small fixed budget: it is the reference of the target gap of the other solvers
+     */
+    public static double calculateLowerBound(ProblemScenario problemScenario) {
+        TerminationPolicy terminationPolicy = new TerminationPolicy().setMaxRunDuration(lowerBoundMaxRunDuration);
+        return optimize(problemScenario, terminationPolicy, System.currentTimeMillis(), false).getLowerBound();
+    }
+
+    /**
+     * Calculates a lower bound of the scenario and the best solution of the Lagrangian heuristic
+     */
+    public static LagrangianRelaxationSolution run(ProblemScenario problemScenario, boolean showProgressMessages) {
+        return LagrangianRelaxationSolution.run(problemScenario, new TerminationPolicy(), showProgressMessages);
+    }
+
+    /**
+     * Calculates a lower bound of the scenario and the best solution of the Lagrangian heuristic, within the budgets of the termination policy
+     */
+    public static LagrangianRelaxationSolution run(ProblemScenario problemScenario, TerminationPolicy terminationPolicy, boolean showProgressMessages) {
+
+        System.out.println("\n#################################");
+        System.out.println("### -- The Lagrangian Bound -- ###");
+        System.out.println("#################################");
+        System.out.println("ScenarioName: " + problemScenario.getName() + "\t" + "OptimalSolution: " + problemScenario.getOptimalSolutionValue());
+        System.out.println("NumberOfWarehouses: " + problemScenario.getWarehouseLocations().length + "\t" + "NumberOfCustomers: " + problemScenario.getCustomers().length);
+        System.out.println("#################################");
+
+        //Save starting time
+        long startTime = System.currentTimeMillis();
+
+        LagrangianRelaxationSolution bestSolution = optimize(problemScenario, terminationPolicy, startTime, showProgressMessages);
+
+        //All done
+        //Print the result and return the best solution with its bound
+        System.out.println("CompilationTime(ms): " + (System.currentTimeMillis() - startTime) + " milliseconds");
+        System.out.println("Iterations: " + bestSolution.numberOfIterations + "\t" + "LowerBound: " + String.format("%.3f", bestSolution.lowerBound)
+                + "\t" + "Gap: " + String.format("%.5f", bestSolution.getOptimalityGap() * 100) + "%");
+        System.out.println("BestSolution: " + bestSolution.toString());
+        System.out.println("OptimalRatio: " + String.format("%.5f", (problemScenario.getOptimalSolutionValue()/bestSolution.currentSolutionCost)));
+        System.out.println("#################################");
+
+        return bestSolution;
+    }
+
+    @Override
+    public String toString() {
+        return "LagrangianRelaxationSolution{" +
+                "currentSolutionCost=" + String.format("%.3f", currentSolutionCost) +
+                ", lowerBound=" + String.format("%.3f", lowerBound) +
+                ", currentSolutionArray=" + currentSolution.toString() +
+                '}';
+    }
+}
@@ -0,0 +1,297 @@
+package Classes;
+
+import java.util.Arrays;
+
+/**
+ * Local search that improves a solution (usually the greedy one) with ADD (open i'), DROP (close i) and SWAP (close i and open i') moves
+ * On each pass the whole neighbourhood is scored and the best improving move is made, until there is none (a local optimum)
+ *
+ * The scores come from the best and second best open warehouse of each customer (kept by the UflpEvaluator):
+ *   gain(i')    = allocation savings of opening i'                                (customers that are cheaper at i' than at their warehouse)
+ *   loss(i)     = allocation increase of closing i                                (customers assigned to i go to their second best warehouse)
+ *   extra(i,i') = part of loss(i) that is saved again when i' is opened at the same time (customers of i that are cheaper at i' than at their second best)
+ *   ADD(i')    = fixedCost(i') - gain(i')
+ *   DROP(i)    = loss(i) - fixedCost(i)
+ *   SWAP(i,i') = fixedCost(i') - fixedCost(i) - gain(i') + loss(i) - extra(i,i')
+ * Only the warehouses before the second best one in the sorted preferences of each customer add to gain and extra,
+ * so a pass costs about the number of customers times the length of those (short) preference prefixes, plus open x closed to pick the best SWAP
+ */
+public class LocalSearchSolution {
+
+    private final static double minimumImprovement = 1e-6; //smaller improvements are rounding errors, they could make the search cycle
+
+    private final ProblemScenario problemScenario;
+    private BitSolution currentSolution;
+    private double currentSolutionCost;
+
+    //Makes an instance with a given solution (deep copy)
+    public LocalSearchSolution(ProblemScenario problemScenario, BitSolution solution) {
+        this.problemScenario = problemScenario;
+        this.currentSolution = new BitSolution(solution);
+        this.currentSolutionCost = problemScenario.calculateTotalCost(this.currentSolution);
+    }
+
+    //Makes a deep copy of the given solution
+    public LocalSearchSolution(LocalSearchSolution localSearchSolutionToDeepCopy) {
+        this.problemScenario = localSearchSolutionToDeepCopy.getProblemScenario();
+        this.currentSolution = new BitSolution(localSearchSolutionToDeepCopy.getCurrentSolution());
+        this.currentSolutionCost = localSearchSolutionToDeepCopy.getCurrentSolutionCost();
+    }
+
+    public double getCurrentSolutionCost() {
+        return currentSolutionCost;
+    }
+
+    public BitSolution getCurrentSolution() {
+        return currentSolution;
+    }
+
+    /**
+     * Returns the current solution as a new solution array (1 = warehouse open, 0 = warehouse closed)
+     */
+    public int[] getCurrentSolutionArray() {
+        return currentSolution.toSolutionArray();
+    }
+
+    public ProblemScenario getProblemScenario() {
+        return problemScenario;
+    }
+
+    /**
+     * Scores of the ADD, DROP and SWAP moves of the solution of an evaluator, the arrays are reused between passes
+     */
+    private static class MoveNeighbourhood {
+        private final UflpEvaluator evaluator;
+        private final int numberOfWarehouseLocations;
+        private final int numberOfCustomers;
+        private final double[] fixedCosts;
+        private final double[] allocationCosts;
+        private final int[] sortedWarehousePreferences;
+
+        private final double[] gain; // i' from warehouse
+        private final double[] loss; // i from warehouse
+        private final double[] extra; // [i * numberOfWarehouseLocations + i'], only the rows of the open warehouses are used
+        private final int[] openWarehouses;
+        private final int[] closedWarehouses;
+
+        //Best move of the last scan
+        private int bestWarehouseToClose; // -1 = none (ADD)
+        private int bestWarehouseToOpen; // -1 = none (DROP)
+        private double bestCostDelta;
+
+        private MoveNeighbourhood(UflpEvaluator evaluator) {
+            ProblemScenario problemScenario = evaluator.getProblemScenario();
+            this.evaluator = evaluator;
+            this.numberOfWarehouseLocations = problemScenario.getNumberOfWarehouseLocations();
+            this.numberOfCustomers = problemScenario.getNumberOfCustomers();
+            this.fixedCosts = problemScenario.getFixedCosts();
+            this.allocationCosts = problemScenario.getAllocationCosts();
+            this.sortedWarehousePreferences = problemScenario.getSortedWarehousePreferences();
+            this.gain = new double[numberOfWarehouseLocations];
+            this.loss = new double[numberOfWarehouseLocations];
+            this.extra = new double[numberOfWarehouseLocations * numberOfWarehouseLocations];
+            this.openWarehouses = new int[numberOfWarehouseLocations];
+            this.closedWarehouses = new int[numberOfWarehouseLocations];
+        }
+
+        /**
+         * Scores every move of the current solution of the evaluator and keeps the best one
+         * Returns false if no move lowers the cost
+         */
+        private boolean findBestMove() {
+            //Split the warehouses into open and closed ones, and clear the scores
+            BitSolution solution = evaluator.getCurrentSolution();
+            int numberOfOpenWarehouses = 0;
+            int numberOfClosedWarehouses = 0;
+            for (int i = 0; i < numberOfWarehouseLocations; i++) {
+                if (solution.isOpen(i)) {
+                    openWarehouses[numberOfOpenWarehouses++] = i;
+                    Arrays.fill(extra, i * numberOfWarehouseLocations, (i + 1) * numberOfWarehouseLocations, 0);
+                } else {
+                    closedWarehouses[numberOfClosedWarehouses++] = i;
+                }
+            }
+            Arrays.fill(gain, 0);
+            Arrays.fill(loss, 0);
+            if (numberOfOpenWarehouses == 0)
+                return false;
+
+            //One pass over the customers
+            for (int j = 0; j < numberOfCustomers; j++) {
+                int rowOffset = j * numberOfWarehouseLocations;
+                int assignedWarehouse = evaluator.getAssignedWarehouse(j);
+                int secondBestWarehouse = evaluator.getSecondBestWarehouse(j);
+                double assignedCost = allocationCosts[rowOffset + assignedWarehouse];
+                //Without a second best warehouse (only one open) there is no loss or extra, the SWAPs are scored in scoreSingleWarehouseSwaps
+                double secondBestCost = (secondBestWarehouse == -1) ? assignedCost : allocationCosts[rowOffset + secondBestWarehouse];
+                loss[assignedWarehouse] += secondBestCost - assignedCost;
+
+                //Warehouses cheaper than the second best one, in order (the only ones that add to gain or extra)
+                for (int k = rowOffset; k < rowOffset + numberOfWarehouseLocations; k++) {
+                    int warehouseLocationI = sortedWarehousePreferences[k];
+                    if (warehouseLocationI == assignedWarehouse)
+                        continue;
+                    double allocationCost = allocationCosts[rowOffset + warehouseLocationI];
+                    if (allocationCost >= secondBestCost)
+                        break;
+                    if (allocationCost < assignedCost)
+                        gain[warehouseLocationI] += assignedCost - allocationCost;
+                    if (secondBestWarehouse != -1)
+                        extra[assignedWarehouse * numberOfWarehouseLocations + warehouseLocationI] += secondBestCost - Math.max(allocationCost, assignedCost);
+                }
+            }
+
+            //Best move
+            bestWarehouseToClose = -1;
+            bestWarehouseToOpen = -1;
+            bestCostDelta = -minimumImprovement;
+            //ADD
+            for (int c = 0; c < numberOfClosedWarehouses; c++) {
+                int warehouseToOpen = closedWarehouses[c];
+                keepIfBetter(-1, warehouseToOpen, fixedCosts[warehouseToOpen] - gain[warehouseToOpen]);
+            }
+            if (numberOfOpenWarehouses == 1) {
+                scoreSingleWarehouseSwaps(openWarehouses[0], numberOfClosedWarehouses);
+            } else {
+                for (int o = 0; o < numberOfOpenWarehouses; o++) {
+                    int warehouseToClose = openWarehouses[o];
+                    //DROP
+                    double closeCostDelta = loss[warehouseToClose] - fixedCosts[warehouseToClose];
+                    keepIfBetter(warehouseToClose, -1, closeCostDelta);
+                    //SWAP
+                    int extraRowOffset = warehouseToClose * numberOfWarehouseLocations;
+                    for (int c = 0; c < numberOfClosedWarehouses; c++) {
+                        int warehouseToOpen = closedWarehouses[c];
+                        keepIfBetter(warehouseToClose, warehouseToOpen,
+                                closeCostDelta + fixedCosts[warehouseToOpen] - gain[warehouseToOpen] - extra[extraRowOffset + warehouseToOpen]);
+                    }
+                }
+            }
+            return bestCostDelta < -minimumImprovement;
+        }
+
+        /**
+         * With a single open warehouse every customer moves to the opened one in a SWAP (and a DROP is not possible)
+         */
+        private void scoreSingleWarehouseSwaps(int warehouseToClose, int numberOfClosedWarehouses) {
+            double currentAllocationCost = evaluator.getCurrentSolutionCost() - fixedCosts[warehouseToClose];
+            for (int c = 0; c < numberOfClosedWarehouses; c++) {
+                int warehouseToOpen = closedWarehouses[c];
+                double newAllocationCost = 0;
+                for (int j = 0; j < numberOfCustomers; j++)
+                    newAllocationCost += allocationCosts[j * numberOfWarehouseLocations + warehouseToOpen];
+                keepIfBetter(warehouseToClose, warehouseToOpen,
+                        fixedCosts[warehouseToOpen] - fixedCosts[warehouseToClose] + newAllocationCost - currentAllocationCost);
+            }
+        }
+
+        private void keepIfBetter(int warehouseToClose, int warehouseToOpen, double costDelta) {
+            if (costDelta < bestCostDelta) {
+                bestWarehouseToClose = warehouseToClose;
+                bestWarehouseToOpen = warehouseToOpen;
+                bestCostDelta = costDelta;
+            }
+        }
+
+        /**
+         * Makes the best move found by the last findBestMove
+         */
+        private void makeBestMove() {
+            //Open first, so the customers of the closed warehouse can go straight to the new one
+            if (bestWarehouseToOpen != -1)
+                evaluator.openWarehouse(bestWarehouseToOpen);
+            if (bestWarehouseToClose != -1)
+                evaluator.closeWarehouse(bestWarehouseToClose);
+        }
+    }
+
+    /**
+     * Improves the solution of the evaluator in place until no ADD, DROP or SWAP move lowers its cost (no messages, no time limit)
+     * Returns the number of moves made
+     */
+    public static int improve(UflpEvaluator evaluator) {
+        MoveNeighbourhood moveNeighbourhood = new MoveNeighbourhood(evaluator);
+        int numberOfMoves = 0;
+        while (moveNeighbourhood.findBestMove()) {
+            moveNeighbourhood.makeBestMove();
+            numberOfMoves++;
+        }
+        return numberOfMoves;
+    }
+
+    /**
+     * Improves the given solution until no ADD, DROP or SWAP move lowers its cost
+     */
+    public static LocalSearchSolution run(ProblemScenario problemScenario, BitSolution initialSolution, boolean showProgressMessages) {
+        return LocalSearchSolution.run(problemScenario, initialSolution, new TerminationPolicy(), showProgressMessages);
+    }
+
+    /**
+     * Improves the given solution until no ADD, DROP or SWAP move lowers its cost or the termination policy stops the run
+     */
+    public static LocalSearchSolution run(ProblemScenario problemScenario, BitSolution initialSolution, TerminationPolicy terminationPolicy, boolean showProgressMessages) {
+
+        System.out.println("\n#################################");
+        System.out.println("### ---- The Local Search ---- ###");
+        System.out.println("#################################");
+        System.out.println("ScenarioName: " + problemScenario.getName() + "\t" + "OptimalSolution: " + problemScenario.getOptimalSolutionValue());
+        System.out.println("NumberOfWarehouses: " + problemScenario.getWarehouseLocations().length + "\t" + "NumberOfCustomers: " + problemScenario.getCustomers().length);
+        System.out.println("#################################");
+
+        //Save starting time
+        TerminationPolicy.Tracker terminationTracker = terminationPolicy.start(problemScenario);
+        long startTime = terminationTracker.getStartTime();
+
+        //The evaluator holds the current solution and the best and second best warehouse of each customer
+        UflpEvaluator evaluator = new UflpEvaluator(problemScenario);
+        evaluator.loadSolution(initialSolution);
+        MoveNeighbourhood moveNeighbourhood = new MoveNeighbourhood(evaluator);
+        double initialSolutionCost = evaluator.getCurrentSolutionCost();
+
+        int iterationCounter = 0;
+
+        //Do while the termination policy doesn't stop it (time, evaluations, target gap or stagnation)
+        while (!terminationTracker.shouldStop(evaluator.getCurrentSolutionCost())) {
+            //If no move lowers the cost, it is a local optimum
+            if (!moveNeighbourhood.findBestMove())
+                break;
+            moveNeighbourhood.makeBestMove();
+            terminationTracker.countEvaluations(1);
+
+            //Print Progress every once in a while
+            if ((iterationCounter % 1) == 0 && showProgressMessages) {
+                System.out.println("\n#################################");
+                System.out.println("CompilationTime(ms): " + (System.currentTimeMillis() - startTime) + " milliseconds");
+                System.out.println("Move: close " + moveNeighbourhood.bestWarehouseToClose + " open " + moveNeighbourhood.bestWarehouseToOpen
+                        + "\tCost: " + String.format("%.3f", evaluator.getCurrentSolutionCost()));
+                System.out.println("#################################");
+            }
+            iterationCounter++;
+            terminationTracker.countIteration(evaluator.getCurrentSolutionCost());
+        }
+
+        //All done
+        //Print the result and return the solution
+        LocalSearchSolution bestSolution = new LocalSearchSolution(problemScenario, evaluator.getCurrentSolution());
+
+        System.out.println("CompilationTime(ms): " + (System.currentTimeMillis() - startTime) + " milliseconds" + "\t" + "StopReason: " + terminationTracker.getStopReason());
+        System.out.println("Moves: " + iterationCounter + "\t" + "InitialCost: " + String.format("%.3f", initialSolutionCost));
+        System.out.println("BestSolution: " + bestSolution.toString());
+        System.out.println("OptimalRatio: " + String.format("%.5f", (problemScenario.getOptimalSolutionValue()/bestSolution.currentSolutionCost)));
+        if (problemScenario.getOptimalSolutionValue() < 0)
+            System.out.println("LowerBoundGap: " + String.format("%.5f", problemScenario.calculateLowerBoundGap(bestSolution.currentSolutionCost) * 100) + "%");
+        if (problemScenario.isOptimalSolutionCost(bestSolution.currentSolutionCost))
+            System.out.println("U GOT THE OPTIMAL SOLUTION!");
+        System.out.println("#################################");
+
+        return bestSolution;
+    }
+
+    @Override
+    public String toString() {
+        return "LocalSearchSolution{" +
+                "currentSolutionCost=" + String.format("%.3f", currentSolutionCost) +
+                ", currentSolutionArray=" + currentSolution.toString() +
+                '}';
+    }
+}
@@ -3,36 +3,173 @@ package Classes;
 import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.time.LocalDateTime;
+import java.time.Instant;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Asynchronous logger: WriteMessage only puts the message in a bounded queue (a ring buffer) and returns,
+ * a single writer thread takes the messages in batches and writes each batch to logs.txt at once (one open and write per batch)
+ * The messages only leave the queue while the write lock is held, so the writer thread and flush write them in order
+ * Callers never wait for the disk: if the queue is full the message is dropped (and counted)
+ * The messages still in the queue are written when the program ends (shutdown hook) or when flush is called
+ */
 public class Logger {
 
+    /**
+     * Levels of the messages, from the most detailed one
+     */
+    public enum Level {
+        PARSING, // a message per warehouse/customer read from a file
+        DEBUG,
+        INFO,
+        WARNING,
+        ERROR
+    }
+
+    private final static String logFilePath = "logs.txt";
+    private final static int queueCapacity = 1 << 16;
+    private final static int maxBatchSize = 1024;
+    private final static DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
+
     private static boolean printMessagesInConsole = false;
+    private static volatile Level minimumLevel = Level.INFO; //PARSING messages are off by default
+
+    private final static ArrayBlockingQueue<LogEntry> logQueue = new ArrayBlockingQueue<>(queueCapacity);
+    private final static Semaphore queuedMessages = new Semaphore(0); //a permit per message put in the queue, wakes the writer thread
+    private final static AtomicLong droppedMessagesCounter = new AtomicLong();
+    private final static Object writeLock = new Object(); //the writer thread and flush don't write at the same time
+    private static Thread writerThread = null;
+
+    /**
+     * A message and the time it was logged
+     */
+    private static class LogEntry {
+        private final long timeMillis;
+        private final Level level;
+        private final String message;
+
+        private LogEntry(long timeMillis, Level level, String message) {
+            this.timeMillis = timeMillis;
+            this.level = level;
+            this.message = message;
+        }
+    }
+
+    public static Level getMinimumLevel() {
+        return minimumLevel;
+    }
+
+    /**
+     * Messages below this level are ignored (Level.PARSING to also log every warehouse/customer read)
+     */
+    public static void setMinimumLevel(Level minimumLevel) {
+        Logger.minimumLevel = minimumLevel;
+    }
+
+    /**
+     * True if messages of this level are logged, check it before building expensive messages
+     */
+    public static boolean isEnabled(Level level) {
+        return level.compareTo(minimumLevel) >= 0;
+    }
+
+    public static long getDroppedMessagesCounter() {
+        return droppedMessagesCounter.get();
+    }
 
+    /**
+     * Logs an INFO message
+     */
     public static void WriteMessage(String message) {
-        // Function to write a log message to a file
-        // Define the log file path
-        String logFilePath = "logs.txt";
+        WriteMessage(Level.INFO, message);
+    }
 
-        // Get the current date and time
-        LocalDateTime now = LocalDateTime.now();
+    /**
+     * Logs a message, it is written to the log file later by the writer thread
+     */
+    public static void WriteMessage(Level level, String message) {
+        if (!isEnabled(level))
+            return;
+        startWriterThreadIfNeeded();
+        if (logQueue.offer(new LogEntry(System.currentTimeMillis(), level, message)))
+            queuedMessages.release();
+        else
+            droppedMessagesCounter.incrementAndGet();
+    }
 
-        // Format the current date and time
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-        String formattedDateTime = now.format(formatter);
+    /**
+     * Writes all the messages that are waiting in the queue (waits for the disk)
+     */
+    public static void flush() {
+        writeQueuedMessages(new ArrayList<>());
+    }
 
-        // Prepare the log message
-        String logMessage = formattedDateTime + " # " + message;
+    private static synchronized void startWriterThreadIfNeeded() {
+        if (writerThread != null)
+            return;
+        writerThread = new Thread(Logger::writeMessages, "LoggerWriter");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        //Write what is left when the program ends
+        Runtime.getRuntime().addShutdownHook(new Thread(Logger::flush, "LoggerFlush"));
+    }
 
-        // Write the log message to the file
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(logFilePath, true))) {
-            writer.write(logMessage);
-            writer.newLine();
-            //Print in console
-            if (printMessagesInConsole){
-                System.out.println(message);
+    /**
+     * Loop of the writer thread: waits for a message (without taking it from the queue) and writes all the queued ones
+     */
+    private static void writeMessages() {
+        List<LogEntry> batch = new ArrayList<>(maxBatchSize);
+        while (true) {
+            try {
+                if (!queuedMessages.tryAcquire(1, TimeUnit.SECONDS))
+                    continue;
+            } catch (InterruptedException e) {
+                return;
+            }
+            writeQueuedMessages(batch);
+        }
+    }
+
+    /**
+     * Takes the messages from the queue in batches and writes them, holding the write lock
+     * (a permit released after its message was written by someone else only wakes the writer thread for nothing)
+     */
+    private static void writeQueuedMessages(List<LogEntry> batch) {
+        synchronized (writeLock) {
+            queuedMessages.drainPermits();
+            while (logQueue.drainTo(batch, maxBatchSize) > 0) {
+                writeBatch(batch);
+                batch.clear();
             }
+        }
+    }
+
+    /**
+     * Writes the batch to the log file (one open, one write and one close per batch)
+     */
+    private static void writeBatch(List<LogEntry> batch) {
+        StringBuilder text = new StringBuilder(batch.size() * 64);
+        long droppedMessages = droppedMessagesCounter.getAndSet(0);
+        if (droppedMessages > 0)
+            text.append(dateTimeFormatter.format(Instant.now())).append(" # WARNING # ").append(droppedMessages).append(" messages dropped, the log queue was full").append(System.lineSeparator());
+        for (LogEntry logEntry : batch) {
+            text.append(dateTimeFormatter.format(Instant.ofEpochMilli(logEntry.timeMillis))).append(" # ");
+            if (logEntry.level != Level.INFO)
+                text.append(logEntry.level).append(" # ");
+            text.append(logEntry.message).append(System.lineSeparator());
+            //Print in console
+            if (printMessagesInConsole)
+                System.out.println(logEntry.message);
+        }
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(logFilePath, true))) {
+            writer.write(text.toString());
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -0,0 +1,98 @@
+package Classes;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Reads and writes the parameters of a solver from/to a Properties, each key is prefix + name of the parameter
+ * (geneticAlgorithm.chanceOfGeneMutation, simulatedAnnealing.coolingRate...)
+ * A parameter without a key keeps its value, and the keys that were read are remembered, so a misspelled key can be reported
+ */
+class ParameterProperties {
+
+    private final Properties properties;
+    private final Set<String> readKeys = new HashSet<>();
+
+    ParameterProperties(Properties properties) {
+        this.properties = properties;
+    }
+
+    int readInt(String prefix, String name, int currentValue) {
+        String value = readValue(prefix, name);
+        if (value == null)
+            return currentValue;
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Parameter " + prefix + name + " must be an integer: " + value, e);
+        }
+    }
+
+    long readLong(String prefix, String name, long currentValue) {
+        String value = readValue(prefix, name);
+        if (value == null)
+            return currentValue;
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Parameter " + prefix + name + " must be an integer: " + value, e);
+        }
+    }
+
+    double readDouble(String prefix, String name, double currentValue) {
+        String value = readValue(prefix, name);
+        if (value == null)
+            return currentValue;
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Parameter " + prefix + name + " must be a number: " + value, e);
+        }
+    }
+
+    boolean readBoolean(String prefix, String name, boolean currentValue) {
+        String value = readValue(prefix, name);
+        if (value == null)
+            return currentValue;
+        if (!value.equalsIgnoreCase("true") && !value.equalsIgnoreCase("false"))
+            throw new IllegalArgumentException("Parameter " + prefix + name + " must be true or false: " + value);
+        return Boolean.parseBoolean(value);
+    }
+
+    <E extends Enum<E>> E readEnum(String prefix, String name, E currentValue) {
+        String value = readValue(prefix, name);
+        if (value == null)
+            return currentValue;
+        try {
+            return Enum.valueOf(currentValue.getDeclaringClass(), value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Parameter " + prefix + name + " must be one of " + Arrays.toString(currentValue.getDeclaringClass().getEnumConstants()) + ": " + value, e);
+        }
+    }
+
+    void write(String prefix, String name, Object value) {
+        properties.setProperty(prefix + name, String.valueOf(value));
+    }
+
+    /**
+     * Keys starting with the prefix that no solver read (misspelled or unknown parameters)
+     */
+    Set<String> findUnreadKeys(String prefix) {
+        Set<String> unreadKeys = new HashSet<>();
+        for (String key : properties.stringPropertyNames()) {
+            if (key.startsWith(prefix) && !readKeys.contains(key))
+                unreadKeys.add(key);
+        }
+        return unreadKeys;
+    }
+
+    private String readValue(String prefix, String name) {
+        String key = prefix + name;
+        readKeys.add(key);
+        String value = properties.getProperty(key);
+        return (value == null) ? null : value.trim();
+    }
+}
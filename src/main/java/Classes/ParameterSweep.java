@@ -0,0 +1,379 @@
+package Classes;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Runs the genetic algorithm and/or the simulated annealing over a set of scenarios with many configurations, to tune their parameters
+ * The sweep is read from a properties file:
+ *   scenarios = directories of the scenarios, relative to the project directory like in Main, with / instead of \ (comma separated)
+ *   solvers = geneticAlgorithm and/or simulatedAnnealing (comma separated)
+ *   repetitions, numberOfThreads (runs at the same time), numberOfRandomSamples (0 = the whole grid), randomSeed, resultsFile
+ *     (randomSeed also makes the seed of each run: the same for a scenario and repetition in every configuration and solver,
+ *     so the configurations are compared on the same random numbers, and each run can be reproduced with its seed)
+ *   any parameter of SolverConfiguration (geneticAlgorithm.*, simulatedAnnealing.*, termination.*), the base configuration of every run
+ *   sweep. + a parameter of SolverConfiguration = the values to try (comma separated)
+ *     the grid is every combination of the values, a random search takes numberOfRandomSamples random combinations,
+ *     and in a random search a value can also be a range (min..max, integers if both are integers) to draw the value from
+ * Each run (scenario, configuration, solver, repetition) is a row of the results table (CSV): seed, cost, gap and time,
+ * and the summary table (resultsFile with -summary) has the averages of each configuration and solver over all the scenarios
+ */
+public class ParameterSweep {
+
+    private final static String sweptParameterPrefix = "sweep.";
+    private final static String valueSeparator = ",";
+    private final static String rangeSeparator = "..";
+    private final static String geneticAlgorithmSolverName = "geneticAlgorithm";
+    private final static String simulatedAnnealingSolverName = "simulatedAnnealing";
+
+    private final Properties sweepProperties;
+    private final List<String> scenariosDirPartialPaths;
+    private final List<String> solverNames;
+    private final int repetitions;
+    private final int numberOfThreads;
+    private final int numberOfRandomSamples;
+    private final long randomSeed;
+    private final Path resultsFilePath;
+    private final LinkedHashMap<String, String[]> sweptParameters = new LinkedHashMap<>(); //parameter -> values to try
+
+    /**
+     * Result of one run
+     */
+    private static class SweepResult {
+        private final ProblemScenario problemScenario;
+        private final int configurationIndex;
+        private final String solverName;
+        private final int repetition;
+        private final long randomSeed;
+        private final double solutionCost;
+        private final long runDuration;
+
+        private SweepResult(ProblemScenario problemScenario, int configurationIndex, String solverName, int repetition, long randomSeed,
+                            double solutionCost, long runDuration) {
+            this.problemScenario = problemScenario;
+            this.configurationIndex = configurationIndex;
+            this.solverName = solverName;
+            this.repetition = repetition;
+            this.randomSeed = randomSeed;
+            this.solutionCost = solutionCost;
+            this.runDuration = runDuration;
+        }
+    }
+
+    /**
+     * Reads a sweep from its properties file
+     */
+    public static ParameterSweep ReadSweepFromFile(Path sweepFilePath) throws IOException {
+        return new ParameterSweep(SolverConfiguration.ReadPropertiesFromFile(sweepFilePath), sweepFilePath.toAbsolutePath().getParent());
+    }
+
+    private ParameterSweep(Properties sweepProperties, Path sweepDir) {
+        this.sweepProperties = sweepProperties;
+        this.scenariosDirPartialPaths = new ArrayList<>();
+        for (String scenariosDirPartialPath : ParameterSweep.splitValues(sweepProperties.getProperty("scenarios", "")))
+            scenariosDirPartialPaths.add(scenariosDirPartialPath.replace('/', '\\'));
+        this.solverNames = ParameterSweep.splitValues(sweepProperties.getProperty("solvers", geneticAlgorithmSolverName + valueSeparator + simulatedAnnealingSolverName));
+        this.repetitions = Integer.parseInt(sweepProperties.getProperty("repetitions", "1").trim());
+        this.numberOfThreads = Integer.parseInt(sweepProperties.getProperty("numberOfThreads", String.valueOf(Runtime.getRuntime().availableProcessors())).trim());
+        this.numberOfRandomSamples = Integer.parseInt(sweepProperties.getProperty("numberOfRandomSamples", "0").trim());
+        this.randomSeed = Long.parseLong(sweepProperties.getProperty("randomSeed", "1").trim());
+        this.resultsFilePath = sweepDir.resolve(sweepProperties.getProperty("resultsFile", "sweep-results.csv").trim());
+        for (String key : new TreeSet<>(sweepProperties.stringPropertyNames())) {
+            if (key.startsWith(sweptParameterPrefix))
+                sweptParameters.put(key.substring(sweptParameterPrefix.length()), ParameterSweep.splitValues(sweepProperties.getProperty(key)).toArray(new String[0]));
+        }
+
+        if (scenariosDirPartialPaths.isEmpty())
+            throw new IllegalArgumentException("The sweep has no scenarios");
+        for (String solverName : solverNames) {
+            if (!solverName.equals(geneticAlgorithmSolverName) && !solverName.equals(simulatedAnnealingSolverName))
+                throw new IllegalArgumentException("Unknown solver " + solverName + " (" + geneticAlgorithmSolverName + " or " + simulatedAnnealingSolverName + ")");
+        }
+        if (repetitions < 1 || numberOfThreads < 1 || numberOfRandomSamples < 0)
+            throw new IllegalArgumentException("repetitions and numberOfThreads must be at least 1, numberOfRandomSamples at least 0");
+        for (Map.Entry<String, String[]> sweptParameter : sweptParameters.entrySet()) {
+            if (sweptParameter.getValue().length == 0)
+                throw new IllegalArgumentException("No values for " + sweptParameterPrefix + sweptParameter.getKey());
+            for (String value : sweptParameter.getValue()) {
+                if (numberOfRandomSamples == 0 && value.contains(rangeSeparator))
+                    throw new IllegalArgumentException("Ranges (" + value + ") are only for random searches (numberOfRandomSamples > 0)");
+            }
+        }
+    }
+
+    public Path getResultsFilePath() {
+        return resultsFilePath;
+    }
+
+    /**
+     * The values of the swept parameters of each configuration to run: every combination, or numberOfRandomSamples random ones
+     */
+    public List<Map<String, String>> makeSweptValues() {
+        List<Map<String, String>> sweptValuesList = new ArrayList<>();
+        List<String> sweptParameterNames = new ArrayList<>(sweptParameters.keySet());
+        if (numberOfRandomSamples > 0) {
+            //Random search, each parameter takes one of its values (or a value of its range)
+            SplittableRandom random = new SplittableRandom(randomSeed);
+            for (int k = 0; k < numberOfRandomSamples; k++) {
+                Map<String, String> sweptValues = new LinkedHashMap<>();
+                for (String sweptParameterName : sweptParameterNames) {
+                    String[] values = sweptParameters.get(sweptParameterName);
+                    sweptValues.put(sweptParameterName, ParameterSweep.drawValue(values[random.nextInt(values.length)], random));
+                }
+                sweptValuesList.add(sweptValues);
+            }
+            return sweptValuesList;
+        }
+
+        //Grid, every combination (the last parameter changes first)
+        int[] valueIndexes = new int[sweptParameterNames.size()];
+        while (true) {
+            Map<String, String> sweptValues = new LinkedHashMap<>();
+            for (int p = 0; p < valueIndexes.length; p++)
+                sweptValues.put(sweptParameterNames.get(p), sweptParameters.get(sweptParameterNames.get(p))[valueIndexes[p]]);
+            sweptValuesList.add(sweptValues);
+            int p = valueIndexes.length - 1;
+            while (p >= 0 && ++valueIndexes[p] == sweptParameters.get(sweptParameterNames.get(p)).length)
+                valueIndexes[p--] = 0;
+            if (p < 0)
+                return sweptValuesList;
+        }
+    }
+
+    /**
+     * Makes the configuration of each swept values: the base one with the swept values on top
+     * Throws an IllegalArgumentException if a parameter or a value is not valid (before anything runs)
+     */
+    private List<SolverConfiguration> makeConfigurations(List<Map<String, String>> sweptValuesList) {
+        SolverConfiguration baseConfiguration = new SolverConfiguration();
+        baseConfiguration.ReadFromProperties(sweepProperties);
+        List<SolverConfiguration> configurations = new ArrayList<>();
+        for (Map<String, String> sweptValues : sweptValuesList) {
+            SolverConfiguration configuration = new SolverConfiguration(baseConfiguration);
+            Properties sweptProperties = new Properties();
+            sweptProperties.putAll(sweptValues);
+            configuration.ReadFromProperties(sweptProperties);
+            configuration.validate();
+            configurations.add(configuration);
+        }
+        return configurations;
+    }
+
+    /**
+     * Runs the sweep: loads the scenarios, runs every (scenario, configuration, solver, repetition) in numberOfThreads threads,
+     * and writes the results and the summary tables
+     * The messages of the solvers are not shown (they would get mixed), a line is printed when each run ends
+     */
+    public void run() throws Exception {
+        List<Map<String, String>> sweptValuesList = this.makeSweptValues();
+        List<SolverConfiguration> configurations = this.makeConfigurations(sweptValuesList);
+
+        //Loads all the scenarios
+        ProblemScenarios problemScenarios = new ProblemScenarios();
+        for (String scenariosDirPartialPath : scenariosDirPartialPaths)
+            problemScenarios.ReadScenariosFromDir(scenariosDirPartialPath);
+        List<ProblemScenario> scenarios = problemScenarios.getProblemScenarios();
+
+        System.out.println("\n#################################");
+        System.out.println("### -- The Parameter Sweep -- ###");
+        System.out.println("#################################");
+        System.out.println("Scenarios: " + scenarios.size() + "\t" + "Configurations: " + configurations.size() + "\t" + "Solvers: " + solverNames
+                + "\t" + "Repetitions: " + repetitions + "\t" + "Threads: " + numberOfThreads);
+        System.out.println("#################################");
+
+        //Makes every run, the repetitions of a scenario get the same seeds in every configuration and solver
+        RandomStreams sweepRandomStreams = new RandomStreams(randomSeed);
+        List<Callable<SweepResult>> sweepRuns = new ArrayList<>();
+        for (ProblemScenario problemScenario : scenarios) {
+            RandomStreams scenarioRandomStreams = sweepRandomStreams.forScenario(problemScenario);
+            long[] repetitionSeeds = new long[repetitions];
+            for (int r = 0; r < repetitions; r++)
+                repetitionSeeds[r] = scenarioRandomStreams.split().nextLong();
+            for (int c = 0; c < configurations.size(); c++) {
+                for (String solverName : solverNames) {
+                    for (int r = 0; r < repetitions; r++) {
+                        int configurationIndex = c;
+                        int repetition = r;
+                        sweepRuns.add(() -> ParameterSweep.runSolver(problemScenario, configurations.get(configurationIndex), configurationIndex, solverName,
+                                repetition, repetitionSeeds[repetition]));
+                    }
+                }
+            }
+        }
+
+        //Runs them, the solvers print to nowhere while they run
+        PrintStream console = System.out;
+        List<SweepResult> sweepResults = new ArrayList<>();
+        ExecutorService sweepExecutor = Executors.newFixedThreadPool(numberOfThreads);
+        long startTime = System.currentTimeMillis();
+        try {
+            CompletionService<SweepResult> sweepCompletionService = new ExecutorCompletionService<>(sweepExecutor);
+            List<Future<SweepResult>> sweepFutures = new ArrayList<>();
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            for (Callable<SweepResult> sweepRun : sweepRuns)
+                sweepFutures.add(sweepCompletionService.submit(sweepRun));
+            for (int k = 0; k < sweepRuns.size(); k++) {
+                SweepResult sweepResult = sweepCompletionService.take().get();
+                console.println("Run " + (k + 1) + "/" + sweepRuns.size() + ": " + sweepResult.problemScenario.getName()
+                        + "\t" + "Configuration: " + sweepResult.configurationIndex + "\t" + sweepResult.solverName
+                        + "\t" + "Cost: " + String.format("%.3f", sweepResult.solutionCost)
+                        + "\t" + "Gap: " + String.format("%.5f", ParameterSweep.calculateGap(sweepResult) * 100) + "%"
+                        + "\t" + "Time(ms): " + sweepResult.runDuration);
+            }
+            //Keeps the order of the runs in the tables
+            for (Future<SweepResult> sweepFuture : sweepFutures)
+                sweepResults.add(sweepFuture.get());
+        } finally {
+            System.setOut(console);
+            sweepExecutor.shutdownNow();
+        }
+
+        this.WriteResultsToFile(sweepResults, sweptValuesList);
+        this.WriteSummaryToFile(sweepResults, sweptValuesList);
+        System.out.println("CompilationTime(ms): " + (System.currentTimeMillis() - startTime) + " milliseconds");
+        System.out.println("Results: " + resultsFilePath + "\t" + "Summary: " + getSummaryFilePath());
+        System.out.println("#################################");
+    }
+
+    /**
+     * Runs a solver on a scenario with a configuration and a seed, returns its best cost and how long it took
+     */
+    private static SweepResult runSolver(ProblemScenario problemScenario, SolverConfiguration configuration, int configurationIndex, String solverName,
+                                         int repetition, long randomSeed) throws Exception {
+        long startTime = System.currentTimeMillis();
+        SplittableRandom solverRandom = new RandomStreams(randomSeed).split();
+        double solutionCost;
+        if (solverName.equals(geneticAlgorithmSolverName)) {
+            solutionCost = GeneticAlgorithmSolution.runEvolution(problemScenario, configuration.getGeneticAlgorithmParameters(),
+                    configuration.getTerminationPolicy(), solverRandom, false).getCurrentSolutionCost();
+        } else {
+            SimulatedAnnealingSolution simulatedAnnealingSolution = new SimulatedAnnealingSolution(problemScenario,
+                    configuration.getSimulatedAnnealingParameters(), solverRandom);
+            solutionCost = simulatedAnnealingSolution.run(configuration.getTerminationPolicy(), solverRandom, false).getCurrentSolutionCost();
+        }
+        return new SweepResult(problemScenario, configurationIndex, solverName, repetition, randomSeed, solutionCost, System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * (cost - optimal cost) / optimal cost, or (cost - lower bound) / lower bound when the optimal cost is unknown
+     */
+    private static double calculateGap(SweepResult sweepResult) {
+        ProblemScenario problemScenario = sweepResult.problemScenario;
+        double referenceCost = (problemScenario.getOptimalSolutionValue() >= 0) ? problemScenario.getOptimalSolutionValue() : problemScenario.getLowerBound();
+        return (sweepResult.solutionCost - referenceCost) / referenceCost;
+    }
+
+    /**
+     * Writes a row per run: scenario, configuration, swept values, solver, repetition, cost, reference cost, gap and time
+     */
+    private void WriteResultsToFile(List<SweepResult> sweepResults, List<Map<String, String>> sweptValuesList) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(resultsFilePath, StandardCharsets.UTF_8)) {
+            writer.write("scenario,configuration," + String.join(valueSeparator, sweptParameters.keySet()) + (sweptParameters.isEmpty() ? "" : valueSeparator)
+                    + "solver,repetition,seed,cost,referenceCost,referenceType,gap,timeMs");
+            writer.newLine();
+            for (SweepResult sweepResult : sweepResults) {
+                ProblemScenario problemScenario = sweepResult.problemScenario;
+                boolean optimalIsKnown = problemScenario.getOptimalSolutionValue() >= 0;
+                writer.write(problemScenario.getName() + valueSeparator + sweepResult.configurationIndex + valueSeparator
+                        + ParameterSweep.joinValues(sweptValuesList.get(sweepResult.configurationIndex))
+                        + sweepResult.solverName + valueSeparator + sweepResult.repetition + valueSeparator + sweepResult.randomSeed + valueSeparator
+                        + String.format(Locale.ROOT, "%.3f", sweepResult.solutionCost) + valueSeparator
+                        + String.format(Locale.ROOT, "%.3f", optimalIsKnown ? problemScenario.getOptimalSolutionValue() : problemScenario.getLowerBound()) + valueSeparator
+                        + (optimalIsKnown ? "optimal" : "lowerBound") + valueSeparator
+                        + String.format(Locale.ROOT, "%.7f", ParameterSweep.calculateGap(sweepResult)) + valueSeparator
+                        + sweepResult.runDuration);
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Writes a row per configuration and solver: averages over all the scenarios and repetitions (gap, time) and how many runs got the optimal cost
+     */
+    private void WriteSummaryToFile(List<SweepResult> sweepResults, List<Map<String, String>> sweptValuesList) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(getSummaryFilePath(), StandardCharsets.UTF_8)) {
+            writer.write("configuration," + String.join(valueSeparator, sweptParameters.keySet()) + (sweptParameters.isEmpty() ? "" : valueSeparator)
+                    + "solver,runs,averageGap,maxGap,optimalRuns,averageTimeMs");
+            writer.newLine();
+            for (int c = 0; c < sweptValuesList.size(); c++) {
+                for (String solverName : solverNames) {
+                    int numberOfRuns = 0;
+                    int numberOfOptimalRuns = 0;
+                    double gapSum = 0;
+                    double maxGap = Double.NEGATIVE_INFINITY;
+                    long runDurationSum = 0;
+                    for (SweepResult sweepResult : sweepResults) {
+                        if (sweepResult.configurationIndex != c || !sweepResult.solverName.equals(solverName))
+                            continue;
+                        double gap = ParameterSweep.calculateGap(sweepResult);
+                        numberOfRuns++;
+                        gapSum += gap;
+                        maxGap = Math.max(maxGap, gap);
+                        runDurationSum += sweepResult.runDuration;
+                        if (sweepResult.problemScenario.isOptimalSolutionCost(sweepResult.solutionCost))
+                            numberOfOptimalRuns++;
+                    }
+                    if (numberOfRuns == 0)
+                        continue;
+                    writer.write(c + valueSeparator + ParameterSweep.joinValues(sweptValuesList.get(c)) + solverName + valueSeparator + numberOfRuns + valueSeparator
+                            + String.format(Locale.ROOT, "%.7f", gapSum / numberOfRuns) + valueSeparator
+                            + String.format(Locale.ROOT, "%.7f", maxGap) + valueSeparator
+                            + numberOfOptimalRuns + valueSeparator
+                            + String.format(Locale.ROOT, "%.1f", (double) runDurationSum / numberOfRuns));
+                    writer.newLine();
+                }
+            }
+        }
+    }
+
+    private Path getSummaryFilePath() {
+        String resultsFileName = resultsFilePath.getFileName().toString();
+        int extensionIndex = resultsFileName.lastIndexOf('.');
+        String summaryFileName = (extensionIndex < 0) ? resultsFileName + "-summary" : resultsFileName.substring(0, extensionIndex) + "-summary" + resultsFileName.substring(extensionIndex);
+        return resultsFilePath.resolveSibling(summaryFileName);
+    }
+
+    /**
+     * A value of a random search: the value itself, or a uniform value of a range (min..max)
+     */
+    private static String drawValue(String value, SplittableRandom random) {
+        int rangeSeparatorIndex = value.indexOf(rangeSeparator);
+        if (rangeSeparatorIndex < 0)
+            return value;
+        String minimumValue = value.substring(0, rangeSeparatorIndex).trim();
+        String maximumValue = value.substring(rangeSeparatorIndex + rangeSeparator.length()).trim();
+        try {
+            long minimum = Long.parseLong(minimumValue);
+            long maximum = Long.parseLong(maximumValue);
+            return String.valueOf(random.nextLong(minimum, maximum + 1));
+        } catch (NumberFormatException e) {
+            //Not integers, a real value of the range
+            double minimum = Double.parseDouble(minimumValue);
+            double maximum = Double.parseDouble(maximumValue);
+            return String.valueOf(minimum + (maximum - minimum) * random.nextDouble());
+        }
+    }
+
+    private static String joinValues(Map<String, String> sweptValues) {
+        StringBuilder joinedValues = new StringBuilder();
+        for (String value : sweptValues.values())
+            joinedValues.append(value).append(valueSeparator);
+        return joinedValues.toString();
+    }
+
+    private static List<String> splitValues(String values) {
+        List<String> splitValues = new ArrayList<>();
+        for (String value : values.split(valueSeparator)) {
+            if (!value.isBlank())
+                splitValues.add(value.trim());
+        }
+        return splitValues;
+    }
+}
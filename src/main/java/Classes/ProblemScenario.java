@@ -4,8 +4,11 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 public class ProblemScenario {
 
@@ -14,18 +17,35 @@ public class ProblemScenario {
     private Customer[] customers;
     private double optimalSolutionValue;
 
+    private int numberOfWarehouseLocations;
+    private int numberOfCustomers;
+    private double[] fixedCosts; // i from warehouse, fixed cost
+    private double[] allocationCosts; // row major, [j * numberOfWarehouseLocations + i] = cost of allocating customer j to warehouse i
+    private int[] sortedWarehousePreferences; // row major, [j * numberOfWarehouseLocations + k] = k-th cheapest warehouse i of customer j
+    private volatile double lowerBound = Double.NaN; // Lagrangian lower bound of the cost, calculated the first time it is needed
+
     //Constructor to make deep copy
     public ProblemScenario(ProblemScenario problemScenarioToDeepCopy) {
         this.name = problemScenarioToDeepCopy.getName();
-        //Make deep copy of warehouseLocations
-        this.warehouseLocations = new WarehouseLocation[problemScenarioToDeepCopy.getWarehouseLocations().length];
-        for (int i = 0; i < problemScenarioToDeepCopy.getWarehouseLocations().length; i++) {
-            this.warehouseLocations[i] = new WarehouseLocation(problemScenarioToDeepCopy.getWarehouseLocations()[i]);
+        this.optimalSolutionValue = problemScenarioToDeepCopy.getOptimalSolutionValue();
+        this.numberOfWarehouseLocations = problemScenarioToDeepCopy.getNumberOfWarehouseLocations();
+        this.numberOfCustomers = problemScenarioToDeepCopy.getNumberOfCustomers();
+        //Make deep copy of the cost arrays
+        this.fixedCosts = problemScenarioToDeepCopy.getFixedCosts().clone();
+        this.allocationCosts = problemScenarioToDeepCopy.getAllocationCosts().clone();
+        this.sortedWarehousePreferences = problemScenarioToDeepCopy.getSortedWarehousePreferences().clone();
+        this.lowerBound = problemScenarioToDeepCopy.lowerBound;
+        //Make deep copy of warehouseLocations (as views of the copied arrays)
+        this.warehouseLocations = new WarehouseLocation[this.numberOfWarehouseLocations];
+        for (int i = 0; i < this.numberOfWarehouseLocations; i++) {
+            WarehouseLocation warehouseLocationToDeepCopy = problemScenarioToDeepCopy.getWarehouseLocations()[i];
+            this.warehouseLocations[i] = new WarehouseLocation(i, warehouseLocationToDeepCopy.getCapacity(), this.fixedCosts);
         }
-        //Make deep copy of customers
-        this.customers = new Customer[problemScenarioToDeepCopy.getCustomers().length];
-        for (int i = 0; i < problemScenarioToDeepCopy.getCustomers().length; i++) {
-            this.customers[i] = new Customer(problemScenarioToDeepCopy.getCustomers()[i]);
+        //Make deep copy of customers (as views of the copied arrays)
+        this.customers = new Customer[this.numberOfCustomers];
+        for (int j = 0; j < this.numberOfCustomers; j++) {
+            Customer customerToDeepCopy = problemScenarioToDeepCopy.getCustomers()[j];
+            this.customers[j] = new Customer(j, customerToDeepCopy.getDemand(), this.allocationCosts, this.numberOfWarehouseLocations);
         }
     }
 
@@ -58,6 +78,72 @@ public class ProblemScenario {
         this.customers[customerJ] = customer;
     }
 
+    /**
+     * Builds the fixedCosts and allocationCosts arrays from the warehouseLocations and customers objects
+     * Only needed when the scenario is built by hand with addWarehouseLocation and addCustomer
+     */
+    public void buildCostArrays() {
+        this.numberOfWarehouseLocations = this.warehouseLocations.length;
+        this.numberOfCustomers = this.customers.length;
+        this.fixedCosts = new double[this.numberOfWarehouseLocations];
+        this.allocationCosts = new double[this.numberOfCustomers * this.numberOfWarehouseLocations];
+        this.lowerBound = Double.NaN; //the costs changed
+        for (int i = 0; i < this.numberOfWarehouseLocations; i++)
+            this.fixedCosts[i] = this.warehouseLocations[i].getFixedCost();
+        for (int j = 0; j < this.numberOfCustomers; j++) {
+            for (int i = 0; i < this.numberOfWarehouseLocations; i++) {
+                Double costOfAllocation = this.customers[j].getCostOfAllocation().get(i);
+                this.allocationCosts[j * this.numberOfWarehouseLocations + i] = (costOfAllocation == null) ? Double.POSITIVE_INFINITY : costOfAllocation;
+            }
+        }
+        this.buildSortedWarehousePreferences();
+    }
+
+    /**
+     * Replaces the data of the scenario with the given arrays (kept, not copied) and builds the warehouse and customer views of them
+     * If sortedWarehousePreferences is null it is built from the costs
+     */
+    void setScenarioData(int[] capacities, double[] fixedCosts, int[] demands, double[] allocationCosts, int[] sortedWarehousePreferences) {
+        this.numberOfWarehouseLocations = fixedCosts.length;
+        this.numberOfCustomers = demands.length;
+        this.fixedCosts = fixedCosts;
+        this.allocationCosts = allocationCosts;
+        this.lowerBound = Double.NaN; //the costs changed
+        this.warehouseLocations = new WarehouseLocation[this.numberOfWarehouseLocations];
+        for (int i = 0; i < this.numberOfWarehouseLocations; i++)
+            this.warehouseLocations[i] = new WarehouseLocation(i, capacities[i], this.fixedCosts);
+        this.customers = new Customer[this.numberOfCustomers];
+        for (int j = 0; j < this.numberOfCustomers; j++)
+            this.customers[j] = new Customer(j, demands[j], this.allocationCosts, this.numberOfWarehouseLocations);
+        if (sortedWarehousePreferences == null)
+            this.buildSortedWarehousePreferences();
+        else
+            this.sortedWarehousePreferences = sortedWarehousePreferences;
+    }
+
+    /**
+     * Builds, for each customer, the list of warehouses sorted by cost of allocation (cheapest first)
+     * Done once after loading, each customer is sorted in parallel
+     * Ties keep the lowest warehouse i first
+     */
+    private void buildSortedWarehousePreferences() {
+        int numberOfWarehouseLocations = this.numberOfWarehouseLocations;
+        double[] allocationCosts = this.allocationCosts;
+        int[] sortedWarehousePreferences = new int[this.numberOfCustomers * numberOfWarehouseLocations];
+        IntStream.range(0, this.numberOfCustomers).parallel().forEach(j -> {
+            int rowOffset = j * numberOfWarehouseLocations;
+            //Sort the warehouses of this customer by their cost of allocation
+            Integer[] warehouses = new Integer[numberOfWarehouseLocations];
+            for (int i = 0; i < numberOfWarehouseLocations; i++)
+                warehouses[i] = i;
+            Arrays.sort(warehouses, Comparator.comparingDouble(i -> allocationCosts[rowOffset + i]));
+            //Store them in the customer row
+            for (int k = 0; k < numberOfWarehouseLocations; k++)
+                sortedWarehousePreferences[rowOffset + k] = warehouses[k];
+        });
+        this.sortedWarehousePreferences = sortedWarehousePreferences;
+    }
+
     public String getName() {
         return name;
     }
@@ -66,6 +152,34 @@ public class ProblemScenario {
         return optimalSolutionValue;
     }
 
+    /**
+     * True if the cost is the optimal one, rounded to 2 decimal cases (same check as comparing the String.format("%.2f") ones, without the Strings)
+     */
+    public boolean isOptimalSolutionCost(double solutionCost) {
+        return Math.round(solutionCost * 100) == Math.round(optimalSolutionValue * 100);
+    }
+
+    /**
+     * No solution of this scenario costs less than this (Lagrangian relaxation, calculated the first time and then kept)
+     */
+    public double getLowerBound() {
+        if (Double.isNaN(lowerBound)) {
+            synchronized (this) {
+                if (Double.isNaN(lowerBound))
+                    lowerBound = LagrangianRelaxationSolution.calculateLowerBound(this);
+            }
+        }
+        return lowerBound;
+    }
+
+    /**
+     * (cost - lower bound) / cost: the most a solution with this cost can be above the optimal one
+     * Useful when the optimal solution is unknown (-1)
+     */
+    public double calculateLowerBoundGap(double solutionCost) {
+        return (solutionCost - getLowerBound()) / solutionCost;
+    }
+
     public WarehouseLocation[] getWarehouseLocations() {
         return warehouseLocations;
     }
@@ -74,10 +188,172 @@ public class ProblemScenario {
         return customers;
     }
 
+    public int getNumberOfWarehouseLocations() {
+        return numberOfWarehouseLocations;
+    }
+
+    public int getNumberOfCustomers() {
+        return numberOfCustomers;
+    }
+
+    /**
+     * Fixed cost of each warehouse, indexed by warehouse i
+     * The array is shared, don't change it
+     */
+    public double[] getFixedCosts() {
+        return fixedCosts;
+    }
+
+    /**
+     * Customer by warehouse cost matrix in row major order: [j * numberOfWarehouseLocations + i]
+     * The array is shared, don't change it
+     */
+    public double[] getAllocationCosts() {
+        return allocationCosts;
+    }
+
+    /**
+     * For each customer, its warehouses sorted by cost of allocation in row major order: [j * numberOfWarehouseLocations + k]
+     * The array is shared, don't change it
+     */
+    public int[] getSortedWarehousePreferences() {
+        return sortedWarehousePreferences;
+    }
+
+    public double getAllocationCost(int customerJ, int warehouseLocationI) {
+        return allocationCosts[customerJ * numberOfWarehouseLocations + warehouseLocationI];
+    }
+
+    /**
+     * Calculates the total cost of a solution array (1 = warehouse open, 0 = warehouse closed)
+     * Sum of the fixed costs of the open warehouses plus, for each customer, the cost of the cheapest open warehouse
+     * If all the warehouses are closed the cost is a very large number (POSITIVE_INFINITY)
+     * Doesn't change any state, so it can be called from several threads at once
+     */
+    public double calculateTotalCost(int[] solutionArray) {
+        double totalCost = 0;
+        int numberOfOpenWarehouses = 0;
+        //For each open warehouse, add the fixed cost
+        for (int i = 0; i < numberOfWarehouseLocations; i++) {
+            if (solutionArray[i] == 1) {
+                totalCost += fixedCosts[i];
+                numberOfOpenWarehouses++;
+            }
+        }
+        //If all the warehouses are closed, then make the cost a very large number
+        if (numberOfOpenWarehouses == 0)
+            return Double.POSITIVE_INFINITY;
+
+        //For each customer, add the costOfAllocation of the nearest opened warehouse
+        for (int j = 0; j < numberOfCustomers; j++) {
+            int rowOffset = j * numberOfWarehouseLocations;
+            // Go through the warehouses sorted by cost until we find the first opened one
+            int k = rowOffset;
+            while (solutionArray[sortedWarehousePreferences[k]] != 1)
+                k++;
+            totalCost += allocationCosts[rowOffset + sortedWarehousePreferences[k]];
+        }
+        return totalCost;
+    }
+
+    /**
+     * Calculates the total cost of a packed solution (bit i = 1 if the warehouse i is open)
+     * Same as calculateTotalCost(int[]), can be called from several threads at once
+     */
+    public double calculateTotalCost(BitSolution solution) {
+        //If all the warehouses are closed, then make the cost a very large number
+        if (solution.countOpenWarehouses() == 0)
+            return Double.POSITIVE_INFINITY;
+
+        double totalCost = 0;
+        //For each open warehouse (each 1 bit of each word), add the fixed cost
+        long[] words = solution.getWords();
+        for (int w = 0; w < words.length; w++) {
+            long word = words[w];
+            while (word != 0) {
+                totalCost += fixedCosts[(w << 6) + Long.numberOfTrailingZeros(word)];
+                word &= word - 1;
+            }
+        }
+
+        //For each customer, add the costOfAllocation of the nearest opened warehouse
+        for (int j = 0; j < numberOfCustomers; j++) {
+            int rowOffset = j * numberOfWarehouseLocations;
+            // Go through the warehouses sorted by cost until we find the first opened one
+            int k = rowOffset;
+            while (!solution.isOpen(sortedWarehousePreferences[k]))
+                k++;
+            totalCost += allocationCosts[rowOffset + sortedWarehousePreferences[k]];
+        }
+        return totalCost;
+    }
+
     /**
      * I want to read all the data about this scenario from a file
+     * The numbers are read one after the other straight from the bytes of the file (ScenarioFileTokenizer), by their position:
+     * numberOfWarehouseLocations numberOfCustomers, then capacity and fixed cost of each warehouse,
+     * then for each customer its demand followed by the cost of allocating it to each warehouse
      */
     public void ReadScenarioFromFile(Path problemScenarioFilePath) {
+        System.out.println("Reading: " + problemScenarioFilePath);
+        try (ScenarioFileTokenizer tokenizer = new ScenarioFileTokenizer(problemScenarioFilePath)) {
+            //Get the number of warehouses and customers and use them to make the arrays
+            this.numberOfWarehouseLocations = tokenizer.nextInt();
+            this.numberOfCustomers = tokenizer.nextInt();
+            warehouseLocations = new WarehouseLocation[numberOfWarehouseLocations];
+            customers = new Customer[numberOfCustomers];
+            fixedCosts = new double[numberOfWarehouseLocations];
+            allocationCosts = new double[numberOfCustomers * numberOfWarehouseLocations];
+
+            //Capacity and fixed cost of each warehouse (and a warehouse view of it)
+            for (int i = 0; i < numberOfWarehouseLocations; i++) {
+                int warehouseCapacity = tokenizer.nextInt();
+                fixedCosts[i] = tokenizer.nextDouble();
+                warehouseLocations[i] = new WarehouseLocation(i, warehouseCapacity, fixedCosts);
+            }
+
+            //Demand of each customer (and a customer view of its row) followed by its costs of allocation
+            for (int j = 0; j < numberOfCustomers; j++) {
+                int demand = tokenizer.nextInt();
+                customers[j] = new Customer(j, demand, allocationCosts, numberOfWarehouseLocations);
+                int rowOffset = j * numberOfWarehouseLocations;
+                for (int i = 0; i < numberOfWarehouseLocations; i++)
+                    allocationCosts[rowOffset + i] = tokenizer.nextDouble();
+            }
+            Logger.WriteMessage("Read " + name + ": NumberOfWarehouseLocations: " + numberOfWarehouseLocations + "\t" + "NumberOfCustomers: " + numberOfCustomers);
+
+            //All the costs are loaded, build the preference index used to evaluate solutions
+            this.buildSortedWarehousePreferences();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * I want to read all the data about this scenario from a file, through its binary cache (ScenarioBinaryCache)
+     * If the cache is missing, old (the text file changed) or broken, the text file is read and the cache is made again
+     */
+    public void ReadScenarioFromFileWithBinaryCache(Path problemScenarioFilePath) {
+        if (ScenarioBinaryCache.read(problemScenarioFilePath, this)) {
+            System.out.println("Reading: " + problemScenarioFilePath + " (binary cache)");
+            return;
+        }
+        this.ReadScenarioFromFile(problemScenarioFilePath);
+        //Only cache scenarios that were read completely
+        if (this.sortedWarehousePreferences == null)
+            return;
+        try {
+            ScenarioBinaryCache.write(problemScenarioFilePath, this);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * I want to read all the data about this scenario from a file, line by line (the original parser)
+     * Slower than ReadScenarioFromFile (a String per line and per number), but it can also log every warehouse and customer (Logger.Level.PARSING)
+     */
+    public void ReadScenarioFromFileLineByLine(Path problemScenarioFilePath) {
         System.out.println("Reading: " + problemScenarioFilePath);
         try {
             // Read all lines from the file
@@ -109,8 +385,12 @@ public class ProblemScenario {
                         numberOfWarehouseLocations = Integer.parseInt(lineParts[0]);
                         numberOfCustomers = Integer.parseInt(lineParts[lineParts.length - 1]);
                         //Use those numbers to update the size of the arrays
+                        this.numberOfWarehouseLocations = numberOfWarehouseLocations;
+                        this.numberOfCustomers = numberOfCustomers;
                         warehouseLocations = new WarehouseLocation[numberOfWarehouseLocations];
                         customers = new Customer[numberOfCustomers];
+                        fixedCosts = new double[numberOfWarehouseLocations];
+                        allocationCosts = new double[numberOfCustomers * numberOfWarehouseLocations];
                         //Logger.WriteMessage("NumberOfWarehouseLocations: " + numberOfWarehouseLocations + "\t" + "NumberOfCostumers: " + numberOfCustomers);
                         break;
                     }
@@ -121,10 +401,12 @@ public class ProblemScenario {
                             String[] lineParts = scenarioData.get(i).trim().split("\\s+");
                             int warehouseCapacity = Integer.parseInt(lineParts[0]);
                             double warehouseFixedCost = Double.parseDouble(lineParts[lineParts.length - 1]);
-                            //Store warehouse
-                            WarehouseLocation newWarehouseLocation = new WarehouseLocation(i - 1, warehouseCapacity, warehouseFixedCost);
+                            //Store the fixed cost and a warehouse view of it
+                            fixedCosts[i - 1] = warehouseFixedCost;
+                            WarehouseLocation newWarehouseLocation = new WarehouseLocation(i - 1, warehouseCapacity, fixedCosts);
                             this.warehouseLocations[i - 1] = newWarehouseLocation;
-                            Logger.WriteMessage(newWarehouseLocation.toString());
+                            if (Logger.isEnabled(Logger.Level.PARSING))
+                                Logger.WriteMessage(Logger.Level.PARSING, newWarehouseLocation.toString());
                             break;
                         } else {
                             //Get info about costumers
@@ -133,19 +415,22 @@ public class ProblemScenario {
                             // Check if the first part is an integer (likely demand)
                             try {
                                 int demand = Integer.parseInt(parts[0]);
-                                //If so, create a new customer
+                                //If so, create a new customer (a view of its row in the allocationCosts array)
                                 currentCustomerIndex++;
                                 currentWarehouseIndex = -1;
-                                Customer newCustomer = new Customer(currentCustomerIndex, demand);
+                                Customer newCustomer = new Customer(currentCustomerIndex, demand, allocationCosts, numberOfWarehouseLocations);
                                 //Store it in the array
                                 customers[currentCustomerIndex] = newCustomer;
-                                Logger.WriteMessage(newCustomer.toString());
+                                //The costs of allocation come in the next lines, so only log the customer number and demand
+                                if (Logger.isEnabled(Logger.Level.PARSING))
+                                    Logger.WriteMessage(Logger.Level.PARSING, "Customer{j=" + currentCustomerIndex + ", demand=" + demand + "}");
                             } catch (NumberFormatException e) {
                                 // Not an integer, consider it as a cost line
+                                int rowOffset = currentCustomerIndex * numberOfWarehouseLocations;
                                 for (String cost : parts) {
                                     currentWarehouseIndex++;
 
-                                    customers[currentCustomerIndex].addCostOfAllocation(currentWarehouseIndex, Double.parseDouble(cost));
+                                    allocationCosts[rowOffset + currentWarehouseIndex] = Double.parseDouble(cost);
                                     //Logger.WriteMessage("warehouseLocationI: " + currentWarehouseIndex + "\t" + "costOfAllocation: " + cost);
                                 }
                             }
@@ -153,6 +438,8 @@ public class ProblemScenario {
                     }
                 }
             }
+            //All the costs are loaded, build the preference index used to evaluate solutions
+            this.buildSortedWarehousePreferences();
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -5,14 +5,19 @@ import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class ProblemScenarios {
 
+    private final static int defaultNumberOfLoaderThreads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    private final static Pattern optimalSolutionValuePattern = Pattern.compile("[-+]?\\d+(\\.\\d*)?");
+
     private ArrayList<ProblemScenario> problemScenarios;
+    private boolean useBinaryCache = false; //read the scenarios through their binary cache files (ScenarioBinaryCache)
 
     public ProblemScenarios() {
         problemScenarios = new ArrayList<>();
@@ -22,11 +27,89 @@ public class ProblemScenarios {
         return problemScenarios;
     }
 
+    public boolean isUseBinaryCache() {
+        return useBinaryCache;
+    }
+
+    public void setUseBinaryCache(boolean useBinaryCache) {
+        this.useBinaryCache = useBinaryCache;
+    }
+
     /**
-     * I want to read all the problem scenarios in a directory and store them in the array
+     * I want to read all the problem scenarios in a directory and store them in the array (in the files.lst order)
+     * The scenarios are loaded at the same time by defaultNumberOfLoaderThreads threads
      * @param problemScenariosDirPartialPath
      */
     public void ReadScenariosFromDir(String problemScenariosDirPartialPath){
+        //Wait for all of them, so they can be stored in the files.lst order
+        ProblemScenario[] loadedProblemScenarios = new ProblemScenario[0];
+        List<Callable<ProblemScenario>> scenarioLoads = this.makeScenarioLoads(problemScenariosDirPartialPath);
+        ExecutorService loaderExecutor = ProblemScenarios.newLoaderExecutor(defaultNumberOfLoaderThreads);
+        try {
+            List<Future<ProblemScenario>> loadResults = loaderExecutor.invokeAll(scenarioLoads);
+            loadedProblemScenarios = new ProblemScenario[loadResults.size()];
+            for (int k = 0; k < loadResults.size(); k++)
+                loadedProblemScenarios[k] = ProblemScenarios.getLoadedScenario(loadResults.get(k));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while loading the scenarios of " + problemScenariosDirPartialPath, e);
+        } finally {
+            loaderExecutor.shutdown();
+        }
+        //Store them in the list
+        this.problemScenarios.addAll(List.of(loadedProblemScenarios));
+    }
+
+    /**
+     * I want to read all the problem scenarios in a directory and get each one as soon as it is loaded
+     * The scenarios are loaded at the same time by numberOfLoaderThreads threads, the stream gives them in the order they finish
+     * (so the first one can be solved while the others are still loading), and each one is also stored in the array when the stream gives it
+     * The stream is meant to be used by a single thread
+     */
+    public Stream<ProblemScenario> StreamScenariosFromDir(String problemScenariosDirPartialPath, int numberOfLoaderThreads) {
+        List<Callable<ProblemScenario>> scenarioLoads = this.makeScenarioLoads(problemScenariosDirPartialPath);
+        if (scenarioLoads.isEmpty())
+            return Stream.empty();
+
+        //Start loading all of them
+        ExecutorService loaderExecutor = ProblemScenarios.newLoaderExecutor(numberOfLoaderThreads);
+        CompletionService<ProblemScenario> loadCompletionService = new ExecutorCompletionService<>(loaderExecutor);
+        for (Callable<ProblemScenario> scenarioLoad : scenarioLoads)
+            loadCompletionService.submit(scenarioLoad);
+        //The submitted loads still run, the threads end after the last one
+        loaderExecutor.shutdown();
+
+        //Each next() waits for the next scenario that finishes loading
+        Iterator<ProblemScenario> loadedProblemScenarios = new Iterator<>() {
+            private int numberOfScenariosToTake = scenarioLoads.size();
+
+            @Override
+            public boolean hasNext() {
+                return numberOfScenariosToTake > 0;
+            }
+
+            @Override
+            public ProblemScenario next() {
+                if (numberOfScenariosToTake == 0)
+                    throw new NoSuchElementException();
+                try {
+                    ProblemScenario problemScenario = ProblemScenarios.getLoadedScenario(loadCompletionService.take());
+                    numberOfScenariosToTake--;
+                    problemScenarios.add(problemScenario);
+                    return problemScenario;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while loading the scenarios of " + problemScenariosDirPartialPath, e);
+                }
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliterator(loadedProblemScenarios, scenarioLoads.size(), Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Makes a load task for each scenario in the files.lst of the directory (each with its optimal value from optimal.txt)
+     */
+    private List<Callable<ProblemScenario>> makeScenarioLoads(String problemScenariosDirPartialPath) {
 
         // Get the user's project directory
         String projectDir = System.getProperty("user.dir");
@@ -44,44 +127,88 @@ public class ProblemScenarios {
         System.out.println(optimalSolutionsFilePath.toString());
         System.out.println(scenariosFilePath.toString());
 
-
+        List<Callable<ProblemScenario>> scenarioLoads = new ArrayList<>();
         try {
             // Read all scenarios from the scenariosFilePath
             List<String> scenarioFileNames = Files.readAllLines(scenariosFilePath);
 
-            // Read all optimalSolutions from the optimalSolutionsFilePath
-            List<String> optimalSolutions = Files.readAllLines(optimalSolutionsFilePath, Charset.forName("Windows-1252"));
+            // Read all optimalSolutions from the optimalSolutionsFilePath (once, for all the scenarios)
+            Map<String, Double> optimalSolutions = ProblemScenarios.ReadOptimalSolutionsFromFile(optimalSolutionsFilePath);
 
             // For each scenarioFile
             for (String scenarioFileName : scenarioFileNames) {
+                if (scenarioFileName.isBlank())
+                    continue;
                 Logger.WriteMessage("fileName:" + scenarioFileName);
 
-
-                //Get the optimal solution
-                double optimalSolution = -1;
-                for(String optSolLine : optimalSolutions){
-                    //Split the line
-                    String[] parts = optSolLine.trim().split("\\s+");
-                    //If the part 0 is equal to the name
-                    if ((parts[0]+".txt").equalsIgnoreCase(scenarioFileName)){
-                        //then part 1 is the optimal value
-                        optimalSolution = Double.parseDouble(parts[parts.length-1]);
-                        Logger.WriteMessage("Optimal Solution: " + optimalSolution);
-                        break;
-                    }
-                }
-
-                //Create a ProblemScenario
-                ProblemScenario problemScenario = new ProblemScenario(scenarioFileName, optimalSolution);
-                //Read the info from that problemScenario
-                problemScenario.ReadScenarioFromFile(Paths.get(problemScenariosDirCompletePath + scenarioFileName));
-                //Store problemScenario in the list
-                this.problemScenarios.add(problemScenario);
+                //Get the optimal solution (-1 if it is unknown)
+                double optimalSolution = optimalSolutions.getOrDefault(ProblemScenarios.getOptimalSolutionKey(scenarioFileName), -1.0);
+                Logger.WriteMessage("Optimal Solution: " + optimalSolution);
+
+                Path problemScenarioFilePath = Paths.get(problemScenariosDirCompletePath + scenarioFileName);
+                scenarioLoads.add(() -> {
+                    //Create a ProblemScenario
+                    ProblemScenario problemScenario = new ProblemScenario(scenarioFileName, optimalSolution);
+                    //Read the info from that problemScenario
+                    if (useBinaryCache)
+                        problemScenario.ReadScenarioFromFileWithBinaryCache(problemScenarioFilePath);
+                    else
+                        problemScenario.ReadScenarioFromFile(problemScenarioFilePath);
+                    return problemScenario;
+                });
             }
         } catch (IOException e) {
             e.printStackTrace();
         }
+        return scenarioLoads;
+    }
+
+    /**
+     * Reads the optimal values file into a map: name of the scenario in lower case (without .txt) to its optimal value
+     * Lines that are not "name value" (like the titles) are skipped, if a name appears more than once the first value is kept
+     */
+    public static Map<String, Double> ReadOptimalSolutionsFromFile(Path optimalSolutionsFilePath) throws IOException {
+        Map<String, Double> optimalSolutions = new HashMap<>();
+        for (String optSolLine : Files.readAllLines(optimalSolutionsFilePath, Charset.forName("Windows-1252"))) {
+            //Split the line
+            String[] parts = optSolLine.trim().split("\\s+");
+            //Part 0 is the name and the last part is the optimal value
+            if (parts.length < 2 || !optimalSolutionValuePattern.matcher(parts[parts.length - 1]).matches())
+                continue;
+            optimalSolutions.putIfAbsent(parts[0].toLowerCase(Locale.ROOT), Double.parseDouble(parts[parts.length - 1]));
+        }
+        return optimalSolutions;
+    }
+
+    /**
+     * Key of a scenario file in the map of ReadOptimalSolutionsFromFile (cap71.txt -> cap71)
+     */
+    private static String getOptimalSolutionKey(String scenarioFileName) {
+        String optimalSolutionKey = scenarioFileName.trim().toLowerCase(Locale.ROOT);
+        if (optimalSolutionKey.endsWith(".txt"))
+            optimalSolutionKey = optimalSolutionKey.substring(0, optimalSolutionKey.length() - ".txt".length());
+        return optimalSolutionKey;
     }
 
+    /**
+     * Fixed pool of daemon threads for the loads (they don't keep the program running)
+     */
+    private static ExecutorService newLoaderExecutor(int numberOfLoaderThreads) {
+        return Executors.newFixedThreadPool(Math.max(1, numberOfLoaderThreads), runnable -> {
+            Thread loaderThread = new Thread(runnable, "ScenarioLoader");
+            loaderThread.setDaemon(true);
+            return loaderThread;
+        });
+    }
 
+    /**
+     * Result of a finished load (the errors of the load are thrown again)
+     */
+    private static ProblemScenario getLoadedScenario(Future<ProblemScenario> loadResult) throws InterruptedException {
+        try {
+            return loadResult.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Could not load a scenario", e.getCause());
+        }
+    }
 }
@@ -0,0 +1,79 @@
+package Classes;
+
+import java.util.SplittableRandom;
+
+/**
+ * The random numbers of a run, all of them made from a single seed (so a seed and a configuration reproduce the same run)
+ * The seed makes a root SplittableRandom that is split into an independent stream for each solver, thread, chain or replica,
+ * each stream is used by a single thread: no shared seed to fight over and no generator made per draw
+ * The streams are split in a fixed order, in the thread that starts the others, so they don't depend on the scheduling
+ * A run is only reproduced if it doesn't stop on the time budget and doesn't depend on the timing of its threads
+ * (the syncs of the parallel chains and the swaps of the parallel tempering do)
+ * Not thread safe
+ */
+public class RandomStreams {
+
+    private final static long scenarioSeedGamma = 0x9E3779B97F4A7C15L; //spreads the hashes of the scenario names over the seeds
+
+    private final long seed;
+    private final SplittableRandom rootRandom;
+
+    /**
+     * Makes the streams of a run with a new random seed (getSeed returns it, to reproduce the run)
+     */
+    public RandomStreams() {
+        this(RandomStreams.generateSeed());
+    }
+
+    /**
+     * Makes the streams of a run with the given seed
+     */
+    public RandomStreams(long seed) {
+        this.seed = seed;
+        this.rootRandom = new SplittableRandom(seed);
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Splits the next independent stream
+     */
+    public SplittableRandom split() {
+        return rootRandom.split();
+    }
+
+    /**
+     * The streams of a scenario of this run, made from the seed and the name of the scenario
+     * They are the same whatever the order the scenarios are loaded and solved in
+     */
+    public RandomStreams forScenario(ProblemScenario problemScenario) {
+        long scenarioSeed = new SplittableRandom(seed + problemScenario.getName().hashCode() * scenarioSeedGamma).nextLong();
+        return new RandomStreams(scenarioSeed);
+    }
+
+    /**
+     * Splits N independent streams from the given one (one per thread, chain, replica...)
+     */
+    public static SplittableRandom[] split(SplittableRandom random, int numberOfStreams) {
+        SplittableRandom[] randomStreams = new SplittableRandom[numberOfStreams];
+        for (int k = 0; k < numberOfStreams; k++)
+            randomStreams[k] = random.split();
+        return randomStreams;
+    }
+
+    /**
+     * A new random seed (different on each call and each run)
+     */
+    public static long generateSeed() {
+        return new SplittableRandom().nextLong();
+    }
+
+    @Override
+    public String toString() {
+        return "RandomStreams{" +
+                "seed=" + seed +
+                '}';
+    }
+}
@@ -0,0 +1,114 @@
+package Classes;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.random.RandomGenerator;
+
+/**
+ * Temperature ladder of a replica exchange (parallel tempering) run
+ * Each replica runs in its own thread at the temperature of the ladder slot it is in (slot 0 is the coldest one)
+ * Instead of exchanging states, two adjacent replicas exchange their slots (temperatures), so no state is copied between threads
+ * There are no barriers: a replica that wants to swap with the next hotter slot just tries to lock both slots, and skips the swap if it can't
+ */
+public class ReplicaExchangeLadder {
+
+    private final double[] temperatures; // k from slot, temperature
+    private final AtomicIntegerArray replicaOfSlot; // k from slot, replica in it
+    private final AtomicIntegerArray slotOfReplica; // r from replica, slot it is in
+    private final AtomicLongArray currentCostOfReplica; // r from replica, bits of its current cost
+    private final AtomicIntegerArray slotLocks; // k from slot, 1 while a swap is using it
+
+    private final LongAdder attemptedSwapsCounter = new LongAdder();
+    private final LongAdder acceptedSwapsCounter = new LongAdder();
+
+    /**
+     * Makes a ladder of numberOfReplicas temperatures from minimumTemperature to maximumTemperature (geometric progression)
+     * Replica r starts in slot r
+     */
+    public ReplicaExchangeLadder(int numberOfReplicas, double minimumTemperature, double maximumTemperature) {
+        this.temperatures = new double[numberOfReplicas];
+        this.replicaOfSlot = new AtomicIntegerArray(numberOfReplicas);
+        this.slotOfReplica = new AtomicIntegerArray(numberOfReplicas);
+        this.currentCostOfReplica = new AtomicLongArray(numberOfReplicas);
+        this.slotLocks = new AtomicIntegerArray(numberOfReplicas);
+        for (int k = 0; k < numberOfReplicas; k++) {
+            double ladderPosition = (numberOfReplicas == 1) ? 0 : (double) k / (numberOfReplicas - 1);
+            this.temperatures[k] = minimumTemperature * Math.pow(maximumTemperature / minimumTemperature, ladderPosition);
+            this.replicaOfSlot.set(k, k);
+            this.slotOfReplica.set(k, k);
+            this.currentCostOfReplica.set(k, Double.doubleToLongBits(Double.POSITIVE_INFINITY));
+        }
+    }
+
+    public int getNumberOfReplicas() {
+        return temperatures.length;
+    }
+
+    /**
+     * Temperature the replica must use right now
+     */
+    public double getTemperature(int replica) {
+        return temperatures[slotOfReplica.get(replica)];
+    }
+
+    public int getSlot(int replica) {
+        return slotOfReplica.get(replica);
+    }
+
+    /**
+     * Publishes the current cost of a replica (read by the swaps)
+     */
+    public void publishCurrentCost(int replica, double currentCost) {
+        currentCostOfReplica.set(replica, Double.doubleToLongBits(currentCost));
+    }
+
+    /**
+     * Tries to exchange the slot of the replica with the next hotter one (Metropolis criterion)
+     * Never waits: if one of the 2 slots is being used by another swap, nothing happens
+     * Returns true if the swap was made
+     */
+    public boolean trySwapWithHotterReplica(int replica, RandomGenerator random) {
+        int slot = slotOfReplica.get(replica);
+        if (slot >= temperatures.length - 1)
+            return false;
+        //Lock both slots (or give up)
+        if (!slotLocks.compareAndSet(slot, 0, 1))
+            return false;
+        if (!slotLocks.compareAndSet(slot + 1, 0, 1)) {
+            slotLocks.set(slot, 0);
+            return false;
+        }
+        try {
+            //Another swap may have moved the replica before we got the locks
+            if (replicaOfSlot.get(slot) != replica)
+                return false;
+            attemptedSwapsCounter.increment();
+            int hotterReplica = replicaOfSlot.get(slot + 1);
+            double colderCost = Double.longBitsToDouble(currentCostOfReplica.get(replica));
+            double hotterCost = Double.longBitsToDouble(currentCostOfReplica.get(hotterReplica));
+            //Metropolis criterion: accept with min(1, exp((1/Tcold - 1/Thot) * (Ecold - Ehot)))
+            double exponent = (1 / temperatures[slot] - 1 / temperatures[slot + 1]) * (colderCost - hotterCost);
+            if (!(exponent >= 0 || Math.exp(exponent) > random.nextDouble()))
+                return false;
+            //Exchange the slots (the temperatures) of the 2 replicas
+            replicaOfSlot.set(slot, hotterReplica);
+            replicaOfSlot.set(slot + 1, replica);
+            slotOfReplica.set(hotterReplica, slot);
+            slotOfReplica.set(replica, slot + 1);
+            acceptedSwapsCounter.increment();
+            return true;
+        } finally {
+            slotLocks.set(slot + 1, 0);
+            slotLocks.set(slot, 0);
+        }
+    }
+
+    public long getAttemptedSwapsCounter() {
+        return attemptedSwapsCounter.sum();
+    }
+
+    public long getAcceptedSwapsCounter() {
+        return acceptedSwapsCounter.sum();
+    }
+}
@@ -0,0 +1,169 @@
+package Classes;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.zip.CRC32;
+
+/**
+ * Binary copy of a text scenario file, so the scenario can be loaded again without parsing (and without sorting the preferences)
+ * The cache file is next to the text file (same name + cacheFileExtension) and is memory mapped when it is read
+ * It is only used if it was made from the same version of the text file (same size and last modified time) and its checksum is right,
+ * otherwise it is made again
+ *
+ * Layout (little endian), a 40 byte header:
+ *   magic (int), version (int), flags (int), numberOfWarehouseLocations (int), numberOfCustomers (int), CRC32 of the payload (int),
+ *   last modified time of the text file in ms (long), size of the text file (long)
+ * Followed by the payload:
+ *   fixedCosts (double[m]), allocationCosts (double[n*m]), capacities (int[m]), demands (int[n]),
+ *   sortedWarehousePreferences (int[n*m], only if the flags have hasSortedWarehousePreferences)
+ */
+public class ScenarioBinaryCache {
+
+    private final static String cacheFileExtension = ".bin";
+    private final static int magic = 0x50464C55; //"UFLP" in little endian
+    private final static int version = 1;
+    private final static int headerSize = 40;
+    private final static int hasSortedWarehousePreferences = 1; //flag
+
+    /**
+     * Path of the cache file of a text scenario file
+     */
+    public static Path getCacheFilePath(Path problemScenarioFilePath) {
+        return problemScenarioFilePath.resolveSibling(problemScenarioFilePath.getFileName() + cacheFileExtension);
+    }
+
+    /**
+     * Loads the scenario from the cache file of the text file, if there is one that is up to date and not corrupted
+     * Returns false (and loads nothing) otherwise
+     */
+    public static boolean read(Path problemScenarioFilePath, ProblemScenario problemScenario) {
+        Path cacheFilePath = getCacheFilePath(problemScenarioFilePath);
+        if (!Files.isRegularFile(cacheFilePath))
+            return false;
+        try (FileChannel fileChannel = FileChannel.open(cacheFilePath, StandardOpenOption.READ)) {
+            long cacheFileSize = fileChannel.size();
+            if (cacheFileSize < headerSize)
+                return false;
+            MappedByteBuffer cacheBuffer = fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, cacheFileSize);
+            cacheBuffer.order(ByteOrder.LITTLE_ENDIAN);
+
+            //Header, it must be a cache of this version made from the current text file
+            int cacheMagic = cacheBuffer.getInt(0);
+            int cacheVersion = cacheBuffer.getInt(4);
+            int flags = cacheBuffer.getInt(8);
+            int numberOfWarehouseLocations = cacheBuffer.getInt(12);
+            int numberOfCustomers = cacheBuffer.getInt(16);
+            int payloadChecksum = cacheBuffer.getInt(20);
+            long sourceLastModifiedTime = cacheBuffer.getLong(24);
+            long sourceSize = cacheBuffer.getLong(32);
+            if (cacheMagic != magic || cacheVersion != version || numberOfWarehouseLocations <= 0 || numberOfCustomers <= 0)
+                return false;
+            if (sourceLastModifiedTime != Files.getLastModifiedTime(problemScenarioFilePath).toMillis()
+                    || sourceSize != Files.size(problemScenarioFilePath))
+                return false;
+            boolean withSortedWarehousePreferences = (flags & hasSortedWarehousePreferences) != 0;
+            if (cacheFileSize != headerSize + getPayloadSize(numberOfWarehouseLocations, numberOfCustomers, withSortedWarehousePreferences))
+                return false;
+
+            //Payload, the checksum must match
+            ByteBuffer payloadBuffer = cacheBuffer.slice(headerSize, (int) (cacheFileSize - headerSize)).order(ByteOrder.LITTLE_ENDIAN);
+            CRC32 crc32 = new CRC32();
+            crc32.update(payloadBuffer.duplicate());
+            if ((int) crc32.getValue() != payloadChecksum)
+                return false;
+
+            long numberOfAllocationCosts = (long) numberOfCustomers * numberOfWarehouseLocations;
+            double[] fixedCosts = new double[numberOfWarehouseLocations];
+            double[] allocationCosts = new double[(int) numberOfAllocationCosts];
+            int[] capacities = new int[numberOfWarehouseLocations];
+            int[] demands = new int[numberOfCustomers];
+            int[] sortedWarehousePreferences = withSortedWarehousePreferences ? new int[(int) numberOfAllocationCosts] : null;
+            payloadBuffer.asDoubleBuffer().get(fixedCosts).get(allocationCosts);
+            payloadBuffer.position((numberOfWarehouseLocations + (int) numberOfAllocationCosts) * Double.BYTES);
+            payloadBuffer.asIntBuffer().get(capacities).get(demands);
+            if (withSortedWarehousePreferences) {
+                payloadBuffer.position(payloadBuffer.position() + (numberOfWarehouseLocations + numberOfCustomers) * Integer.BYTES);
+                payloadBuffer.asIntBuffer().get(sortedWarehousePreferences);
+            }
+            problemScenario.setScenarioData(capacities, fixedCosts, demands, allocationCosts, sortedWarehousePreferences);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            //A broken cache is not a problem, the text file is read again
+            Logger.WriteMessage(Logger.Level.WARNING, "Could not read the binary cache " + cacheFilePath + ": " + e);
+            return false;
+        }
+    }
+
+    /**
+     * Writes the cache file of a scenario read from the given text file
+     * The file is written to a temporary file first and then moved, so a reader never sees half a cache file
+     */
+    public static void write(Path problemScenarioFilePath, ProblemScenario problemScenario) throws IOException {
+        int numberOfWarehouseLocations = problemScenario.getNumberOfWarehouseLocations();
+        int numberOfCustomers = problemScenario.getNumberOfCustomers();
+        int[] sortedWarehousePreferences = problemScenario.getSortedWarehousePreferences();
+        boolean withSortedWarehousePreferences = (sortedWarehousePreferences != null);
+        long payloadSize = getPayloadSize(numberOfWarehouseLocations, numberOfCustomers, withSortedWarehousePreferences);
+        if (headerSize + payloadSize > Integer.MAX_VALUE)
+            throw new IOException("Scenario too big for a binary cache: " + problemScenarioFilePath);
+
+        //Payload
+        ByteBuffer cacheBuffer = ByteBuffer.allocate((int) (headerSize + payloadSize)).order(ByteOrder.LITTLE_ENDIAN);
+        cacheBuffer.position(headerSize);
+        for (double fixedCost : problemScenario.getFixedCosts())
+            cacheBuffer.putDouble(fixedCost);
+        for (double allocationCost : problemScenario.getAllocationCosts())
+            cacheBuffer.putDouble(allocationCost);
+        for (WarehouseLocation warehouseLocation : problemScenario.getWarehouseLocations())
+            cacheBuffer.putInt(warehouseLocation.getCapacity());
+        for (Customer customer : problemScenario.getCustomers())
+            cacheBuffer.putInt(customer.getDemand());
+        if (withSortedWarehousePreferences) {
+            for (int warehouseLocationI : sortedWarehousePreferences)
+                cacheBuffer.putInt(warehouseLocationI);
+        }
+        CRC32 crc32 = new CRC32();
+        crc32.update(cacheBuffer.array(), headerSize, (int) payloadSize);
+
+        //Header
+        cacheBuffer.putInt(0, magic);
+        cacheBuffer.putInt(4, version);
+        cacheBuffer.putInt(8, withSortedWarehousePreferences ? hasSortedWarehousePreferences : 0);
+        cacheBuffer.putInt(12, numberOfWarehouseLocations);
+        cacheBuffer.putInt(16, numberOfCustomers);
+        cacheBuffer.putInt(20, (int) crc32.getValue());
+        cacheBuffer.putLong(24, Files.getLastModifiedTime(problemScenarioFilePath).toMillis());
+        cacheBuffer.putLong(32, Files.size(problemScenarioFilePath));
+
+        //Write it to a temporary file and move it to its place
+        Path cacheFilePath = getCacheFilePath(problemScenarioFilePath);
+        Path temporaryFilePath = Files.createTempFile(cacheFilePath.toAbsolutePath().getParent(), cacheFilePath.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel fileChannel = FileChannel.open(temporaryFilePath, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                cacheBuffer.rewind();
+                while (cacheBuffer.hasRemaining())
+                    fileChannel.write(cacheBuffer);
+            }
+            try {
+                Files.move(temporaryFilePath, cacheFilePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporaryFilePath, cacheFilePath, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporaryFilePath);
+        }
+    }
+
+    private static long getPayloadSize(int numberOfWarehouseLocations, int numberOfCustomers, boolean withSortedWarehousePreferences) {
+        long numberOfAllocationCosts = (long) numberOfCustomers * numberOfWarehouseLocations;
+        long payloadSize = (numberOfWarehouseLocations + numberOfAllocationCosts) * Double.BYTES
+                + (long) (numberOfWarehouseLocations + numberOfCustomers) * Integer.BYTES;
+        if (withSortedWarehousePreferences)
+            payloadSize += numberOfAllocationCosts * Integer.BYTES;
+        return payloadSize;
+    }
+}
@@ -0,0 +1,163 @@
+package Classes;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads the numbers of a scenario file one after the other, straight from the bytes of the file (no lines or Strings)
+ * The file is read in blocks through a FileChannel, the numbers can be separated by any white space (spaces, tabs, new lines)
+ * Numbers like "7500." or "1.5e3" are accepted
+ */
+public class ScenarioFileTokenizer implements Closeable {
+
+    private final static int bufferSize = 1 << 16;
+    private final static int endOfFile = -1;
+    private final static long maxExactMantissa = 1L << 53; //bigger mantissas can't be converted exactly to a double
+    private final static double[] exactPowersOfTen = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final Path filePath;
+    private final FileChannel fileChannel;
+    private final ByteBuffer buffer;
+    private final StringBuilder numberCharacters = new StringBuilder(32); //characters of the current number, for the slow path
+    private long numberOfReadBytes;
+
+    /**
+     * Opens the file for reading
+     */
+    public ScenarioFileTokenizer(Path filePath) throws IOException {
+        this.filePath = filePath;
+        this.fileChannel = FileChannel.open(filePath, StandardOpenOption.READ);
+        this.buffer = ByteBuffer.allocate(bufferSize);
+        this.buffer.flip(); //empty, the first read fills it
+    }
+
+    /**
+     * Reads the next number as an int (it must not have a fractional part, "146." is fine)
+     */
+    public int nextInt() throws IOException {
+        double number = nextDouble();
+        if (number != Math.rint(number) || number < Integer.MIN_VALUE || number > Integer.MAX_VALUE)
+            throw new IOException("Expected an integer but found " + number + " near byte " + numberOfReadBytes + " of " + filePath);
+        return (int) number;
+    }
+
+    /**
+     * Reads the next number
+     * Same value as Double.parseDouble: the digits go into a long and are divided (or multiplied) by an exact power of ten,
+     * numbers with too many digits or a big exponent go through Double.parseDouble
+     */
+    public double nextDouble() throws IOException {
+        //Skip the white space before the number
+        int currentByte = nextByte();
+        while (currentByte != endOfFile && currentByte <= ' ')
+            currentByte = nextByte();
+        if (currentByte == endOfFile)
+            throw new IOException("Unexpected end of file " + filePath);
+
+        numberCharacters.setLength(0);
+        boolean negative = false;
+        if (currentByte == '-' || currentByte == '+') {
+            negative = (currentByte == '-');
+            numberCharacters.append((char) currentByte);
+            currentByte = nextByte();
+        }
+
+        long mantissa = 0;
+        int decimalExponent = 0;
+        int numberOfDigits = 0;
+        boolean exact = true;
+
+        //Integer part
+        while (currentByte >= '0' && currentByte <= '9') {
+            numberCharacters.append((char) currentByte);
+            if (mantissa < maxExactMantissa / 10)
+                mantissa = mantissa * 10 + (currentByte - '0');
+            else
+                exact = false;
+            numberOfDigits++;
+            currentByte = nextByte();
+        }
+        //Fractional part
+        if (currentByte == '.') {
+            numberCharacters.append('.');
+            currentByte = nextByte();
+            while (currentByte >= '0' && currentByte <= '9') {
+                numberCharacters.append((char) currentByte);
+                if (mantissa < maxExactMantissa / 10) {
+                    mantissa = mantissa * 10 + (currentByte - '0');
+                    decimalExponent--;
+                } else if (currentByte != '0') {
+                    exact = false;
+                }
+                numberOfDigits++;
+                currentByte = nextByte();
+            }
+        }
+        if (numberOfDigits == 0)
+            throw new IOException("Expected a number but found '" + (char) currentByte + "' near byte " + numberOfReadBytes + " of " + filePath);
+        //Exponent
+        if (currentByte == 'e' || currentByte == 'E') {
+            numberCharacters.append('e');
+            currentByte = nextByte();
+            boolean negativeExponent = false;
+            if (currentByte == '-' || currentByte == '+') {
+                negativeExponent = (currentByte == '-');
+                numberCharacters.append((char) currentByte);
+                currentByte = nextByte();
+            }
+            int exponent = 0;
+            int numberOfExponentDigits = 0;
+            while (currentByte >= '0' && currentByte <= '9') {
+                numberCharacters.append((char) currentByte);
+                exponent = Math.min(exponent * 10 + (currentByte - '0'), 100000);
+                numberOfExponentDigits++;
+                currentByte = nextByte();
+            }
+            if (numberOfExponentDigits == 0)
+                throw new IOException("Malformed exponent near byte " + numberOfReadBytes + " of " + filePath);
+            decimalExponent += negativeExponent ? -exponent : exponent;
+        }
+        //The number must end with a white space (or the end of the file)
+        if (currentByte != endOfFile && currentByte > ' ')
+            throw new IOException("Unexpected character '" + (char) currentByte + "' near byte " + numberOfReadBytes + " of " + filePath);
+
+        //Fast path, both the mantissa and the power of ten are exact doubles, so the single division (or multiplication) is correctly rounded
+        if (exact && decimalExponent >= -22 && decimalExponent <= 22) {
+            double number = (decimalExponent < 0)
+                    ? mantissa / exactPowersOfTen[-decimalExponent]
+                    : mantissa * exactPowersOfTen[decimalExponent];
+            return negative ? -number : number;
+        }
+        //Slow path (rare)
+        return Double.parseDouble(numberCharacters.toString());
+    }
+
+    /**
+     * Next byte of the file (endOfFile at the end), reads the next block when the buffer is empty
+     */
+    private int nextByte() throws IOException {
+        if (!buffer.hasRemaining()) {
+            buffer.clear();
+            int numberOfBytes = fileChannel.read(buffer);
+            while (numberOfBytes == 0)
+                numberOfBytes = fileChannel.read(buffer);
+            buffer.flip();
+            if (numberOfBytes < 0)
+                return endOfFile;
+        }
+        numberOfReadBytes++;
+        return buffer.get() & 0xFF;
+    }
+
+    @Override
+    public void close() throws IOException {
+        fileChannel.close();
+    }
+}
@@ -0,0 +1,72 @@
+package Classes;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Best solution found so far, shared between threads that search the same scenario
+ * Lock free: the threads offer their solutions and only the cheapest one is kept (compare and set)
+ */
+public class SharedBestSolution {
+
+    /**
+     * A solution and its cost, never changed after being built
+     */
+    private static class BestSolutionSnapshot {
+        private final BitSolution solution;
+        private final double solutionCost;
+
+        private BestSolutionSnapshot(BitSolution solution, double solutionCost) {
+            this.solution = solution;
+            this.solutionCost = solutionCost;
+        }
+    }
+
+    private final AtomicReference<BestSolutionSnapshot> bestSolution = new AtomicReference<>();
+
+    /**
+     * Offers a solution, it is stored (as a copy) only if it is cheaper than the current best one
+     * Returns true if it became the new best solution
+     */
+    public boolean offer(BitSolution solution, double solutionCost) {
+        BestSolutionSnapshot currentBestSolution = bestSolution.get();
+        if (currentBestSolution != null && currentBestSolution.solutionCost <= solutionCost)
+            return false;
+        BestSolutionSnapshot newBestSolution = new BestSolutionSnapshot(new BitSolution(solution), solutionCost);
+        //Try to replace it until we succeed or somebody else stores a cheaper one
+        while (!bestSolution.compareAndSet(currentBestSolution, newBestSolution)) {
+            currentBestSolution = bestSolution.get();
+            if (currentBestSolution != null && currentBestSolution.solutionCost <= solutionCost)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Cost of the best solution (POSITIVE_INFINITY if nothing was offered yet)
+     */
+    public double getBestSolutionCost() {
+        BestSolutionSnapshot currentBestSolution = bestSolution.get();
+        return (currentBestSolution == null) ? Double.POSITIVE_INFINITY : currentBestSolution.solutionCost;
+    }
+
+    /**
+     * Copies the best solution into the given one and returns its cost (both from the same snapshot)
+     * Returns POSITIVE_INFINITY and copies nothing if nothing was offered yet
+     */
+    public double copyBestSolution(BitSolution solutionCopy) {
+        BestSolutionSnapshot currentBestSolution = bestSolution.get();
+        if (currentBestSolution == null)
+            return Double.POSITIVE_INFINITY;
+        solutionCopy.copyFrom(currentBestSolution.solution);
+        return currentBestSolution.solutionCost;
+    }
+
+    /**
+     * The best solution (null if nothing was offered yet)
+     * The solution is shared, don't change it
+     */
+    public BitSolution getBestSolution() {
+        BestSolutionSnapshot currentBestSolution = bestSolution.get();
+        return (currentBestSolution == null) ? null : currentBestSolution.solution;
+    }
+}
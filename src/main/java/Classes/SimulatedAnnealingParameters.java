@@ -0,0 +1,314 @@
+package Classes;
+
+/**
+ * Parameters of a run of the simulated annealing (the defaults are the values the algorithm was tuned with)
+ * Can be read from a properties file (see SolverConfiguration), so they can be tuned without recompiling
+ */
+public class SimulatedAnnealingParameters {
+
+    private final static String propertiesPrefix = "simulatedAnnealing.";
+
+    private double initialTemperature = 100000;
+    private double finalTemperature = 1; //the annealing stops when the temperature gets below it
+    private double coolingRate = 0.995;
+    private double chanceOfIndividualPointStateChange = 0.20; //of each warehouse in a RANDOM_FLIPS move
+
+    //Moves (see AnnealingMoveEngine): relative weights of each type of move, how many warehouses a K_FLIP flips,
+    //and how many moves are tried at each temperature
+    //(mostly single flips: RANDOM_FLIPS changes about 20% of the warehouses, needs a full re-evaluation and is rarely accepted)
+    private double flipMoveWeight = 0.80;
+    private double swapMoveWeight = 0.15;
+    private double kFlipMoveWeight = 0.05;
+    private double randomFlipsMoveWeight = 0;
+    private int kFlipSize = 3;
+    private int movesPerTemperature = 100;
+
+    //Cooling (see CoolingSchedule): the schedule, the temperatures calibrated for the scenario from the acceptance rates of
+    //the worse moves (instead of initialTemperature and finalTemperature), and the reheats (0 = never)
+    //(TIME_BASED cools down over the whole budget of the run, GEOMETRIC from 100000 froze in a few hundred milliseconds)
+    private CoolingSchedule.Type coolingSchedule = CoolingSchedule.Type.TIME_BASED;
+    private boolean calibrateTemperatures = true;
+    private double initialAcceptanceRate = 0.8;
+    private double finalAcceptanceRate = 0.001;
+    private int reheatAfterTemperatures = 0;
+    private double reheatTemperatureRatio = 0.5;
+
+    /**
+     * Makes the default parameters
+     */
+    public SimulatedAnnealingParameters() {
+    }
+
+    /**
+     * Makes a copy of the given parameters
+     */
+    public SimulatedAnnealingParameters(SimulatedAnnealingParameters simulatedAnnealingParametersToCopy) {
+        this.initialTemperature = simulatedAnnealingParametersToCopy.initialTemperature;
+        this.finalTemperature = simulatedAnnealingParametersToCopy.finalTemperature;
+        this.coolingRate = simulatedAnnealingParametersToCopy.coolingRate;
+        this.chanceOfIndividualPointStateChange = simulatedAnnealingParametersToCopy.chanceOfIndividualPointStateChange;
+        this.flipMoveWeight = simulatedAnnealingParametersToCopy.flipMoveWeight;
+        this.swapMoveWeight = simulatedAnnealingParametersToCopy.swapMoveWeight;
+        this.kFlipMoveWeight = simulatedAnnealingParametersToCopy.kFlipMoveWeight;
+        this.randomFlipsMoveWeight = simulatedAnnealingParametersToCopy.randomFlipsMoveWeight;
+        this.kFlipSize = simulatedAnnealingParametersToCopy.kFlipSize;
+        this.movesPerTemperature = simulatedAnnealingParametersToCopy.movesPerTemperature;
+        this.coolingSchedule = simulatedAnnealingParametersToCopy.coolingSchedule;
+        this.calibrateTemperatures = simulatedAnnealingParametersToCopy.calibrateTemperatures;
+        this.initialAcceptanceRate = simulatedAnnealingParametersToCopy.initialAcceptanceRate;
+        this.finalAcceptanceRate = simulatedAnnealingParametersToCopy.finalAcceptanceRate;
+        this.reheatAfterTemperatures = simulatedAnnealingParametersToCopy.reheatAfterTemperatures;
+        this.reheatTemperatureRatio = simulatedAnnealingParametersToCopy.reheatTemperatureRatio;
+    }
+
+    public double getInitialTemperature() {
+        return initialTemperature;
+    }
+
+    public SimulatedAnnealingParameters setInitialTemperature(double initialTemperature) {
+        this.initialTemperature = initialTemperature;
+        return this;
+    }
+
+    public double getFinalTemperature() {
+        return finalTemperature;
+    }
+
+    public SimulatedAnnealingParameters setFinalTemperature(double finalTemperature) {
+        this.finalTemperature = finalTemperature;
+        return this;
+    }
+
+    public double getCoolingRate() {
+        return coolingRate;
+    }
+
+    public SimulatedAnnealingParameters setCoolingRate(double coolingRate) {
+        this.coolingRate = coolingRate;
+        return this;
+    }
+
+    public double getChanceOfIndividualPointStateChange() {
+        return chanceOfIndividualPointStateChange;
+    }
+
+    public SimulatedAnnealingParameters setChanceOfIndividualPointStateChange(double chanceOfIndividualPointStateChange) {
+        this.chanceOfIndividualPointStateChange = chanceOfIndividualPointStateChange;
+        return this;
+    }
+
+    /**
+     * Relative weight of a type of move (its chance is its weight / the sum of the weights)
+     */
+    public double getMoveWeight(AnnealingMoveEngine.MoveType moveType) {
+        switch (moveType) {
+            case FLIP:
+                return flipMoveWeight;
+            case SWAP:
+                return swapMoveWeight;
+            case K_FLIP:
+                return kFlipMoveWeight;
+            default:
+                return randomFlipsMoveWeight;
+        }
+    }
+
+    /**
+     * Sets the relative weight of a type of move (0 = never)
+     */
+    public SimulatedAnnealingParameters setMoveWeight(AnnealingMoveEngine.MoveType moveType, double moveWeight) {
+        switch (moveType) {
+            case FLIP:
+                flipMoveWeight = moveWeight;
+                break;
+            case SWAP:
+                swapMoveWeight = moveWeight;
+                break;
+            case K_FLIP:
+                kFlipMoveWeight = moveWeight;
+                break;
+            default:
+                randomFlipsMoveWeight = moveWeight;
+                break;
+        }
+        return this;
+    }
+
+    /**
+     * Makes the given type of move the only one
+     */
+    public SimulatedAnnealingParameters setOnlyMoveType(AnnealingMoveEngine.MoveType onlyMoveType) {
+        for (AnnealingMoveEngine.MoveType moveType : AnnealingMoveEngine.MoveType.values())
+            this.setMoveWeight(moveType, (moveType == onlyMoveType) ? 1 : 0);
+        return this;
+    }
+
+    public int getKFlipSize() {
+        return kFlipSize;
+    }
+
+    public SimulatedAnnealingParameters setKFlipSize(int kFlipSize) {
+        this.kFlipSize = kFlipSize;
+        return this;
+    }
+
+    public int getMovesPerTemperature() {
+        return movesPerTemperature;
+    }
+
+    public SimulatedAnnealingParameters setMovesPerTemperature(int movesPerTemperature) {
+        this.movesPerTemperature = movesPerTemperature;
+        return this;
+    }
+
+    public CoolingSchedule.Type getCoolingSchedule() {
+        return coolingSchedule;
+    }
+
+    public SimulatedAnnealingParameters setCoolingSchedule(CoolingSchedule.Type coolingSchedule) {
+        this.coolingSchedule = coolingSchedule;
+        return this;
+    }
+
+    public boolean isCalibrateTemperatures() {
+        return calibrateTemperatures;
+    }
+
+    /**
+     * Replaces initialTemperature and finalTemperature with the temperatures at which initialAcceptanceRate and finalAcceptanceRate
+     * of the worse moves (sampled from the initial state of each run) are accepted
+     */
+    public SimulatedAnnealingParameters setCalibrateTemperatures(boolean calibrateTemperatures) {
+        this.calibrateTemperatures = calibrateTemperatures;
+        return this;
+    }
+
+    public double getInitialAcceptanceRate() {
+        return initialAcceptanceRate;
+    }
+
+    public SimulatedAnnealingParameters setInitialAcceptanceRate(double initialAcceptanceRate) {
+        this.initialAcceptanceRate = initialAcceptanceRate;
+        return this;
+    }
+
+    public double getFinalAcceptanceRate() {
+        return finalAcceptanceRate;
+    }
+
+    public SimulatedAnnealingParameters setFinalAcceptanceRate(double finalAcceptanceRate) {
+        this.finalAcceptanceRate = finalAcceptanceRate;
+        return this;
+    }
+
+    public int getReheatAfterTemperatures() {
+        return reheatAfterTemperatures;
+    }
+
+    /**
+     * Reheats after this number of temperatures without a better best cost, or when the run freezes before the end of its budget (0 = never)
+     */
+    public SimulatedAnnealingParameters setReheatAfterTemperatures(int reheatAfterTemperatures) {
+        this.reheatAfterTemperatures = reheatAfterTemperatures;
+        return this;
+    }
+
+    public double getReheatTemperatureRatio() {
+        return reheatTemperatureRatio;
+    }
+
+    /**
+     * Temperature of a reheat, relative to the initial temperature
+     */
+    public SimulatedAnnealingParameters setReheatTemperatureRatio(double reheatTemperatureRatio) {
+        this.reheatTemperatureRatio = reheatTemperatureRatio;
+        return this;
+    }
+
+    /**
+     * Throws an IllegalArgumentException if the annealing could not cool down or could not change the state
+     */
+    public void validate() {
+        if (!(initialTemperature > 0) || !(finalTemperature > 0))
+            throw new IllegalArgumentException("The temperatures must be positive: " + this);
+        if (!(coolingRate > 0) || !(coolingRate < 1))
+            throw new IllegalArgumentException("coolingRate must be between 0 and 1 (exclusive): " + this);
+        if (chanceOfIndividualPointStateChange < 0 || chanceOfIndividualPointStateChange > 1)
+            throw new IllegalArgumentException("chanceOfIndividualPointStateChange must be between 0 and 1: " + this);
+        if (flipMoveWeight < 0 || swapMoveWeight < 0 || kFlipMoveWeight < 0 || randomFlipsMoveWeight < 0
+                || !(flipMoveWeight + swapMoveWeight + kFlipMoveWeight + randomFlipsMoveWeight > 0))
+            throw new IllegalArgumentException("The move weights can't be negative and at least one must be positive: " + this);
+        if (kFlipSize < 1 || movesPerTemperature < 1)
+            throw new IllegalArgumentException("kFlipSize and movesPerTemperature must be at least 1: " + this);
+        if (coolingSchedule == null)
+            throw new IllegalArgumentException("coolingSchedule can't be null: " + this);
+        if (!(finalAcceptanceRate > 0) || !(finalAcceptanceRate < initialAcceptanceRate) || !(initialAcceptanceRate < 1))
+            throw new IllegalArgumentException("The acceptance rates must be 0 < finalAcceptanceRate < initialAcceptanceRate < 1: " + this);
+        if (reheatAfterTemperatures < 0 || !(reheatTemperatureRatio > 0) || reheatTemperatureRatio > 1)
+            throw new IllegalArgumentException("reheatAfterTemperatures can't be negative and reheatTemperatureRatio must be between 0 (exclusive) and 1: " + this);
+    }
+
+    /**
+     * Sets the parameters that have a key in the properties (simulatedAnnealing.name), the others keep their values
+     */
+    void ReadFromProperties(ParameterProperties parameterProperties) {
+        initialTemperature = parameterProperties.readDouble(propertiesPrefix, "initialTemperature", initialTemperature);
+        finalTemperature = parameterProperties.readDouble(propertiesPrefix, "finalTemperature", finalTemperature);
+        coolingRate = parameterProperties.readDouble(propertiesPrefix, "coolingRate", coolingRate);
+        chanceOfIndividualPointStateChange = parameterProperties.readDouble(propertiesPrefix, "chanceOfIndividualPointStateChange", chanceOfIndividualPointStateChange);
+        flipMoveWeight = parameterProperties.readDouble(propertiesPrefix, "flipMoveWeight", flipMoveWeight);
+        swapMoveWeight = parameterProperties.readDouble(propertiesPrefix, "swapMoveWeight", swapMoveWeight);
+        kFlipMoveWeight = parameterProperties.readDouble(propertiesPrefix, "kFlipMoveWeight", kFlipMoveWeight);
+        randomFlipsMoveWeight = parameterProperties.readDouble(propertiesPrefix, "randomFlipsMoveWeight", randomFlipsMoveWeight);
+        kFlipSize = parameterProperties.readInt(propertiesPrefix, "kFlipSize", kFlipSize);
+        movesPerTemperature = parameterProperties.readInt(propertiesPrefix, "movesPerTemperature", movesPerTemperature);
+        coolingSchedule = parameterProperties.readEnum(propertiesPrefix, "coolingSchedule", coolingSchedule);
+        calibrateTemperatures = parameterProperties.readBoolean(propertiesPrefix, "calibrateTemperatures", calibrateTemperatures);
+        initialAcceptanceRate = parameterProperties.readDouble(propertiesPrefix, "initialAcceptanceRate", initialAcceptanceRate);
+        finalAcceptanceRate = parameterProperties.readDouble(propertiesPrefix, "finalAcceptanceRate", finalAcceptanceRate);
+        reheatAfterTemperatures = parameterProperties.readInt(propertiesPrefix, "reheatAfterTemperatures", reheatAfterTemperatures);
+        reheatTemperatureRatio = parameterProperties.readDouble(propertiesPrefix, "reheatTemperatureRatio", reheatTemperatureRatio);
+    }
+
+    /**
+     * Writes all the parameters to the properties (simulatedAnnealing.name)
+     */
+    void WriteToProperties(ParameterProperties parameterProperties) {
+        parameterProperties.write(propertiesPrefix, "initialTemperature", initialTemperature);
+        parameterProperties.write(propertiesPrefix, "finalTemperature", finalTemperature);
+        parameterProperties.write(propertiesPrefix, "coolingRate", coolingRate);
+        parameterProperties.write(propertiesPrefix, "chanceOfIndividualPointStateChange", chanceOfIndividualPointStateChange);
+        parameterProperties.write(propertiesPrefix, "flipMoveWeight", flipMoveWeight);
+        parameterProperties.write(propertiesPrefix, "swapMoveWeight", swapMoveWeight);
+        parameterProperties.write(propertiesPrefix, "kFlipMoveWeight", kFlipMoveWeight);
+        parameterProperties.write(propertiesPrefix, "randomFlipsMoveWeight", randomFlipsMoveWeight);
+        parameterProperties.write(propertiesPrefix, "kFlipSize", kFlipSize);
+        parameterProperties.write(propertiesPrefix, "movesPerTemperature", movesPerTemperature);
+        parameterProperties.write(propertiesPrefix, "coolingSchedule", coolingSchedule);
+        parameterProperties.write(propertiesPrefix, "calibrateTemperatures", calibrateTemperatures);
+        parameterProperties.write(propertiesPrefix, "initialAcceptanceRate", initialAcceptanceRate);
+        parameterProperties.write(propertiesPrefix, "finalAcceptanceRate", finalAcceptanceRate);
+        parameterProperties.write(propertiesPrefix, "reheatAfterTemperatures", reheatAfterTemperatures);
+        parameterProperties.write(propertiesPrefix, "reheatTemperatureRatio", reheatTemperatureRatio);
+    }
+
+    static String getPropertiesPrefix() {
+        return propertiesPrefix;
+    }
+
+    @Override
+    public String toString() {
+        return "SimulatedAnnealingParameters{" +
+                "initialTemperature=" + initialTemperature +
+                ", finalTemperature=" + finalTemperature +
+                ", coolingRate=" + coolingRate +
+                ", chanceOfIndividualPointStateChange=" + chanceOfIndividualPointStateChange +
+                ", moveWeights(flip/swap/kFlip/randomFlips)=" + flipMoveWeight + "/" + swapMoveWeight + "/" + kFlipMoveWeight + "/" + randomFlipsMoveWeight +
+                ", kFlipSize=" + kFlipSize +
+                ", movesPerTemperature=" + movesPerTemperature +
+                ", coolingSchedule=" + coolingSchedule +
+                (calibrateTemperatures ? ", calibratedTemperatures(acceptanceRates)=" + initialAcceptanceRate + " - " + finalAcceptanceRate : "") +
+                (reheatAfterTemperatures == 0 ? "" : ", reheatAfterTemperatures=" + reheatAfterTemperatures + ", reheatTemperatureRatio=" + reheatTemperatureRatio) +
+                '}';
+    }
+}
@@ -1,281 +1,612 @@
 package Classes;
 
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.random.RandomGenerator;
 
 public class SimulatedAnnealingSolution {
 
-    private final static double initialTemperature = 100000;
-    private final static double coolingRate = 0.995;
-    private final static long maxRunDuration = 50000; //milliseconds
-    private final static double chanceOfIndividualPointStateChange = 0.20;
-
-    private static ProblemScenario problemScenario = null;
-
+    private final ProblemScenario problemScenario;
+    private final SimulatedAnnealingParameters parameters; //temperatures, cooling rate and chance of change of each warehouse
     private double currentTemperature;
-    private int[] currentStateArray;
+    private BitSolution currentState;
     private double currentSolutionCost;
 
-    //Makes an instance with a random  initial solution
-    public SimulatedAnnealingSolution() {
-        this.currentStateArray = SimulatedAnnealingSolution.generateRandomStateArray();
-        this.currentTemperature = initialTemperature;
-        this.calculateTotalCost();
+    //Statistics of the last run (or chain)
+    private int iterationCounter;
+    private int acceptedChangesCounter;
+    private int sharedBestAdoptionsCounter;
+    private CoolingSchedule coolingSchedule;
+
+    //Makes an instance with a random  initial solution (new random seed)
+    public SimulatedAnnealingSolution(ProblemScenario problemScenario) {
+        this(problemScenario, new RandomStreams().split());
+    }
+
+    //Makes an instance with a random initial solution drawn from the given random generator
+    public SimulatedAnnealingSolution(ProblemScenario problemScenario, RandomGenerator random) {
+        this(problemScenario, new SimulatedAnnealingParameters(), random);
+    }
+
+    //Makes an instance with the given parameters and a random initial solution drawn from the given random generator
+    public SimulatedAnnealingSolution(ProblemScenario problemScenario, SimulatedAnnealingParameters parameters, RandomGenerator random) {
+        this(problemScenario, parameters, SimulatedAnnealingSolution.generateRandomState(problemScenario, random));
     }
 
     //Makes an instance with a given initial solution
-    public SimulatedAnnealingSolution(int[] initialSolution) {
-        this.currentStateArray = SimulatedAnnealingSolution.generateCurrentStateArrayDeepCopy(initialSolution);
-        this.currentTemperature = initialTemperature;
+    public SimulatedAnnealingSolution(ProblemScenario problemScenario, int[] initialSolution) {
+        this(problemScenario, BitSolution.fromSolutionArray(initialSolution));
+    }
+
+    //Makes an instance with a given initial solution (deep copy)
+    public SimulatedAnnealingSolution(ProblemScenario problemScenario, BitSolution initialSolution) {
+        this(problemScenario, new SimulatedAnnealingParameters(), initialSolution);
+    }
+
+    //Makes an instance with the given parameters and initial solution (deep copies)
+    public SimulatedAnnealingSolution(ProblemScenario problemScenario, SimulatedAnnealingParameters parameters, BitSolution initialSolution) {
+        this.problemScenario = problemScenario;
+        this.parameters = new SimulatedAnnealingParameters(parameters);
+        this.currentState = new BitSolution(initialSolution);
+        this.currentTemperature = parameters.getInitialTemperature();
         this.calculateTotalCost();
     }
 
     //Makes a deep copy of the given solution
     public SimulatedAnnealingSolution(SimulatedAnnealingSolution simulatedAnnealingSolutionToDeepCopy) {
-        this.currentStateArray = SimulatedAnnealingSolution.generateCurrentStateArrayDeepCopy(
-            simulatedAnnealingSolutionToDeepCopy.getCurrentSolutionArray());
+        this.problemScenario = simulatedAnnealingSolutionToDeepCopy.getProblemScenario();
+        this.parameters = new SimulatedAnnealingParameters(simulatedAnnealingSolutionToDeepCopy.getParameters());
+        this.currentState = new BitSolution(simulatedAnnealingSolutionToDeepCopy.getCurrentSolution());
         this.currentSolutionCost = simulatedAnnealingSolutionToDeepCopy.getCurrentSolutionCost();
         this.currentTemperature = simulatedAnnealingSolutionToDeepCopy.getCurrentTemperature();
     }
 
-    /**
-     * Generates and returns a deep copy of the provided solution
-     */
-    private static int[] generateCurrentStateArrayDeepCopy(int[] originalStateArray) {
-        //Make deep copy of the stateArray
-        int[] stateArrayDeepCopy = new int[originalStateArray.length];
-        for (int i = 0; i < originalStateArray.length; i++) {
-            stateArrayDeepCopy[i] = originalStateArray[i];
-        }
-        return stateArrayDeepCopy;
+    public ProblemScenario getProblemScenario() {
+        return problemScenario;
     }
 
-    //Sets the problem scenario ... needs to be set BEFORE the constructor
-    public static void setProblemScenario(ProblemScenario problemScenario) {
-        SimulatedAnnealingSolution.problemScenario = problemScenario;
+    public BitSolution getCurrentSolution() {
+        return currentState;
     }
 
+    /**
+     * Returns the current state as a new solution array (1 = warehouse open, 0 = warehouse closed)
+     */
     public int[] getCurrentSolutionArray() {
-        return currentStateArray;
+        return currentState.toSolutionArray();
     }
 
     public double getCurrentSolutionCost() {
         return currentSolutionCost;
     }
 
+    public SimulatedAnnealingParameters getParameters() {
+        return parameters;
+    }
+
     public double getCurrentTemperature() {
         return currentTemperature;
     }
 
+    public int getIterationCounter() {
+        return iterationCounter;
+    }
+
+    public int getAcceptedChangesCounter() {
+        return acceptedChangesCounter;
+    }
 
     /**
-     * Generates and returns a random StateArray
+     * Cooling schedule of the last run (or chain), with its calibrated temperatures and reheats
      */
-    private static int[] generateRandomStateArray() {
-        Random rand = new Random();
-        //Creates a list to store the generated genes
-        int[] generatedStateArray = new int[problemScenario.getWarehouseLocations().length];
+    public CoolingSchedule getCoolingSchedule() {
+        return coolingSchedule;
+    }
 
-        for (int i = 0; i < generatedStateArray.length; i++)
-            generatedStateArray[i] = rand.nextInt(0, 2);
-        //Returns generated StateArray
-        return generatedStateArray;
+    public int getSharedBestAdoptionsCounter() {
+        return sharedBestAdoptionsCounter;
+    }
+
+
+    /**
+     * Generates and returns a random State (each warehouse open with a 50% chance)
+     */
+    private static BitSolution generateRandomState(ProblemScenario problemScenario, RandomGenerator rand) {
+        BitSolution generatedState = new BitSolution(problemScenario.getWarehouseLocations().length);
+        generatedState.randomize(rand);
+        //Returns generated State
+        return generatedState;
     }
 
     /**
      * Calculate the total cost value of the current solution
      */
     private void calculateTotalCost() {
-        double totalCost = 0;
-        //For each warehouse with 1 value in the chromosome, add the fixed cost
-        //For each chromosome
-        for (int i = 0; i < this.currentStateArray.length; i++) {
-            //if the chromosome is 1 (warehouse is open)
-            if (this.currentStateArray[i] == 1) {
-                //Add the fixed cost of the warehouse to the total cost
-                totalCost += this.problemScenario.getWarehouseLocations()[i].getFixedCost();
-            }
-        }
+        //Fixed costs of the open warehouses plus the cheapest open warehouse of each customer (from the scenario cost arrays)
+        this.currentSolutionCost = problemScenario.calculateTotalCost(this.currentState);
+    }
 
-        //For each customer, add the costOfAllocation of the nearest opened warehouse
-        //For each customer
-        for (int i = 0; i < this.problemScenario.getCustomers().length; i++) {
-            //Get the cost of allocations
-            Map<Integer, Double> costOfAllocation = this.problemScenario.getCustomers()[i].getCostOfAllocation();
-            // Create a list of the map entries
-            List<Map.Entry<Integer, Double>> entries = new ArrayList<>(costOfAllocation.entrySet());
-
-            // Sort the list by values
-            entries.sort(Map.Entry.comparingByValue());
-
-            // Iterate over the sorted entries
-            for (Map.Entry<Integer, Double> entry : entries) {
-                //Logger.WriteMessage("Key: " + entry.getKey() + ", Value: " + entry.getValue());
-                // Until we find the first opened warehouse
-                if (this.currentStateArray[entry.getKey()] == 1) {
-                    //If so ... Add the value to the total cost and break the loop
-                    totalCost += entry.getValue();
-                    break;
-                }
-            }
-        }
-        //If all the warehouses are closed (the cost is 0.0, then make the cost a very large number)
-        if (totalCost == 0) {
-            totalCost = Double.POSITIVE_INFINITY;
+    /**
+     * One annealing move: proposes a move of the engine (which holds the current state) and keeps it if it is cheaper,
+     * or if the worse cost is "acceptable" at the given temperature (otherwise the move is dropped)
+     * Nothing is copied: the moves change the state of the engine in place
+     * Returns true if the move was kept
+     */
+    public boolean tryMove(AnnealingMoveEngine moveEngine, double temperature, RandomGenerator rand) {
+        //Calculate costDifferences (negative value is GOOD (the changed state has a cost that is LOWER than the current one))
+        double costDifference = moveEngine.proposeMove(rand);
+
+        //If the changed cost is lower, or if the worse cost is "acceptable" ... then make it the current one
+        if (costDifference < 0 || Math.exp(-costDifference / temperature) > rand.nextDouble()) {
+            moveEngine.acceptMove();
+            this.currentSolutionCost = moveEngine.getCurrentSolutionCost();
+            this.acceptedChangesCounter++;
+            return true;
         }
+        //Rejected, go back to the current state
+        moveEngine.rejectMove();
+        return false;
+    }
 
-        //All done ... set the new cost for the current solution
-        this.currentSolutionCost = totalCost;
+    /**
+     * Runs the simulation and finds the optimal solution (or a good one )
+     * Can't be static because we use the "initial solution" that may be random or not ...
+     */
+    public SimulatedAnnealingSolution run(boolean showProgressMessages) throws Exception {
+        return this.run(new TerminationPolicy(), showProgressMessages);
     }
 
     /**
-     * Based on a eventSuccessChance, returns true of false if the event succeeds or not
+     * Runs the simulation until the temperature gets to the final one or the termination policy stops it
+     * An iteration of the policy is a temperature (movesPerTemperature changes tried), an evaluation is a change tried
      */
-    private static boolean chanceEventRoulette(double eventSuccessChance) throws Exception {
-        if (eventSuccessChance < 0 || eventSuccessChance > 1)
-            throw new Exception("eventSuccessChance must be between 0 and 1");
-        if (eventSuccessChance == 1)
-            return true;
-        //Makes random number between 0 (inclusive) and 101(exclusive)
-        int randomNumber = (new Random()).nextInt(0, 101);
-        //Gets eventSuccessChance in % form
-        int eventSuccessChanceNumber = (int) (eventSuccessChance * 100);
-        //if eventSuccessChanceNumber >= randomNumber it means that the event had success, otherwise it failed
-        return (eventSuccessChanceNumber >= randomNumber);
+    public SimulatedAnnealingSolution run(TerminationPolicy terminationPolicy, boolean showProgressMessages) throws Exception {
+        return this.run(terminationPolicy, new RandomStreams().split(), showProgressMessages);
     }
 
     /**
-     * Change a IndividualPointState
+     * Runs the simulation drawing all its random numbers from the given generator (see RandomStreams)
+     * The same initial solution, generator state and parameters give the same best solution, unless the time budget stops the run
      */
-    private static int changeIndividualPointState(int originalIndividualPointState) {
+    public SimulatedAnnealingSolution run(TerminationPolicy terminationPolicy, RandomGenerator rand, boolean showProgressMessages) throws Exception {
 
-        //Simple state change ... if 0 becomes 1, if 1 becomes 0
-        if (originalIndividualPointState == 0) {
-            return 1;
-        } else {
-            return 0;
-        }
+        System.out.println("\n#################################");
+        System.out.println("### -- The Great Annealing -- ###");
+        System.out.println("#################################");
+        System.out.println("ScenarioName: " + problemScenario.getName() + "\t" + "OptimalSolution: " + problemScenario.getOptimalSolutionValue());
+        System.out.println("NumberOfWarehouses: " + problemScenario.getWarehouseLocations().length + "\t" + "NumberOfCustomers: " + problemScenario.getCustomers().length);
+        System.out.println("#################################");
+
+
+        //Saves stating time
+        TerminationPolicy.Tracker terminationTracker = terminationPolicy.start(problemScenario);
+
+        //Runs a single chain (nothing shared)
+        SimulatedAnnealingSolution bestStateSolution = this.anneal(terminationTracker, rand, null, 0, showProgressMessages);
+
+        //returns Best Solution
+        System.out.println("CoolingSchedule: " + coolingSchedule.getType() + "\t" + "Temperatures: " + String.format("%.3f", coolingSchedule.getInitialTemperature()) + " - " + String.format("%.3f", coolingSchedule.getFinalTemperature()) + "\t" + "Reheats: " + coolingSchedule.getReheatsCounter());
+        System.out.println("CurrentTemperature: " + String.format("%.3f", this.currentTemperature) + "\t" + "CompilationTime(ms): " + terminationTracker.getElapsedTime() + " milliseconds" + "\t" + "StopReason: " + terminationTracker.getStopReason());
+        System.out.println("BestSolution: " + bestStateSolution.toString());
+        System.out.println("OptimalRatio: " + String.format("%.5f", (problemScenario.getOptimalSolutionValue()/bestStateSolution.currentSolutionCost)));
+        if (problemScenario.getOptimalSolutionValue() < 0)
+            System.out.println("LowerBoundGap: " + String.format("%.5f", problemScenario.calculateLowerBoundGap(bestStateSolution.currentSolutionCost) * 100) + "%");
+        if (problemScenario.isOptimalSolutionCost(bestStateSolution.currentSolutionCost))
+            System.out.println("U GOT THE OPTIMAL SOLUTION!");
+        System.out.println("#################################");
+
+        return bestStateSolution;
     }
 
+    /**
+     * Runs N independent chains at the same time (one thread each, each one with its own random generator and random initial solution)
+     * Every X iterations each chain offers its best solution to a shared (lock free) best solution,
+     * and jumps to the shared best one if it is better than its current state
+     * Returns the best solution of all the chains
+     */
+    public static SimulatedAnnealingSolution runParallelChains(
+            ProblemScenario problemScenario,
+            int numberOfChains,
+            int iterationsBetweenSyncs,
+            boolean showProgressMessages) throws Exception {
+        return SimulatedAnnealingSolution.runParallelChains(problemScenario, new SimulatedAnnealingParameters(), numberOfChains, iterationsBetweenSyncs,
+                new TerminationPolicy(), showProgressMessages);
+    }
 
     /**
-     * Changes a stateArray
+     * Runs N independent chains with the given parameters at the same time, each one stops when the termination policy stops it
+     * (the chains share the time budget, the other budgets are per chain)
      */
-    private static int[] changeStateArray(
-            int[] originalStateArray,
-            double chanceOfIndividualStateChange) throws Exception {
-        Random rand = new Random();
-        //Creates an array to store the changedStateArray
-        int[] changedStateArray = new int[originalStateArray.length];
-
-        //For each IndividualStatePoint in the originalStateArray
-        for (int i = 0; i < originalStateArray.length; i++) {
-            int changedIndividualPointState = originalStateArray[i];
-            //If given the chance of individualStatePointChange it changes
-            if (SimulatedAnnealingSolution.chanceEventRoulette(chanceOfIndividualStateChange)) {
-                changedIndividualPointState = SimulatedAnnealingSolution.changeIndividualPointState(changedIndividualPointState);
-                //With the change, stores the changed individualStatePoint in the changedStateArray
-                changedStateArray[i] = changedIndividualPointState;
-            } else {
-                //If not stores the individualStatePoint without change
-                changedStateArray[i] = changedIndividualPointState;
+    public static SimulatedAnnealingSolution runParallelChains(
+            ProblemScenario problemScenario,
+            SimulatedAnnealingParameters parameters,
+            int numberOfChains,
+            int iterationsBetweenSyncs,
+            TerminationPolicy terminationPolicy,
+            boolean showProgressMessages) throws Exception {
+        return SimulatedAnnealingSolution.runParallelChains(problemScenario, parameters, numberOfChains, iterationsBetweenSyncs,
+                terminationPolicy, new RandomStreams().split(), showProgressMessages);
+    }
+
+    /**
+     * Runs N chains, each one with its own stream split from the given one (see RandomStreams)
+     * Without syncs (iterationsBetweenSyncs = 0) the same generator state gives the same best solution,
+     * with syncs it also depends on when each chain gets to the shared best solution
+     * Throws an IllegalArgumentException if the parameters, the number of chains or the iterations between syncs are not valid
+     */
+    public static SimulatedAnnealingSolution runParallelChains(
+            ProblemScenario problemScenario,
+            SimulatedAnnealingParameters parameters,
+            int numberOfChains,
+            int iterationsBetweenSyncs,
+            TerminationPolicy terminationPolicy,
+            SplittableRandom random,
+            boolean showProgressMessages) throws Exception {
+        parameters.validate();
+        if (numberOfChains < 1)
+            throw new IllegalArgumentException("numberOfChains must be at least 1: " + numberOfChains);
+        if (iterationsBetweenSyncs < 0)
+            throw new IllegalArgumentException("iterationsBetweenSyncs must be at least 0 (0 = no syncs): " + iterationsBetweenSyncs);
+
+        System.out.println("\n#################################");
+        System.out.println("### -- The Great Annealings -- ###");
+        System.out.println("#################################");
+        System.out.println("ScenarioName: " + problemScenario.getName() + "\t" + "OptimalSolution: " + problemScenario.getOptimalSolutionValue());
+        System.out.println("NumberOfWarehouses: " + problemScenario.getWarehouseLocations().length + "\t" + "NumberOfCustomers: " + problemScenario.getCustomers().length);
+        System.out.println("NumberOfChains: " + numberOfChains + "\t" + "IterationsBetweenSyncs: " + iterationsBetweenSyncs);
+        System.out.println("#################################");
+
+        //Saves stating time (after the target cost, that may need the lower bound of the scenario)
+        double targetCost = terminationPolicy.calculateTargetCost(problemScenario);
+        long startTime = System.currentTimeMillis();
+
+        //Creates the chains, each with its own random generator split from the given one and its own termination tracker
+        SimulatedAnnealingSolution[] chains = new SimulatedAnnealingSolution[numberOfChains];
+        SplittableRandom[] chainRandoms = RandomStreams.split(random, numberOfChains);
+        TerminationPolicy.Tracker[] chainTerminationTrackers = new TerminationPolicy.Tracker[numberOfChains];
+        for (int k = 0; k < numberOfChains; k++) {
+            chains[k] = new SimulatedAnnealingSolution(problemScenario, parameters, chainRandoms[k]);
+            chainTerminationTrackers[k] = terminationPolicy.start(targetCost, startTime);
+        }
+
+        //Runs each chain in its own thread
+        SharedBestSolution sharedBestSolution = new SharedBestSolution();
+        ExecutorService chainsExecutor = Executors.newFixedThreadPool(numberOfChains);
+        SimulatedAnnealingSolution[] chainBestSolutions = new SimulatedAnnealingSolution[numberOfChains];
+        try {
+            List<Callable<SimulatedAnnealingSolution>> chainTasks = new ArrayList<>();
+            for (int k = 0; k < numberOfChains; k++) {
+                SimulatedAnnealingSolution chain = chains[k];
+                SplittableRandom chainRandom = chainRandoms[k];
+                TerminationPolicy.Tracker chainTerminationTracker = chainTerminationTrackers[k];
+                chainTasks.add(() -> chain.anneal(chainTerminationTracker, chainRandom, sharedBestSolution, iterationsBetweenSyncs, false));
             }
+            List<Future<SimulatedAnnealingSolution>> chainResults = chainsExecutor.invokeAll(chainTasks);
+            for (int k = 0; k < numberOfChains; k++)
+                chainBestSolutions[k] = chainResults.get(k).get();
+        } finally {
+            chainsExecutor.shutdown();
         }
-        //With all the changes done, returns the changedStateArray
-        return changedStateArray;
+
+        //Gets the best solution of all the chains and prints the statistics of each one
+        SimulatedAnnealingSolution bestStateSolution = chainBestSolutions[0];
+        for (int k = 0; k < numberOfChains; k++) {
+            if (chainBestSolutions[k].currentSolutionCost < bestStateSolution.currentSolutionCost)
+                bestStateSolution = chainBestSolutions[k];
+            System.out.println("Chain " + k + ": "
+                    + "BestCost: " + String.format("%.3f", chainBestSolutions[k].currentSolutionCost) + "\t"
+                    + "CurrentTemperature: " + String.format("%.3f", chains[k].currentTemperature) + "\t"
+                    + "Iterations: " + chains[k].iterationCounter + "\t"
+                    + "AcceptedChanges: " + chains[k].acceptedChangesCounter + "\t"
+                    + "SharedBestAdoptions: " + chains[k].sharedBestAdoptionsCounter + "\t"
+                    + "Reheats: " + chains[k].coolingSchedule.getReheatsCounter() + "\t"
+                    + "StopReason: " + chainTerminationTrackers[k].getStopReason());
+        }
+
+        System.out.println("CompilationTime(ms): " + (System.currentTimeMillis() - startTime) + " milliseconds");
+        System.out.println("BestSolution: " + bestStateSolution.toString());
+        System.out.println("OptimalRatio: " + String.format("%.5f", (problemScenario.getOptimalSolutionValue()/bestStateSolution.currentSolutionCost)));
+        if (problemScenario.getOptimalSolutionValue() < 0)
+            System.out.println("LowerBoundGap: " + String.format("%.5f", problemScenario.calculateLowerBoundGap(bestStateSolution.currentSolutionCost) * 100) + "%");
+        if (problemScenario.isOptimalSolutionCost(bestStateSolution.currentSolutionCost))
+            System.out.println("U GOT THE OPTIMAL SOLUTION!");
+        System.out.println("#################################");
+
+        return bestStateSolution;
     }
 
     /**
-     * Changes a Solution
+     * Runs a replica exchange (parallel tempering): N replicas, one thread each, every one at a fixed temperature of a ladder
+     * from minimumTemperature to maximumTemperature (no cooling)
+     * Every X iterations each replica tries to exchange its temperature with the next hotter replica (Metropolis criterion),
+     * so good states move down to the cold temperatures and stuck states move up to the hot ones
+     * Stops after numberOfIterationsPerReplica iterations, the time budget (50 seconds by default), or when the optimal solution is found
+     * Returns the best solution of all the replicas
      */
-    private void changeSolution(double chanceOfIndividualStateChange) throws Exception {
-        //Changes the currentStateArray
-        this.currentStateArray = SimulatedAnnealingSolution.changeStateArray(this.currentStateArray, chanceOfIndividualStateChange);
-        //Updates the cost
-        this.calculateTotalCost();
+    public static SimulatedAnnealingSolution runParallelTempering(
+            ProblemScenario problemScenario,
+            int numberOfReplicas,
+            double minimumTemperature,
+            double maximumTemperature,
+            int iterationsBetweenSwaps,
+            int numberOfIterationsPerReplica,
+            boolean showProgressMessages) throws Exception {
+        return SimulatedAnnealingSolution.runParallelTempering(problemScenario, new SimulatedAnnealingParameters(), numberOfReplicas, minimumTemperature,
+                maximumTemperature, iterationsBetweenSwaps, numberOfIterationsPerReplica, new TerminationPolicy(), showProgressMessages);
     }
 
     /**
-     * Runs the simulation and finds the optimal solution (or a good one )
-     * Can't be static because we use the "initial solution" that may be random or not ...
+     * Runs a replica exchange with the moves of the given parameters (the temperatures come from the ladder, not from the schedule),
+     * each replica stops after numberOfIterationsPerReplica iterations, when the termination policy stops it,
+     * or when the best solution shared by the replicas reaches the target of the policy
      */
-    public SimulatedAnnealingSolution run(boolean showProgressMessages) throws Exception {
+    public static SimulatedAnnealingSolution runParallelTempering(
+            ProblemScenario problemScenario,
+            SimulatedAnnealingParameters parameters,
+            int numberOfReplicas,
+            double minimumTemperature,
+            double maximumTemperature,
+            int iterationsBetweenSwaps,
+            int numberOfIterationsPerReplica,
+            TerminationPolicy terminationPolicy,
+            boolean showProgressMessages) throws Exception {
+        return SimulatedAnnealingSolution.runParallelTempering(problemScenario, parameters, numberOfReplicas, minimumTemperature, maximumTemperature,
+                iterationsBetweenSwaps, numberOfIterationsPerReplica, terminationPolicy, new RandomStreams().split(), showProgressMessages);
+    }
+
+    /**
+     * Runs a replica exchange, each replica with its own stream split from the given one (see RandomStreams)
+     * The swaps depend on when each replica gets to them, so the runs are not reproduced exactly
+     * Throws an IllegalArgumentException if the parameters or the ladder (replicas, temperatures, iterations between swaps) are not valid
+     */
+    public static SimulatedAnnealingSolution runParallelTempering(
+            ProblemScenario problemScenario,
+            SimulatedAnnealingParameters parameters,
+            int numberOfReplicas,
+            double minimumTemperature,
+            double maximumTemperature,
+            int iterationsBetweenSwaps,
+            int numberOfIterationsPerReplica,
+            TerminationPolicy terminationPolicy,
+            SplittableRandom random,
+            boolean showProgressMessages) throws Exception {
+        parameters.validate();
+        if (numberOfReplicas < 1)
+            throw new IllegalArgumentException("numberOfReplicas must be at least 1: " + numberOfReplicas);
+        if (!(minimumTemperature > 0) || !(minimumTemperature <= maximumTemperature) || Double.isInfinite(maximumTemperature))
+            throw new IllegalArgumentException("The temperatures must be 0 < minimumTemperature <= maximumTemperature (finite): " + minimumTemperature + " - " + maximumTemperature);
+        if (iterationsBetweenSwaps < 1)
+            throw new IllegalArgumentException("iterationsBetweenSwaps must be at least 1: " + iterationsBetweenSwaps);
 
         System.out.println("\n#################################");
-        System.out.println("### -- The Great Annealing -- ###");
+        System.out.println("### -- The Great Tempering -- ###");
         System.out.println("#################################");
         System.out.println("ScenarioName: " + problemScenario.getName() + "\t" + "OptimalSolution: " + problemScenario.getOptimalSolutionValue());
         System.out.println("NumberOfWarehouses: " + problemScenario.getWarehouseLocations().length + "\t" + "NumberOfCustomers: " + problemScenario.getCustomers().length);
+        System.out.println("NumberOfReplicas: " + numberOfReplicas + "\t" + "Temperatures: " + minimumTemperature + " - " + maximumTemperature + "\t" + "IterationsBetweenSwaps: " + iterationsBetweenSwaps);
         System.out.println("#################################");
 
-
-        //Saves stating time and creates random instance
+        //Saves stating time (after the target cost, that may need the lower bound of the scenario)
+        double targetCost = terminationPolicy.calculateTargetCost(problemScenario);
         long startTime = System.currentTimeMillis();
-        Random rand = new Random();
 
-        //Variable to store the best solution
-        SimulatedAnnealingSolution bestStateSolution = new SimulatedAnnealingSolution(this.currentStateArray);
+        //Creates the replicas, each with its own random generator split from the given one
+        SimulatedAnnealingSolution[] replicas = new SimulatedAnnealingSolution[numberOfReplicas];
+        SplittableRandom[] replicaRandoms = RandomStreams.split(random, numberOfReplicas);
+        TerminationPolicy.Tracker[] replicaTerminationTrackers = new TerminationPolicy.Tracker[numberOfReplicas];
+        for (int r = 0; r < numberOfReplicas; r++) {
+            replicas[r] = new SimulatedAnnealingSolution(problemScenario, parameters, replicaRandoms[r]);
+            replicaTerminationTrackers[r] = terminationPolicy.start(targetCost, startTime);
+        }
+
+        //Runs each replica in its own thread
+        ReplicaExchangeLadder ladder = new ReplicaExchangeLadder(numberOfReplicas, minimumTemperature, maximumTemperature);
+        SharedBestSolution sharedBestSolution = new SharedBestSolution();
+        ExecutorService replicasExecutor = Executors.newFixedThreadPool(numberOfReplicas);
+        SimulatedAnnealingSolution[] replicaBestSolutions = new SimulatedAnnealingSolution[numberOfReplicas];
+        try {
+            List<Callable<SimulatedAnnealingSolution>> replicaTasks = new ArrayList<>();
+            for (int r = 0; r < numberOfReplicas; r++) {
+                SimulatedAnnealingSolution replica = replicas[r];
+                SplittableRandom replicaRandom = replicaRandoms[r];
+                int replicaIndex = r;
+                TerminationPolicy.Tracker replicaTerminationTracker = replicaTerminationTrackers[r];
+                replicaTasks.add(() -> replica.temper(replicaTerminationTracker, replicaRandom, ladder, replicaIndex, sharedBestSolution, iterationsBetweenSwaps, numberOfIterationsPerReplica));
+            }
+            List<Future<SimulatedAnnealingSolution>> replicaResults = replicasExecutor.invokeAll(replicaTasks);
+            for (int r = 0; r < numberOfReplicas; r++)
+                replicaBestSolutions[r] = replicaResults.get(r).get();
+        } finally {
+            replicasExecutor.shutdown();
+        }
 
-        //Iteration counter
-        int iterationCounter = 0;
+        //Gets the best solution of all the replicas and prints the statistics of each one
+        SimulatedAnnealingSolution bestStateSolution = replicaBestSolutions[0];
+        for (int r = 0; r < numberOfReplicas; r++) {
+            if (replicaBestSolutions[r].currentSolutionCost < bestStateSolution.currentSolutionCost)
+                bestStateSolution = replicaBestSolutions[r];
+            if (showProgressMessages) {
+                System.out.println("Replica " + r + ": "
+                        + "BestCost: " + String.format("%.3f", replicaBestSolutions[r].currentSolutionCost) + "\t"
+                        + "FinalTemperature: " + String.format("%.3f", ladder.getTemperature(r)) + "\t"
+                        + "Iterations: " + replicas[r].iterationCounter + "\t"
+                        + "AcceptedChanges: " + replicas[r].acceptedChangesCounter + "\t"
+                        + "StopReason: " + replicaTerminationTrackers[r].getStopReason());
+            }
+        }
 
-        //Runs simulation while temperature > 1 && time < maxRunDuration && current solution != optimal one
-        while (currentTemperature > 1 && (System.currentTimeMillis() - startTime) <= maxRunDuration
-                && !(String.format("%.2f", currentSolutionCost)).equals(String.format("%.2f", problemScenario.getOptimalSolutionValue()))
-        ) {
+        System.out.println("AttemptedSwaps: " + ladder.getAttemptedSwapsCounter() + "\t" + "AcceptedSwaps: " + ladder.getAcceptedSwapsCounter());
+        System.out.println("CompilationTime(ms): " + (System.currentTimeMillis() - startTime) + " milliseconds");
+        System.out.println("BestSolution: " + bestStateSolution.toString());
+        System.out.println("OptimalRatio: " + String.format("%.5f", (problemScenario.getOptimalSolutionValue()/bestStateSolution.currentSolutionCost)));
+        if (problemScenario.getOptimalSolutionValue() < 0)
+            System.out.println("LowerBoundGap: " + String.format("%.5f", problemScenario.calculateLowerBoundGap(bestStateSolution.currentSolutionCost) * 100) + "%");
+        if (problemScenario.isOptimalSolutionCost(bestStateSolution.currentSolutionCost))
+            System.out.println("U GOT THE OPTIMAL SOLUTION!");
+        System.out.println("#################################");
 
-            //Create nextState solution from the current one
-            SimulatedAnnealingSolution nextStateSolution = new SimulatedAnnealingSolution(this.currentStateArray);
-            //Change it
-            nextStateSolution.changeSolution(chanceOfIndividualPointStateChange);
+        return bestStateSolution;
+    }
 
-            //Calculate costDifferences (negative value is GOOD (the changed state has a cost that is LOWER than the current one))
-            double costDifference = nextStateSolution.getCurrentSolutionCost() - this.currentSolutionCost;
+    /**
+     * The loop of one replica of a parallel tempering run, changes this solution (the current state) at the temperature
+     * the ladder gives to the replica, and returns the best state found
+     */
+    private SimulatedAnnealingSolution temper(
+            TerminationPolicy.Tracker terminationTracker,
+            RandomGenerator rand,
+            ReplicaExchangeLadder ladder,
+            int replicaIndex,
+            SharedBestSolution sharedBestSolution,
+            int iterationsBetweenSwaps,
+            int numberOfIterations) throws Exception {
+
+        //The best state found, preallocated (copied over when a better one is found)
+        BitSolution bestState = new BitSolution(this.currentState);
+        double bestStateCost = this.currentSolutionCost;
+
+        //The engine holds the current state, makes the moves and updates the cost incrementally on each change
+        AnnealingMoveEngine moveEngine = this.makeMoveEngine();
+        ladder.publishCurrentCost(replicaIndex, this.currentSolutionCost);
+
+        //Counters
+        this.iterationCounter = 0;
+        this.acceptedChangesCounter = 0;
+
+        //Runs while iterations < numberOfIterations && the termination policy doesn't stop it && nobody reached the target
+        boolean targetReached = false;
+        while (iterationCounter < numberOfIterations && !targetReached && !terminationTracker.shouldStop(bestStateCost)) {
+
+            //Change the current state at the temperature of the slot of the replica
+            this.currentTemperature = ladder.getTemperature(replicaIndex);
+            if (this.tryMove(moveEngine, this.currentTemperature, rand)) {
+                ladder.publishCurrentCost(replicaIndex, this.currentSolutionCost);
+                //If it is a new best solution, then make the best solution, the current one
+                if (this.currentSolutionCost < bestStateCost) {
+                    bestState.copyFrom(this.currentState);
+                    bestStateCost = this.currentSolutionCost;
+                }
+            }
 
-            //If the changed cost is lower, or if the worse cost is "acceptable" ... then make it the current one
-            if (costDifference < 0 || Math.exp(-costDifference / currentTemperature) > rand.nextDouble()) {
-                //Make the current solution the changed one (use deep copy)
-                this.currentStateArray = SimulatedAnnealingSolution.generateCurrentStateArrayDeepCopy(nextStateSolution.getCurrentSolutionArray());
-                this.calculateTotalCost();
+            //Every once in a while try to exchange temperatures with the next hotter replica
+            iterationCounter++;
+            terminationTracker.countEvaluations(1);
+            terminationTracker.countIteration(bestStateCost);
+            if ((iterationCounter % iterationsBetweenSwaps) == 0) {
+                ladder.trySwapWithHotterReplica(replicaIndex, rand);
+                sharedBestSolution.offer(bestState, bestStateCost);
+                targetReached = terminationTracker.isTargetReached(sharedBestSolution.getBestSolutionCost());
+            }
+        }
+
+        sharedBestSolution.offer(bestState, bestStateCost);
+        return new SimulatedAnnealingSolution(problemScenario, parameters, bestState);
+    }
+
+    /**
+     * The annealing loop, changes this solution (the current state) and returns the best state found
+     * If there is a sharedBestSolution, every iterationsBetweenSyncs iterations the best state is offered to it
+     * and the current state jumps to the shared best one when it is cheaper
+     */
+    private SimulatedAnnealingSolution anneal(
+            TerminationPolicy.Tracker terminationTracker,
+            RandomGenerator rand,
+            SharedBestSolution sharedBestSolution,
+            int iterationsBetweenSyncs,
+            boolean showProgressMessages) throws Exception {
+
+        //The best state found, preallocated (copied over when a better one is found)
+        BitSolution bestState = new BitSolution(this.currentState);
+        double bestStateCost = this.currentSolutionCost;
+
+        //The engine holds the current state, makes the moves and updates the cost incrementally on each change
+        AnnealingMoveEngine moveEngine = this.makeMoveEngine();
+        BitSolution sharedBestState = new BitSolution(this.currentState.length());
+
+        //The cooling schedule of this run, with the temperatures calibrated for the scenario (from the initial state) if the parameters ask for it
+        this.coolingSchedule = new CoolingSchedule(parameters, terminationTracker);
+        if (parameters.isCalibrateTemperatures())
+            coolingSchedule.calibrateTemperatures(moveEngine, rand);
+        this.currentTemperature = coolingSchedule.getTemperature();
+
+        //Counters
+        this.iterationCounter = 0;
+        this.acceptedChangesCounter = 0;
+        this.sharedBestAdoptionsCounter = 0;
+
+        //Runs simulation while the schedule isn't frozen && the termination policy doesn't stop it (time, evaluations, target gap or stagnation)
+        while (!coolingSchedule.isFrozen() && !terminationTracker.shouldStop(bestStateCost)) {
+
+            //Change the current state, if the change is kept and it is a new best solution
+            boolean moveAccepted = this.tryMove(moveEngine, currentTemperature, rand);
+            if (moveAccepted && this.currentSolutionCost < bestStateCost) {
+                //Then make the best solution, the current one
+                bestState.copyFrom(this.currentState);
+                bestStateCost = this.currentSolutionCost;
+            }
 
-                //If it is a new best solution
-                if (this.currentSolutionCost < bestStateSolution.getCurrentSolutionCost()) {
-                    //Then make the best solution, the current one
-                    bestStateSolution = new SimulatedAnnealingSolution(this.currentStateArray);
+            //Every once in a while sync with the other chains
+            if (sharedBestSolution != null && iterationsBetweenSyncs > 0 && (iterationCounter % iterationsBetweenSyncs) == 0) {
+                sharedBestSolution.offer(bestState, bestStateCost);
+                if (sharedBestSolution.getBestSolutionCost() < this.currentSolutionCost) {
+                    //Another chain found something better, continue from there
+                    sharedBestSolution.copyBestSolution(sharedBestState);
+                    moveEngine.loadSolution(sharedBestState);
+                    this.currentSolutionCost = moveEngine.getCurrentSolutionCost();
+                    this.sharedBestAdoptionsCounter++;
+                    if (this.currentSolutionCost < bestStateCost) {
+                        bestState.copyFrom(this.currentState);
+                        bestStateCost = this.currentSolutionCost;
+                    }
                 }
             }
 
             //Print Progress every once in a while
             if ((iterationCounter % 40) == 0 && showProgressMessages) {
                 System.out.println("\n#################################");
-                System.out.println("CurrentTemperature: " + String.format("%.3f", this.currentTemperature) + "\t" + "CompilationTime(ms): " + (System.currentTimeMillis() - startTime) + " milliseconds");
-                System.out.println("BestSolution: " + bestStateSolution.toString());
-                System.out.println("OptimalRatio: " + String.format("%.5f", (problemScenario.getOptimalSolutionValue()/bestStateSolution.currentSolutionCost)));
+                System.out.println("CurrentTemperature: " + String.format("%.3f", this.currentTemperature) + "\t" + "CompilationTime(ms): " + terminationTracker.getElapsedTime() + " milliseconds");
+                System.out.println("BestSolutionCost: " + String.format("%.3f", bestStateCost));
+                System.out.println("OptimalRatio: " + String.format("%.5f", (problemScenario.getOptimalSolutionValue()/bestStateCost)));
                 System.out.println("#################################");
             }
 
-            //Decrease temperature //Increase counter
+            //Increase counter //The schedule lowers (or reheats) the temperature after the moves of this temperature,
+            //and each temperature is an iteration of the policy
             iterationCounter++;
-            this.currentTemperature *= coolingRate;
+            terminationTracker.countEvaluations(1);
+            long temperaturesCounter = coolingSchedule.getTemperaturesCounter();
+            coolingSchedule.countMove(moveAccepted, bestStateCost);
+            if (coolingSchedule.getTemperaturesCounter() != temperaturesCounter)
+                terminationTracker.countIteration(bestStateCost);
+            this.currentTemperature = coolingSchedule.getTemperature();
         }
-        //returns Best Solution
 
-        System.out.println("CurrentTemperature: " + String.format("%.3f", this.currentTemperature) + "\t" + "CompilationTime(ms): " + (System.currentTimeMillis() - startTime) + " milliseconds");
-        System.out.println("BestSolution: " + bestStateSolution.toString());
-        System.out.println("OptimalRatio: " + String.format("%.5f", (problemScenario.getOptimalSolutionValue()/bestStateSolution.currentSolutionCost)));
-        if ((String.format("%.2f", bestStateSolution.currentSolutionCost)).equals(String.format("%.2f", problemScenario.getOptimalSolutionValue())))
-            System.out.println("U GOT THE OPTIMAL SOLUTION!");
-        System.out.println("#################################");
+        //Leaves the best state found by this chain to the others
+        if (sharedBestSolution != null)
+            sharedBestSolution.offer(bestState, bestStateCost);
 
-        return bestStateSolution;
+        return new SimulatedAnnealingSolution(problemScenario, parameters, bestState);
     }
 
+    /**
+     * Makes the move engine of a run: it takes over the current state (this.currentState becomes the state of its evaluator)
+     */
+    private AnnealingMoveEngine makeMoveEngine() {
+        UflpEvaluator evaluator = new UflpEvaluator(problemScenario);
+        evaluator.loadSolution(this.currentState);
+        this.currentState = evaluator.getCurrentSolution();
+        return new AnnealingMoveEngine(evaluator, parameters);
+    }
 
     @Override
     public String toString() {
         return "SimulatedAnnealingAlgorithm{" +
                 "currentSolutionCost=" + String.format("%.3f", currentSolutionCost) +
                 //", currentTemperature=" + currentTemperature +
-                ", currentSolutionArray=" + Arrays.toString(currentStateArray) +
+                ", currentSolutionArray=" + currentState.toString() +
                 '}';
     }
 }
@@ -0,0 +1,159 @@
+package Classes;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The parameters of a run: genetic algorithm, simulated annealing, termination policy and the seed of the random numbers
+ * Read from a properties file, one key per parameter (geneticAlgorithm.chanceOfGeneMutation=0.2, simulatedAnnealing.coolingRate=0.995,
+ * termination.maxRunDuration=50000, random.seed=42...), the parameters without a key keep their default values
+ * (without random.seed each configuration gets a new random seed, logged so the run can be reproduced)
+ * A key with a known prefix but an unknown name is an error (it is probably misspelled), keys with other prefixes are ignored
+ */
+public class SolverConfiguration {
+
+    private final static String randomPropertiesPrefix = "random.";
+
+    private final GeneticAlgorithmParameters geneticAlgorithmParameters;
+    private final SimulatedAnnealingParameters simulatedAnnealingParameters;
+    private final TerminationPolicy terminationPolicy;
+    private long randomSeed; //seed of the RandomStreams of the solvers
+
+    /**
+     * Makes the default configuration
+     */
+    public SolverConfiguration() {
+        this.geneticAlgorithmParameters = new GeneticAlgorithmParameters();
+        this.simulatedAnnealingParameters = new SimulatedAnnealingParameters();
+        this.terminationPolicy = new TerminationPolicy();
+        this.randomSeed = RandomStreams.generateSeed();
+    }
+
+    /**
+     * Makes a deep copy of the given configuration
+     */
+    public SolverConfiguration(SolverConfiguration solverConfigurationToDeepCopy) {
+        this.geneticAlgorithmParameters = new GeneticAlgorithmParameters(solverConfigurationToDeepCopy.geneticAlgorithmParameters);
+        this.simulatedAnnealingParameters = new SimulatedAnnealingParameters(solverConfigurationToDeepCopy.simulatedAnnealingParameters);
+        this.terminationPolicy = new TerminationPolicy(solverConfigurationToDeepCopy.terminationPolicy);
+        this.randomSeed = solverConfigurationToDeepCopy.randomSeed;
+    }
+
+    public GeneticAlgorithmParameters getGeneticAlgorithmParameters() {
+        return geneticAlgorithmParameters;
+    }
+
+    public SimulatedAnnealingParameters getSimulatedAnnealingParameters() {
+        return simulatedAnnealingParameters;
+    }
+
+    public TerminationPolicy getTerminationPolicy() {
+        return terminationPolicy;
+    }
+
+    public long getRandomSeed() {
+        return randomSeed;
+    }
+
+    public SolverConfiguration setRandomSeed(long randomSeed) {
+        this.randomSeed = randomSeed;
+        return this;
+    }
+
+    /**
+     * Makes the random streams of a run with this configuration (the same ones on each call)
+     */
+    public RandomStreams makeRandomStreams() {
+        return new RandomStreams(randomSeed);
+    }
+
+    /**
+     * Reads a configuration from a properties file (the missing parameters keep their default values)
+     */
+    public static SolverConfiguration ReadConfigurationFromFile(Path configurationFilePath) throws IOException {
+        SolverConfiguration solverConfiguration = new SolverConfiguration();
+        solverConfiguration.ReadFromProperties(SolverConfiguration.ReadPropertiesFromFile(configurationFilePath));
+        solverConfiguration.validate();
+        Logger.WriteMessage("Read the solver configuration " + configurationFilePath + ": " + solverConfiguration);
+        return solverConfiguration;
+    }
+
+    /**
+     * Sets the parameters that have a key in the properties, the others keep their values
+     * Throws an IllegalArgumentException if a value can't be parsed or a key of a solver is unknown
+     */
+    public void ReadFromProperties(Properties properties) {
+        ParameterProperties parameterProperties = new ParameterProperties(properties);
+        geneticAlgorithmParameters.ReadFromProperties(parameterProperties);
+        simulatedAnnealingParameters.ReadFromProperties(parameterProperties);
+        terminationPolicy.ReadFromProperties(parameterProperties);
+        randomSeed = parameterProperties.readLong(randomPropertiesPrefix, "seed", randomSeed);
+
+        //Misspelled keys would be silently ignored, report them
+        Set<String> unknownKeys = new TreeSet<>();
+        unknownKeys.addAll(parameterProperties.findUnreadKeys(GeneticAlgorithmParameters.getPropertiesPrefix()));
+        unknownKeys.addAll(parameterProperties.findUnreadKeys(SimulatedAnnealingParameters.getPropertiesPrefix()));
+        unknownKeys.addAll(parameterProperties.findUnreadKeys(TerminationPolicy.getPropertiesPrefix()));
+        unknownKeys.addAll(parameterProperties.findUnreadKeys(randomPropertiesPrefix));
+        if (!unknownKeys.isEmpty())
+            throw new IllegalArgumentException("Unknown parameters: " + unknownKeys);
+    }
+
+    /**
+     * Writes all the parameters to the properties
+     */
+    public void WriteToProperties(Properties properties) {
+        ParameterProperties parameterProperties = new ParameterProperties(properties);
+        geneticAlgorithmParameters.WriteToProperties(parameterProperties);
+        simulatedAnnealingParameters.WriteToProperties(parameterProperties);
+        terminationPolicy.WriteToProperties(parameterProperties);
+        parameterProperties.write(randomPropertiesPrefix, "seed", randomSeed);
+    }
+
+    /**
+     * Writes all the parameters to a properties file (a template to change)
+     */
+    public void WriteConfigurationToFile(Path configurationFilePath) throws IOException {
+        Properties properties = new Properties();
+        this.WriteToProperties(properties);
+        try (Writer writer = Files.newBufferedWriter(configurationFilePath, StandardCharsets.UTF_8)) {
+            properties.store(writer, "Solver configuration (geneticAlgorithm.*, simulatedAnnealing.*, termination.*, random.seed)");
+        }
+    }
+
+    /**
+     * Throws an IllegalArgumentException if the parameters of a solver are not valid
+     */
+    public void validate() {
+        geneticAlgorithmParameters.validate();
+        simulatedAnnealingParameters.validate();
+    }
+
+    /**
+     * Reads a properties file (UTF-8)
+     */
+    public static Properties ReadPropertiesFromFile(Path propertiesFilePath) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(propertiesFilePath, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        return properties;
+    }
+
+    @Override
+    public String toString() {
+        return "SolverConfiguration{" +
+                geneticAlgorithmParameters +
+                ", " + simulatedAnnealingParameters +
+                ", " + terminationPolicy +
+                ", randomSeed=" + randomSeed +
+                '}';
+    }
+}
@@ -0,0 +1,292 @@
+package Classes;
+
+/**
+ * When a solver stops: the same rules for all the solvers, configured per run (so each family of scenarios can get its own budget)
+ * A run stops at the first of:
+ *   the wall clock budget (maxRunDuration, milliseconds)
+ *   the evaluation budget (maxEvaluations, solutions evaluated or moves tried, whatever the solver counts)
+ *   the target gap: the best cost is within targetGap (relative) or costTolerance (absolute) of the optimal solution,
+ *   or of the lower bound when the optimal solution is unknown and targetGap > 0
+ *   stagnation: maxIterationsWithoutImprovement iterations (generations, temperatures, moves...) without a better best cost
+ * The policy only holds the configuration, each run (or chain) starts its own Tracker, and the checks of a Tracker don't allocate
+ */
+public class TerminationPolicy {
+
+    /**
+     * Why a run stopped
+     */
+    public enum StopReason {
+        NONE, //still running, or stopped by the solver itself (no more improvements, max generations...)
+        TIME_BUDGET,
+        EVALUATION_BUDGET,
+        TARGET_REACHED,
+        STAGNATION
+    }
+
+    private final static String propertiesPrefix = "termination.";
+    private final static long defaultMaxRunDuration = 50000; //milliseconds
+    private final static double defaultCostTolerance = 0.005; //same as comparing the costs rounded to 2 decimal cases
+    final static double minimumImprovement = 1e-6; //smaller improvements don't reset the stagnation counter
+
+    private long maxRunDuration = defaultMaxRunDuration;
+    private long maxEvaluations = Long.MAX_VALUE;
+    private double targetGap = 0;
+    private double costTolerance = defaultCostTolerance;
+    private long maxIterationsWithoutImprovement = Long.MAX_VALUE;
+
+    /**
+     * Makes the default policy: 50 seconds, or until the optimal solution is found
+     */
+    public TerminationPolicy() {
+    }
+
+    /**
+     * Makes a copy of the given policy
+     */
+    public TerminationPolicy(TerminationPolicy terminationPolicyToCopy) {
+        this.maxRunDuration = terminationPolicyToCopy.maxRunDuration;
+        this.maxEvaluations = terminationPolicyToCopy.maxEvaluations;
+        this.targetGap = terminationPolicyToCopy.targetGap;
+        this.costTolerance = terminationPolicyToCopy.costTolerance;
+        this.maxIterationsWithoutImprovement = terminationPolicyToCopy.maxIterationsWithoutImprovement;
+    }
+
+    public long getMaxRunDuration() {
+        return maxRunDuration;
+    }
+
+    public TerminationPolicy setMaxRunDuration(long maxRunDuration) {
+        this.maxRunDuration = maxRunDuration;
+        return this;
+    }
+
+    public long getMaxEvaluations() {
+        return maxEvaluations;
+    }
+
+    public TerminationPolicy setMaxEvaluations(long maxEvaluations) {
+        this.maxEvaluations = maxEvaluations;
+        return this;
+    }
+
+    public double getTargetGap() {
+        return targetGap;
+    }
+
+    /**
+     * Stops when (best cost - optimal cost) / optimal cost <= targetGap (0.01 = within 1% of the optimal solution)
+     */
+    public TerminationPolicy setTargetGap(double targetGap) {
+        this.targetGap = targetGap;
+        return this;
+    }
+
+    public double getCostTolerance() {
+        return costTolerance;
+    }
+
+    /**
+     * Stops when best cost - optimal cost <= costTolerance (rounding errors of the incremental costs)
+     */
+    public TerminationPolicy setCostTolerance(double costTolerance) {
+        this.costTolerance = costTolerance;
+        return this;
+    }
+
+    public long getMaxIterationsWithoutImprovement() {
+        return maxIterationsWithoutImprovement;
+    }
+
+    public TerminationPolicy setMaxIterationsWithoutImprovement(long maxIterationsWithoutImprovement) {
+        this.maxIterationsWithoutImprovement = maxIterationsWithoutImprovement;
+        return this;
+    }
+
+    /**
+     * Starts a run of the given scenario now
+     * The target cost is calculated first, so the time of the lower bound (if it is needed) is not taken from the budget of the run
+     */
+    public Tracker start(ProblemScenario problemScenario) {
+        double targetCost = calculateTargetCost(problemScenario);
+        return new Tracker(this, targetCost, System.currentTimeMillis());
+    }
+
+    /**
+     * Starts a run of the given scenario that started at startTime (chains of the same run share the time budget)
+     */
+    public Tracker start(ProblemScenario problemScenario, long startTime) {
+        return new Tracker(this, calculateTargetCost(problemScenario), startTime);
+    }
+
+    /**
+     * Starts a run with a target cost calculated before its startTime (see calculateTargetCost)
+     */
+    Tracker start(double targetCost, long startTime) {
+        return new Tracker(this, targetCost, startTime);
+    }
+
+    /**
+     * Cost a solution must reach to stop the run, -infinity if there is no target
+     * The lower bound is only used (and calculated, once per scenario) when the optimal solution is unknown and there is a target gap
+     */
+    double calculateTargetCost(ProblemScenario problemScenario) {
+        double referenceCost;
+        if (problemScenario.getOptimalSolutionValue() >= 0)
+            referenceCost = problemScenario.getOptimalSolutionValue();
+        else if (targetGap > 0)
+            referenceCost = problemScenario.getLowerBound();
+        else
+            return Double.NEGATIVE_INFINITY;
+        return Math.max(referenceCost * (1 + targetGap), referenceCost + costTolerance);
+    }
+
+    /**
+     * Sets the budgets that have a key in the properties (termination.name), the others keep their values
+     */
+    void ReadFromProperties(ParameterProperties parameterProperties) {
+        maxRunDuration = parameterProperties.readLong(propertiesPrefix, "maxRunDuration", maxRunDuration);
+        maxEvaluations = parameterProperties.readLong(propertiesPrefix, "maxEvaluations", maxEvaluations);
+        targetGap = parameterProperties.readDouble(propertiesPrefix, "targetGap", targetGap);
+        costTolerance = parameterProperties.readDouble(propertiesPrefix, "costTolerance", costTolerance);
+        maxIterationsWithoutImprovement = parameterProperties.readLong(propertiesPrefix, "maxIterationsWithoutImprovement", maxIterationsWithoutImprovement);
+    }
+
+    /**
+     * Writes all the budgets to the properties (termination.name)
+     */
+    void WriteToProperties(ParameterProperties parameterProperties) {
+        parameterProperties.write(propertiesPrefix, "maxRunDuration", maxRunDuration);
+        parameterProperties.write(propertiesPrefix, "maxEvaluations", maxEvaluations);
+        parameterProperties.write(propertiesPrefix, "targetGap", targetGap);
+        parameterProperties.write(propertiesPrefix, "costTolerance", costTolerance);
+        parameterProperties.write(propertiesPrefix, "maxIterationsWithoutImprovement", maxIterationsWithoutImprovement);
+    }
+
+    static String getPropertiesPrefix() {
+        return propertiesPrefix;
+    }
+
+    @Override
+    public String toString() {
+        return "TerminationPolicy{" +
+                "maxRunDuration=" + maxRunDuration +
+                (maxEvaluations == Long.MAX_VALUE ? "" : ", maxEvaluations=" + maxEvaluations) +
+                ", targetGap=" + targetGap +
+                ", costTolerance=" + costTolerance +
+                (maxIterationsWithoutImprovement == Long.MAX_VALUE ? "" : ", maxIterationsWithoutImprovement=" + maxIterationsWithoutImprovement) +
+                '}';
+    }
+
+    /**
+     * State of one run (or one chain) of a policy: its deadline, target cost and counters
+     * Not thread safe, each thread starts its own (isTimeUp and isTargetReached only read, they can be shared)
+     */
+    public static class Tracker {
+        private final long startTime;
+        private final long deadline;
+        private final long maxRunDuration;
+        private final long maxEvaluations;
+        private final double targetCost;
+        private final long maxIterationsWithoutImprovement;
+
+        private long evaluationsCounter = 0;
+        private long iterationsWithoutImprovementCounter = 0;
+        private double bestCost = Double.POSITIVE_INFINITY;
+        private StopReason stopReason = StopReason.NONE;
+
+        private Tracker(TerminationPolicy terminationPolicy, double targetCost, long startTime) {
+            this.startTime = startTime;
+            this.deadline = (terminationPolicy.maxRunDuration > Long.MAX_VALUE - startTime) ? Long.MAX_VALUE : startTime + terminationPolicy.maxRunDuration;
+            this.maxRunDuration = terminationPolicy.maxRunDuration;
+            this.maxEvaluations = terminationPolicy.maxEvaluations;
+            this.targetCost = targetCost;
+            this.maxIterationsWithoutImprovement = terminationPolicy.maxIterationsWithoutImprovement;
+        }
+
+        /**
+         * Adds the evaluations made by the solver
+         */
+        public void countEvaluations(long numberOfEvaluations) {
+            evaluationsCounter += numberOfEvaluations;
+        }
+
+        /**
+         * Ends an iteration of the solver with the best cost found so far (resets the stagnation counter if it improved)
+         */
+        public void countIteration(double bestSolutionCost) {
+            if (bestSolutionCost < bestCost - minimumImprovement) {
+                bestCost = bestSolutionCost;
+                iterationsWithoutImprovementCounter = 0;
+            } else {
+                iterationsWithoutImprovementCounter++;
+            }
+        }
+
+        /**
+         * True (and saves the reason) if the run must stop with this best cost
+         */
+        public boolean shouldStop(double bestSolutionCost) {
+            if (isTargetReached(bestSolutionCost))
+                stopReason = StopReason.TARGET_REACHED;
+            else if (evaluationsCounter >= maxEvaluations)
+                stopReason = StopReason.EVALUATION_BUDGET;
+            else if (iterationsWithoutImprovementCounter >= maxIterationsWithoutImprovement)
+                stopReason = StopReason.STAGNATION;
+            else if (isTimeUp())
+                stopReason = StopReason.TIME_BUDGET;
+            else
+                return false;
+            return true;
+        }
+
+        /**
+         * True if the cost is within the target gap of the optimal solution
+         */
+        public boolean isTargetReached(double solutionCost) {
+            return solutionCost <= targetCost;
+        }
+
+        public boolean isTimeUp() {
+            return System.currentTimeMillis() > deadline;
+        }
+
+        /**
+         * True if the run has a time or an evaluation budget (it can't run forever)
+         */
+        public boolean hasBudget() {
+            return deadline != Long.MAX_VALUE || maxEvaluations != Long.MAX_VALUE;
+        }
+
+        /**
+         * Fraction of the budget used (0 to 1): the larger of the time and the evaluation fractions, 0 if the run has no budget
+         */
+        public double getUsedBudgetFraction() {
+            double usedBudgetFraction = 0;
+            if (deadline != Long.MAX_VALUE)
+                usedBudgetFraction = (maxRunDuration > 0) ? (double) getElapsedTime() / maxRunDuration : 1;
+            if (maxEvaluations != Long.MAX_VALUE)
+                usedBudgetFraction = Math.max(usedBudgetFraction, (maxEvaluations > 0) ? (double) evaluationsCounter / maxEvaluations : 1);
+            return Math.min(usedBudgetFraction, 1);
+        }
+
+        public long getStartTime() {
+            return startTime;
+        }
+
+        public long getDeadline() {
+            return deadline;
+        }
+
+        public long getElapsedTime() {
+            return System.currentTimeMillis() - startTime;
+        }
+
+        public long getEvaluationsCounter() {
+            return evaluationsCounter;
+        }
+
+        public StopReason getStopReason() {
+            return stopReason;
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package Classes;
+
+/**
+ * Incremental cost evaluator of a UFLP solution (bit i = 1 if the warehouse i is open) of a ProblemScenario
+ * For each customer it keeps the open warehouse it is assigned to (the cheapest one) and the second cheapest open warehouse,
+ * so the cost of opening or closing a single warehouse is known in O(customers) without recalculating the whole solution
+ * Not thread safe, use one evaluator per thread
+ */
+public class UflpEvaluator {
+
+    //Every this number of flips the totals are recalculated to drop the accumulated rounding errors
+    private final static int flipsBetweenCostRecalculations = 4096;
+
+    private final ProblemScenario problemScenario;
+    private final int numberOfWarehouseLocations;
+    private final int numberOfCustomers;
+    private final double[] fixedCosts;
+    private final double[] allocationCosts;
+    private final int[] sortedWarehousePreferences;
+
+    private final BitSolution solution;
+    private final int[] assignedWarehouse; // j from customer, cheapest open warehouse (-1 if all closed)
+    private final int[] secondBestWarehouse; // j from customer, second cheapest open warehouse (-1 if there is none)
+    private int numberOfOpenWarehouses;
+    private double totalFixedCost;
+    private double totalAllocationCost;
+    private int flipsSinceCostRecalculation;
+
+    /**
+     * Makes an evaluator with all the warehouses closed
+     */
+    public UflpEvaluator(ProblemScenario problemScenario) {
+        this.problemScenario = problemScenario;
+        this.numberOfWarehouseLocations = problemScenario.getNumberOfWarehouseLocations();
+        this.numberOfCustomers = problemScenario.getNumberOfCustomers();
+        this.fixedCosts = problemScenario.getFixedCosts();
+        this.allocationCosts = problemScenario.getAllocationCosts();
+        this.sortedWarehousePreferences = problemScenario.getSortedWarehousePreferences();
+        this.solution = new BitSolution(numberOfWarehouseLocations);
+        this.assignedWarehouse = new int[numberOfCustomers];
+        this.secondBestWarehouse = new int[numberOfCustomers];
+        this.loadSolution(this.solution);
+    }
+
+    public ProblemScenario getProblemScenario() {
+        return problemScenario;
+    }
+
+    /**
+     * The current solution
+     * The solution is owned by the evaluator, don't change it (use the flip methods)
+     */
+    public BitSolution getCurrentSolution() {
+        return solution;
+    }
+
+    public int getNumberOfOpenWarehouses() {
+        return numberOfOpenWarehouses;
+    }
+
+    public int getAssignedWarehouse(int customerJ) {
+        return assignedWarehouse[customerJ];
+    }
+
+    public int getSecondBestWarehouse(int customerJ) {
+        return secondBestWarehouse[customerJ];
+    }
+
+    /**
+     * Total cost of the current solution (POSITIVE_INFINITY if all the warehouses are closed)
+     */
+    public double getCurrentSolutionCost() {
+        if (numberOfOpenWarehouses == 0)
+            return Double.POSITIVE_INFINITY;
+        return totalFixedCost + totalAllocationCost;
+    }
+
+    /**
+     * Replaces the current solution with a copy of the given one and rebuilds the assignments (full recalculation)
+     */
+    public void loadSolution(BitSolution newSolution) {
+        if (newSolution != this.solution)
+            this.solution.copyFrom(newSolution);
+        //Number of open warehouses
+        numberOfOpenWarehouses = solution.countOpenWarehouses();
+        //Best and second best open warehouse of each customer
+        for (int j = 0; j < numberOfCustomers; j++) {
+            assignedWarehouse[j] = findCheapestOpenWarehouse(j, -1);
+            secondBestWarehouse[j] = (assignedWarehouse[j] == -1) ? -1 : findCheapestOpenWarehouse(j, assignedWarehouse[j]);
+        }
+        recalculateTotalCosts();
+    }
+
+    /**
+     * Cost of the solution we would get by flipping (opening or closing) the warehouse i, without changing anything
+     */
+    public double getCostAfterFlip(int warehouseLocationI) {
+        if (solution.isOpen(warehouseLocationI))
+            return getCostAfterClose(warehouseLocationI);
+        return getCostAfterOpen(warehouseLocationI);
+    }
+
+    /**
+     * Cost delta (new cost - current cost) of flipping the warehouse i (negative is GOOD)
+     */
+    public double getFlipCostDelta(int warehouseLocationI) {
+        return getCostAfterFlip(warehouseLocationI) - getCurrentSolutionCost();
+    }
+
+    /**
+     * Cost delta (new cost - current cost) of closing the open warehouse i and opening the closed warehouse k at the same time
+     * (negative is GOOD), without changing anything
+     * Each customer ends up in the cheapest of the new warehouse and the best open warehouse that is not i: O(customers)
+     */
+    public double getSwapCostDelta(int closedWarehouseLocationI, int openedWarehouseLocationK) {
+        double allocationCostDelta = 0;
+        for (int j = 0; j < numberOfCustomers; j++) {
+            int rowOffset = j * numberOfWarehouseLocations;
+            int keptWarehouse = (assignedWarehouse[j] == closedWarehouseLocationI) ? secondBestWarehouse[j] : assignedWarehouse[j];
+            double newCostOfAllocation = allocationCosts[rowOffset + openedWarehouseLocationK];
+            if (keptWarehouse != -1 && allocationCosts[rowOffset + keptWarehouse] < newCostOfAllocation)
+                newCostOfAllocation = allocationCosts[rowOffset + keptWarehouse];
+            allocationCostDelta += newCostOfAllocation - allocationCosts[rowOffset + assignedWarehouse[j]];
+        }
+        return fixedCosts[openedWarehouseLocationK] - fixedCosts[closedWarehouseLocationI] + allocationCostDelta;
+    }
+
+    private double getCostAfterOpen(int warehouseLocationI) {
+        double newTotalCost = totalFixedCost + fixedCosts[warehouseLocationI];
+        //If all the warehouses are closed, every customer goes to the new one
+        if (numberOfOpenWarehouses == 0) {
+            for (int j = 0; j < numberOfCustomers; j++)
+                newTotalCost += allocationCosts[j * numberOfWarehouseLocations + warehouseLocationI];
+            return newTotalCost;
+        }
+        //Otherwise only the customers that are cheaper to serve from the new warehouse change
+        double allocationCostDelta = 0;
+        for (int j = 0; j < numberOfCustomers; j++) {
+            int rowOffset = j * numberOfWarehouseLocations;
+            double costDifference = allocationCosts[rowOffset + warehouseLocationI] - allocationCosts[rowOffset + assignedWarehouse[j]];
+            if (costDifference < 0)
+                allocationCostDelta += costDifference;
+        }
+        return newTotalCost + totalAllocationCost + allocationCostDelta;
+    }
+
+    private double getCostAfterClose(int warehouseLocationI) {
+        //Closing the last open warehouse leaves the customers without a warehouse
+        if (numberOfOpenWarehouses == 1)
+            return Double.POSITIVE_INFINITY;
+        //Only the customers assigned to the closed warehouse change, to their second best one
+        double allocationCostDelta = 0;
+        for (int j = 0; j < numberOfCustomers; j++) {
+            if (assignedWarehouse[j] == warehouseLocationI) {
+                int rowOffset = j * numberOfWarehouseLocations;
+                allocationCostDelta += allocationCosts[rowOffset + secondBestWarehouse[j]] - allocationCosts[rowOffset + warehouseLocationI];
+            }
+        }
+        return totalFixedCost - fixedCosts[warehouseLocationI] + totalAllocationCost + allocationCostDelta;
+    }
+
+    /**
+     * Flips (opens or closes) the warehouse i and updates the assignments
+     */
+    public void flipWarehouse(int warehouseLocationI) {
+        if (solution.isOpen(warehouseLocationI))
+            closeWarehouse(warehouseLocationI);
+        else
+            openWarehouse(warehouseLocationI);
+    }
+
+    /**
+     * Opens the warehouse i (if it is closed) and updates the assignments
+     */
+    public void openWarehouse(int warehouseLocationI) {
+        if (solution.isOpen(warehouseLocationI))
+            return;
+        solution.open(warehouseLocationI);
+        numberOfOpenWarehouses++;
+        totalFixedCost += fixedCosts[warehouseLocationI];
+
+        for (int j = 0; j < numberOfCustomers; j++) {
+            int rowOffset = j * numberOfWarehouseLocations;
+            double newCostOfAllocation = allocationCosts[rowOffset + warehouseLocationI];
+            if (assignedWarehouse[j] == -1) {
+                //First open warehouse
+                assignedWarehouse[j] = warehouseLocationI;
+                totalAllocationCost += newCostOfAllocation;
+            } else if (newCostOfAllocation < allocationCosts[rowOffset + assignedWarehouse[j]]) {
+                //New best, the old best becomes the second best
+                totalAllocationCost += newCostOfAllocation - allocationCosts[rowOffset + assignedWarehouse[j]];
+                secondBestWarehouse[j] = assignedWarehouse[j];
+                assignedWarehouse[j] = warehouseLocationI;
+            } else if (secondBestWarehouse[j] == -1 || newCostOfAllocation < allocationCosts[rowOffset + secondBestWarehouse[j]]) {
+                //New second best
+                secondBestWarehouse[j] = warehouseLocationI;
+            }
+        }
+        countFlip();
+    }
+
+    /**
+     * Closes the warehouse i (if it is open) and updates the assignments
+     */
+    public void closeWarehouse(int warehouseLocationI) {
+        if (!solution.isOpen(warehouseLocationI))
+            return;
+        solution.close(warehouseLocationI);
+        numberOfOpenWarehouses--;
+        totalFixedCost -= fixedCosts[warehouseLocationI];
+
+        for (int j = 0; j < numberOfCustomers; j++) {
+            if (assignedWarehouse[j] == warehouseLocationI) {
+                //The second best becomes the best, and we look for a new second best
+                int rowOffset = j * numberOfWarehouseLocations;
+                int newAssignedWarehouse = secondBestWarehouse[j];
+                totalAllocationCost -= allocationCosts[rowOffset + warehouseLocationI];
+                if (newAssignedWarehouse != -1)
+                    totalAllocationCost += allocationCosts[rowOffset + newAssignedWarehouse];
+                assignedWarehouse[j] = newAssignedWarehouse;
+                secondBestWarehouse[j] = (newAssignedWarehouse == -1) ? -1 : findCheapestOpenWarehouse(j, newAssignedWarehouse);
+            } else if (secondBestWarehouse[j] == warehouseLocationI) {
+                //Only the second best changes
+                secondBestWarehouse[j] = findCheapestOpenWarehouse(j, assignedWarehouse[j]);
+            }
+        }
+        countFlip();
+    }
+
+    /**
+     * Returns the cheapest open warehouse of the customer j that is not the excluded one (-1 if there is none)
+     */
+    private int findCheapestOpenWarehouse(int customerJ, int excludedWarehouseLocationI) {
+        int rowOffset = customerJ * numberOfWarehouseLocations;
+        for (int k = rowOffset; k < rowOffset + numberOfWarehouseLocations; k++) {
+            int warehouseLocationI = sortedWarehousePreferences[k];
+            if (solution.isOpen(warehouseLocationI) && warehouseLocationI != excludedWarehouseLocationI)
+                return warehouseLocationI;
+        }
+        return -1;
+    }
+
+    private void countFlip() {
+        flipsSinceCostRecalculation++;
+        if (flipsSinceCostRecalculation >= flipsBetweenCostRecalculations)
+            recalculateTotalCosts();
+    }
+
+    private void recalculateTotalCosts() {
+        double newTotalFixedCost = 0;
+        for (int i = 0; i < numberOfWarehouseLocations; i++) {
+            if (solution.isOpen(i))
+                newTotalFixedCost += fixedCosts[i];
+        }
+        totalFixedCost = newTotalFixedCost;
+        double newTotalAllocationCost = 0;
+        for (int j = 0; j < numberOfCustomers; j++) {
+            if (assignedWarehouse[j] != -1)
+                newTotalAllocationCost += allocationCosts[j * numberOfWarehouseLocations + assignedWarehouse[j]];
+        }
+        totalAllocationCost = newTotalAllocationCost;
+        flipsSinceCostRecalculation = 0;
+    }
+}
@@ -5,12 +5,24 @@ public class WarehouseLocation {
     private int capacity;
     private double fixedCost;
 
+    //Scenario fixedCosts array this warehouse is a view of (null if the warehouse owns its fixedCost)
+    private double[] fixedCosts;
+
     public WarehouseLocation(int i, int capacity, double fixedCost) {
         this.i = i;
         this.capacity = capacity;
         this.fixedCost = fixedCost;
     }
 
+    /**
+     * Makes a read only view of the warehouse i of a scenario fixedCosts array
+     */
+    public WarehouseLocation(int i, int capacity, double[] fixedCosts) {
+        this.i = i;
+        this.capacity = capacity;
+        this.fixedCosts = fixedCosts;
+    }
+
     //Method to make a deep copy of the given warehouseLocation
     public WarehouseLocation(WarehouseLocation warehouseLocationToDeepCopy) {
         this.i = warehouseLocationToDeepCopy.getI();
@@ -35,10 +47,14 @@ public class WarehouseLocation {
     }
 
     public double getFixedCost() {
+        if (fixedCosts != null)
+            return fixedCosts[i];
         return fixedCost;
     }
 
     public void setFixedCost(double fixedCost) {
+        if (fixedCosts != null)
+            throw new UnsupportedOperationException("WarehouseLocation is a read only view of the scenario fixedCosts");
         this.fixedCost = fixedCost;
     }
 
@@ -47,7 +63,7 @@ public class WarehouseLocation {
         return "WarehouseLocation{" +
                 "i=" + i +
                 ", capacity=" + capacity +
-                ", fixedCost=" + fixedCost +
+                ", fixedCost=" + getFixedCost() +
                 '}';
     }
 }
@@ -1,5 +1,16 @@
 import Classes.*;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
 public class Main {
     public static void main(String[] args) throws Exception {
 
@@ -15,46 +26,103 @@ public class Main {
         String pathMs = "\\ProblemScenariosData\\M\\";
 
 
-        //Read the problem scenarios data
-        ProblemScenarios problemScenarios = new ProblemScenarios();
-        problemScenarios.ReadScenariosFromDir(path70s); // <-- Change the path to read the scenarios from here
-
         boolean feedGreedyNonOptimalSolutionsToTheSimulatedAnnealing = false;
+        boolean improveGreedySolutionsWithLocalSearch = true; //DROP and SWAP moves after the greedy algorithm (milliseconds)
+        boolean solveScenariosWithBranchAndBound = true; //Exact solver, proves the optimal solution (or a gap when the time is up)
+        boolean evaluateGeneticAlgorithmPopulationsInParallel = true; //All the cores, unless the configuration sets geneticAlgorithm.evaluationThreads
+        boolean solveScenariosInParallel = false; //One scenario per core (the messages of the scenarios get mixed in the console)
+        boolean useBinaryScenarioCache = true; //Read the scenarios from .bin files next to the text ones (made on the first run)
+        int numberOfScenarioLoaderThreads = 4;
+
+        //Parameters of the solvers and when each one stops (time budget, evaluation budget, target gap, stagnation)
+        //Read from Configurations/solver.properties, the default ones if there is no file
+        Path solverConfigurationFilePath = Paths.get(System.getProperty("user.dir"), "Configurations", "solver.properties");
+        SolverConfiguration solverConfiguration = Files.isRegularFile(solverConfigurationFilePath)
+                ? SolverConfiguration.ReadConfigurationFromFile(solverConfigurationFilePath)
+                : new SolverConfiguration();
+        System.out.println("RandomSeed: " + solverConfiguration.getRandomSeed()); //random.seed in the configuration to run it again
+
+        //Read the problem scenarios data (in the background, each scenario is solved as soon as it is loaded)
+        ProblemScenarios problemScenarios = new ProblemScenarios();
+        problemScenarios.setUseBinaryCache(useBinaryScenarioCache);
+        Stream<ProblemScenario> loadedProblemScenarios = problemScenarios.StreamScenariosFromDir(path70s, numberOfScenarioLoaderThreads); // <-- Change the path to read the scenarios from here
 
+        //Calculate the costs of each genetic algorithm population using all the cores (not when the cores already solve a scenario each)
+        GeneticAlgorithmParameters geneticAlgorithmParameters = solverConfiguration.getGeneticAlgorithmParameters();
+        if (evaluateGeneticAlgorithmPopulationsInParallel && !solveScenariosInParallel && geneticAlgorithmParameters.getEvaluationThreads() == 0)
+            geneticAlgorithmParameters.setEvaluationThreads(Runtime.getRuntime().availableProcessors());
 
-        for (ProblemScenario problemScenario : problemScenarios.getProblemScenarios()) {
-            System.out.println("\n##################################################################");
-            System.out.println("###################\t" + "Problem: " + problemScenario.getName() + "\t########################");
-            System.out.println("##################################################################");
-
-            //Solve the scenario with the Genetic Algorithm
-            GeneticAlgorithmSolution.setProblemScenario(problemScenario);
-            GeneticAlgorithmSolution.runEvolution(false);
-
-
-            //Get a good solution with the GreedyAlgorithm
-            GreedyAlgorithmSolution.setProblemScenario(problemScenario);
-            GreedyAlgorithmSolution bestGreedySolution = GreedyAlgorithmSolution.run(false);
 
+        if (!solveScenariosInParallel) {
+            for (ProblemScenario problemScenario : (Iterable<ProblemScenario>) loadedProblemScenarios::iterator)
+                solveProblemScenario(problemScenario, solverConfiguration, feedGreedyNonOptimalSolutionsToTheSimulatedAnnealing, improveGreedySolutionsWithLocalSearch, solveScenariosWithBranchAndBound);
+            return;
+        }
 
-            //If the solution from the greedy algorithm is different from the optimal one, feed it to the SimulatedAnnealing
-            if (bestGreedySolution.getCurrentSolutionCost() != problemScenario.getOptimalSolutionValue()
-                    && feedGreedyNonOptimalSolutionsToTheSimulatedAnnealing) {
-                //Solve the scenario with the SimulatedAnnealingAlgorithm // With the GREEDY sub optimal solution
-                System.out.println("Feeding non optimal greedy solution to SimulatedAnnealing algorithm");
-                SimulatedAnnealingSolution.setProblemScenario(problemScenario);
-                SimulatedAnnealingSolution instance = new SimulatedAnnealingSolution(bestGreedySolution.getCurrentSolutionArray());
-                instance.run(false);
-            } else {
-                //Solve the scenario with the SimulatedAnnealingAlgorithm // With RANDOM initial solution
-                SimulatedAnnealingSolution.setProblemScenario(problemScenario);
-                SimulatedAnnealingSolution instance = new SimulatedAnnealingSolution();
-                instance.run(false);
+        //Each solver owns its scenario, so the scenarios can be solved at the same time, one per worker
+        ExecutorService scenariosExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try {
+            //Each scenario starts as soon as it is loaded
+            List<Future<Void>> scenarioResults = new ArrayList<>();
+            for (ProblemScenario problemScenario : (Iterable<ProblemScenario>) loadedProblemScenarios::iterator) {
+                scenarioResults.add(scenariosExecutor.submit(() -> {
+                    solveProblemScenario(problemScenario, solverConfiguration, feedGreedyNonOptimalSolutionsToTheSimulatedAnnealing, improveGreedySolutionsWithLocalSearch, solveScenariosWithBranchAndBound);
+                    return null;
+                }));
             }
+            //Wait for all of them (get() rethrows the errors of the solvers)
+            for (Future<Void> scenarioResult : scenarioResults)
+                scenarioResult.get();
+        } finally {
+            scenariosExecutor.shutdown();
+        }
+    }
 
-
+    /**
+     * Solves a scenario with each algorithm
+     */
+    private static void solveProblemScenario(ProblemScenario problemScenario, SolverConfiguration solverConfiguration, boolean feedGreedyNonOptimalSolutionsToTheSimulatedAnnealing,
+                                             boolean improveGreedySolutionsWithLocalSearch, boolean solveScenariosWithBranchAndBound) throws Exception {
+        System.out.println("\n##################################################################");
+        System.out.println("###################\t" + "Problem: " + problemScenario.getName() + "\t########################");
+        System.out.println("##################################################################");
+        TerminationPolicy terminationPolicy = solverConfiguration.getTerminationPolicy();
+        //The random numbers of each solver come from the seed of the run and the name of the scenario (same ones in any order)
+        RandomStreams scenarioRandomStreams = solverConfiguration.makeRandomStreams().forScenario(problemScenario);
+
+        //Solve the scenario with the Genetic Algorithm
+        GeneticAlgorithmSolution.runEvolution(problemScenario, solverConfiguration.getGeneticAlgorithmParameters(), terminationPolicy, scenarioRandomStreams.split(), false);
+
+
+        //Get a good solution with the GreedyAlgorithm
+        GreedyAlgorithmSolution bestGreedySolution = GreedyAlgorithmSolution.run(problemScenario, terminationPolicy, false);
+        BitSolution bestGreedySolutionFound = bestGreedySolution.getCurrentSolution();
+        double bestGreedySolutionCost = bestGreedySolution.getCurrentSolutionCost();
+
+        //Improve it with the local search (close and swap warehouses until no move lowers the cost)
+        if (improveGreedySolutionsWithLocalSearch) {
+            LocalSearchSolution bestLocalSearchSolution = LocalSearchSolution.run(problemScenario, bestGreedySolutionFound, terminationPolicy, false);
+            bestGreedySolutionFound = bestLocalSearchSolution.getCurrentSolution();
+            bestGreedySolutionCost = bestLocalSearchSolution.getCurrentSolutionCost();
         }
 
 
+        //If the solution from the greedy algorithm is different from the optimal one, feed it to the SimulatedAnnealing
+        if (bestGreedySolutionCost != problemScenario.getOptimalSolutionValue()
+                && feedGreedyNonOptimalSolutionsToTheSimulatedAnnealing) {
+            //Solve the scenario with the SimulatedAnnealingAlgorithm // With the GREEDY sub optimal solution
+            System.out.println("Feeding non optimal greedy solution to SimulatedAnnealing algorithm");
+            SimulatedAnnealingSolution instance = new SimulatedAnnealingSolution(problemScenario, solverConfiguration.getSimulatedAnnealingParameters(), bestGreedySolutionFound);
+            instance.run(terminationPolicy, scenarioRandomStreams.split(), false);
+        } else {
+            //Solve the scenario with the SimulatedAnnealingAlgorithm // With RANDOM initial solution
+            SplittableRandom simulatedAnnealingRandom = scenarioRandomStreams.split();
+            SimulatedAnnealingSolution instance = new SimulatedAnnealingSolution(problemScenario, solverConfiguration.getSimulatedAnnealingParameters(), simulatedAnnealingRandom);
+            instance.run(terminationPolicy, simulatedAnnealingRandom, false);
+        }
+
+        //Solve the scenario exactly with the BranchAndBound (dual ascent bounds)
+        if (solveScenariosWithBranchAndBound)
+            BranchAndBoundSolution.run(problemScenario, terminationPolicy, false);
     }
 }
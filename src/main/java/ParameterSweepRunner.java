@@ -0,0 +1,22 @@
+import Classes.*;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Runs a parameter sweep (see ParameterSweep for the format of the sweep file)
+ * The argument is the sweep file, relative to the project directory (Configurations/sweep-orlib.properties by default)
+ */
+public class ParameterSweepRunner {
+    public static void main(String[] args) throws Exception {
+
+        //Sweep file
+        String sweepFilePartialPath = (args.length > 0) ? args[0] : "Configurations/sweep-orlib.properties";
+        Path sweepFilePath = Paths.get(System.getProperty("user.dir")).resolve(sweepFilePartialPath);
+
+        //Read it (any error in the parameters shows up before anything runs) and run it
+        ParameterSweep parameterSweep = ParameterSweep.ReadSweepFromFile(sweepFilePath);
+        parameterSweep.run();
+        Logger.flush();
+    }
+}
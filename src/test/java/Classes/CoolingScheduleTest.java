@@ -0,0 +1,62 @@
+package Classes;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the temperatures calibrated from states where some moves close every open warehouse (infinite cost delta)
+ */
+class CoolingScheduleTest {
+
+    private static ProblemScenario readCap71() {
+        ProblemScenario problemScenario = new ProblemScenario("cap71", -1);
+        problemScenario.ReadScenarioFromFile(Paths.get("ProblemScenariosData", "ORLIB", "ORLIB-uncap", "70", "cap71.txt"));
+        return problemScenario;
+    }
+
+    /**
+     * Calibrates a schedule of the parameters from the state with the given open warehouses
+     */
+    private static CoolingSchedule calibrate(ProblemScenario problemScenario, SimulatedAnnealingParameters parameters, int... openWarehouses) {
+        BitSolution solution = new BitSolution(problemScenario.getNumberOfWarehouseLocations());
+        for (int i : openWarehouses)
+            solution.open(i);
+        UflpEvaluator evaluator = new UflpEvaluator(problemScenario);
+        evaluator.loadSolution(solution);
+        AnnealingMoveEngine moveEngine = new AnnealingMoveEngine(evaluator, parameters);
+        CoolingSchedule coolingSchedule = new CoolingSchedule(parameters, new TerminationPolicy().start(problemScenario));
+        coolingSchedule.calibrateTemperatures(moveEngine, new SplittableRandom(24));
+        assertEquals(solution, evaluator.getCurrentSolution(), "the calibration moves are all rejected");
+        return coolingSchedule;
+    }
+
+    @Test
+    void calibrationFromOneOpenWarehouse() {
+        //Every FLIP opens a warehouse (a better solution) or closes the open one (infinite delta): no finite worse move
+        ProblemScenario problemScenario = readCap71();
+        SimulatedAnnealingParameters parameters = new SimulatedAnnealingParameters()
+                .setOnlyMoveType(AnnealingMoveEngine.MoveType.FLIP).setCalibrateTemperatures(true);
+        CoolingSchedule coolingSchedule = calibrate(problemScenario, parameters, 7);
+        assertEquals(parameters.getInitialTemperature(), coolingSchedule.getInitialTemperature(), coolingSchedule.toString());
+        assertEquals(parameters.getFinalTemperature(), coolingSchedule.getFinalTemperature(), coolingSchedule.toString());
+        assertFalse(coolingSchedule.isFrozen());
+    }
+
+    @Test
+    void calibrationWithSomeInfiniteDeltas() {
+        //Some K_FLIPs (size 3) close the 3 open warehouses, the others are calibrated as usual
+        ProblemScenario problemScenario = readCap71();
+        SimulatedAnnealingParameters parameters = new SimulatedAnnealingParameters()
+                .setOnlyMoveType(AnnealingMoveEngine.MoveType.K_FLIP).setKFlipSize(3).setCalibrateTemperatures(true);
+        CoolingSchedule coolingSchedule = calibrate(problemScenario, parameters, 0, 1, 2);
+        assertTrue(Double.isFinite(coolingSchedule.getInitialTemperature()), coolingSchedule.toString());
+        assertTrue(coolingSchedule.getFinalTemperature() > 0, coolingSchedule.toString());
+        assertTrue(coolingSchedule.getInitialTemperature() > coolingSchedule.getFinalTemperature(), coolingSchedule.toString());
+        assertNotEquals(parameters.getInitialTemperature(), coolingSchedule.getInitialTemperature());
+        assertFalse(coolingSchedule.isFrozen());
+    }
+}
@@ -0,0 +1,84 @@
+package Classes;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that the double buffered generations breed whole populations, also when the pairs of the crossover leave a solution out
+ */
+class GeneticAlgorithmSolutionTest {
+
+    /**
+     * Random scenario with enough warehouses that no random or crossed chromosome has them all closed
+     */
+    private static ProblemScenario makeRandomScenario(int numberOfWarehouseLocations, int numberOfCustomers, long seed) {
+        SplittableRandom rand = new SplittableRandom(seed);
+        int[] capacities = new int[numberOfWarehouseLocations];
+        double[] fixedCosts = new double[numberOfWarehouseLocations];
+        for (int i = 0; i < numberOfWarehouseLocations; i++) {
+            capacities[i] = 5000;
+            fixedCosts[i] = 5000 + rand.nextInt(10000);
+        }
+        int[] demands = new int[numberOfCustomers];
+        double[] allocationCosts = new double[numberOfCustomers * numberOfWarehouseLocations];
+        for (int j = 0; j < numberOfCustomers; j++) {
+            demands[j] = 1 + rand.nextInt(1000);
+            for (int i = 0; i < numberOfWarehouseLocations; i++)
+                allocationCosts[j * numberOfWarehouseLocations + i] = rand.nextInt(100000) / 10.0;
+        }
+        ProblemScenario problemScenario = new ProblemScenario("random", -1);
+        problemScenario.setScenarioData(capacities, fixedCosts, demands, allocationCosts, null);
+        return problemScenario;
+    }
+
+    /**
+     * Odd number of non elite selected solutions (7 - 2) and of solutions added by the crossover (12 - 7)
+     */
+    private static GeneticAlgorithmParameters makeOddParameters() {
+        return new GeneticAlgorithmParameters()
+                .setNumberOfSolutionsPerGeneration(11)
+                .setXNumberOfBestSolutionsForSelectionFunction(7)
+                .setYNumberOfEliteNonCrossedSolutions(2)
+                .setXPopulationSizeGoalForCrossoverFunction(12)
+                .setYNumberOfEliteNonMutatedSolutions(2)
+                .setXPopulationSizeGoalForMutationFunction(13)
+                .setMaxNumberOfGenerations(5)
+                .setFitnessCacheSize(0);
+    }
+
+    @Test
+    void oddSizesBreedWholeBufferedPopulations() throws Exception {
+        ProblemScenario problemScenario = makeRandomScenario(100, 50, 1);
+        //Without mutations the population after a generation is the crossed one (and one more copy of a parent)
+        GeneticAlgorithmParameters parameters = makeOddParameters().setChanceOfSolutionMutation(0).setChanceOfGeneMutation(0);
+        GeneticAlgorithmSolution.DoubleBufferedPopulation population = new GeneticAlgorithmSolution.DoubleBufferedPopulation(problemScenario, parameters, new SplittableRandom(2));
+
+        for (int generation = 0; generation < 3; generation++) {
+            population.evolveGeneration();
+            GeneticAlgorithmSolution[] solutions = population.getPopulation();
+            assertEquals(parameters.getXPopulationSizeGoalForMutationFunction(), solutions.length);
+            for (int k = 0; k < solutions.length; k++) {
+                //A slot the crossover didn't write would still have the blank chromosome of the buffer (all closed)
+                assertTrue(solutions[k].getPackedChromosome().countOpenWarehouses() > 0, "blank solution " + k + " in generation " + generation);
+                assertEquals(problemScenario.calculateTotalCost(solutions[k].getPackedChromosome()), solutions[k].getCurrentSolutionCost());
+                if (k > 0)
+                    assertTrue(solutions[k - 1].getCurrentSolutionCost() <= solutions[k].getCurrentSolutionCost());
+            }
+        }
+    }
+
+    @Test
+    void oddSizesGiveTheSameEvolutionInBothPaths() throws Exception {
+        ProblemScenario problemScenario = makeRandomScenario(100, 50, 3);
+        TerminationPolicy terminationPolicy = new TerminationPolicy().setMaxRunDuration(Long.MAX_VALUE);
+        GeneticAlgorithmSolution bufferedBestSolution = GeneticAlgorithmSolution.runEvolution(problemScenario,
+                makeOddParameters().setUseDoubleBufferedPopulations(true), terminationPolicy, new SplittableRandom(4), false);
+        GeneticAlgorithmSolution listBestSolution = GeneticAlgorithmSolution.runEvolution(problemScenario,
+                makeOddParameters().setUseDoubleBufferedPopulations(false), terminationPolicy, new SplittableRandom(4), false);
+        assertEquals(listBestSolution.getPackedChromosome(), bufferedBestSolution.getPackedChromosome());
+        assertEquals(listBestSolution.getCurrentSolutionCost(), bufferedBestSolution.getCurrentSolutionCost());
+    }
+}
@@ -0,0 +1,113 @@
+package Classes;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that the flips of GeometricSkipSampler follow the binomial distribution of a draw per position,
+ * with the skips (chance up to 0.25) and with the draws per position (above it)
+ */
+class GeometricSkipSamplerTest {
+
+    private final static int length = 500;
+    private final static int numberOfTrials = 20000;
+    private final static double numberOfStandardErrors = 5; //the seeds are fixed, so this only has to hold for them
+
+    @Test
+    void flipCountsAreBinomial() {
+        for (double chance : new double[]{0.001, 0.01, 0.05, 0.25, 0.3, 0.9}) {
+            GeometricSkipSampler sampler = new GeometricSkipSampler(chance);
+            SplittableRandom rand = new SplittableRandom(22);
+            long[] flipsPerPosition = new long[length];
+            double sum = 0;
+            double sumOfSquares = 0;
+            for (int trial = 0; trial < numberOfTrials; trial++) {
+                BitSolution solution = new BitSolution(length);
+                int numberOfFlippedBits = sampler.flipBits(solution, rand);
+                assertEquals(solution.countOpenWarehouses(), numberOfFlippedBits);
+                for (int i = 0; i < length; i++) {
+                    if (solution.isOpen(i))
+                        flipsPerPosition[i]++;
+                }
+                sum += numberOfFlippedBits;
+                sumOfSquares += (double) numberOfFlippedBits * numberOfFlippedBits;
+            }
+
+            //Mean n p and variance n p (1 - p) of the flips of a solution
+            double expectedMean = length * chance;
+            double expectedVariance = length * chance * (1 - chance);
+            double mean = sum / numberOfTrials;
+            double variance = (sumOfSquares - numberOfTrials * mean * mean) / (numberOfTrials - 1);
+            assertEquals(expectedMean, mean, numberOfStandardErrors * Math.sqrt(expectedVariance / numberOfTrials), "mean, chance " + chance);
+            //Standard error of the sample variance: sqrt((fourth central moment - variance^2) / trials)
+            double fourthCentralMoment = expectedVariance * (1 + 3 * (length - 2) * chance * (1 - chance));
+            double varianceStandardError = Math.sqrt((fourthCentralMoment - expectedVariance * expectedVariance) / numberOfTrials);
+            assertEquals(expectedVariance, variance, numberOfStandardErrors * varianceStandardError, "variance, chance " + chance);
+
+            //Every part of the solution flips as often (blocks of 50 positions, and the first and the last positions)
+            int blockLength = 50;
+            double expectedBlockFlips = (double) numberOfTrials * blockLength * chance;
+            double blockStandardError = Math.sqrt(numberOfTrials * blockLength * chance * (1 - chance));
+            for (int block = 0; block < length; block += blockLength) {
+                long blockFlips = 0;
+                for (int i = block; i < block + blockLength; i++)
+                    blockFlips += flipsPerPosition[i];
+                assertEquals(expectedBlockFlips, blockFlips, numberOfStandardErrors * blockStandardError, "block " + block + ", chance " + chance);
+            }
+            double expectedPositionFlips = numberOfTrials * chance;
+            double positionStandardError = Math.sqrt(numberOfTrials * chance * (1 - chance));
+            assertEquals(expectedPositionFlips, flipsPerPosition[0], numberOfStandardErrors * positionStandardError + 1, "first position, chance " + chance);
+            assertEquals(expectedPositionFlips, flipsPerPosition[length - 1], numberOfStandardErrors * positionStandardError + 1, "last position, chance " + chance);
+        }
+    }
+
+    @Test
+    void chancesZeroAndOne() {
+        SplittableRandom rand = new SplittableRandom(23);
+        int[] positions = new int[length];
+
+        GeometricSkipSampler neverSampler = new GeometricSkipSampler(0);
+        BitSolution solution = new BitSolution(length);
+        assertEquals(0, neverSampler.flipBits(solution, rand));
+        assertEquals(0, solution.countOpenWarehouses());
+        assertEquals(0, neverSampler.samplePositions(length, positions, rand));
+        assertEquals(length, neverSampler.nextPosition(-1, length, rand));
+
+        GeometricSkipSampler alwaysSampler = new GeometricSkipSampler(1);
+        assertEquals(length, alwaysSampler.flipBits(solution, rand));
+        assertEquals(length, solution.countOpenWarehouses());
+        assertEquals(length, alwaysSampler.samplePositions(length, positions, rand));
+        for (int i = 0; i < length; i++)
+            assertEquals(i, positions[i]);
+        assertEquals(length, alwaysSampler.nextPosition(length - 1, length, rand));
+    }
+
+    @Test
+    void sampledPositionsAreTheFlippedBits() {
+        for (double chance : new double[]{0.02, 0.25, 0.6}) {
+            GeometricSkipSampler sampler = new GeometricSkipSampler(chance);
+            SplittableRandom sampleRand = new SplittableRandom(24);
+            SplittableRandom flipRand = new SplittableRandom(24);
+            int[] positions = new int[length];
+            for (int trial = 0; trial < 100; trial++) {
+                int numberOfPositions = sampler.samplePositions(length, positions, sampleRand);
+                BitSolution solution = new BitSolution(length);
+                assertEquals(numberOfPositions, sampler.flipBits(solution, flipRand));
+                for (int k = 0; k < numberOfPositions; k++) {
+                    assertTrue(solution.isOpen(positions[k]));
+                    if (k > 0)
+                        assertTrue(positions[k - 1] < positions[k]);
+                }
+            }
+        }
+    }
+
+    @Test
+    void invalidChancesAreErrors() {
+        for (double chance : new double[]{-0.1, 1.1, Double.NaN})
+            assertThrows(IllegalArgumentException.class, () -> new GeometricSkipSampler(chance), Double.toString(chance));
+    }
+}
@@ -0,0 +1,113 @@
+package Classes;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that a scenario read back from its ScenarioBinaryCache is the same as the one read from the text file,
+ * and that a corrupted or old cache (the text file changed) is not used
+ */
+class ScenarioBinaryCacheTest {
+
+    @TempDir
+    Path temporaryDirectory;
+
+    private Path scenarioFilePath;
+    private Path cacheFilePath;
+
+    @BeforeEach
+    void copyScenarioFile() throws IOException {
+        scenarioFilePath = temporaryDirectory.resolve("cap71.txt");
+        Files.copy(Paths.get("ProblemScenariosData", "ORLIB", "ORLIB-uncap", "70", "cap71.txt"), scenarioFilePath);
+        cacheFilePath = ScenarioBinaryCache.getCacheFilePath(scenarioFilePath);
+    }
+
+    private ProblemScenario readTextFile() {
+        ProblemScenario problemScenario = new ProblemScenario("cap71", -1);
+        problemScenario.ReadScenarioFromFile(scenarioFilePath);
+        return problemScenario;
+    }
+
+    private boolean readCacheFile() {
+        return ScenarioBinaryCache.read(scenarioFilePath, new ProblemScenario("cap71", -1));
+    }
+
+    @Test
+    void cacheRoundTrip() throws IOException {
+        assertFalse(Files.exists(cacheFilePath));
+        assertFalse(this.readCacheFile());
+
+        //The first read makes the cache, the next ones read it
+        ProblemScenario textProblemScenario = new ProblemScenario("cap71", -1);
+        textProblemScenario.ReadScenarioFromFileWithBinaryCache(scenarioFilePath);
+        assertTrue(Files.isRegularFile(cacheFilePath));
+        ProblemScenario cachedProblemScenario = new ProblemScenario("cap71", -1);
+        assertTrue(ScenarioBinaryCache.read(scenarioFilePath, cachedProblemScenario));
+        ScenarioFileTokenizerTest.assertSameScenario(this.readTextFile(), cachedProblemScenario);
+        ScenarioFileTokenizerTest.assertSameScenario(textProblemScenario, cachedProblemScenario);
+    }
+
+    @Test
+    void corruptedCacheIsNotUsed() throws IOException {
+        ScenarioBinaryCache.write(scenarioFilePath, this.readTextFile());
+        byte[] cacheBytes = Files.readAllBytes(cacheFilePath);
+
+        //A changed byte of the payload fails the CRC32
+        byte[] corruptedCacheBytes = cacheBytes.clone();
+        corruptedCacheBytes[cacheBytes.length / 2] ^= 0x10;
+        Files.write(cacheFilePath, corruptedCacheBytes);
+        assertFalse(this.readCacheFile());
+
+        //A wrong magic number
+        corruptedCacheBytes = cacheBytes.clone();
+        corruptedCacheBytes[0] ^= 0x01;
+        Files.write(cacheFilePath, corruptedCacheBytes);
+        assertFalse(this.readCacheFile());
+
+        //A cut file
+        Files.write(cacheFilePath, Arrays.copyOf(cacheBytes, cacheBytes.length - 8));
+        assertFalse(this.readCacheFile());
+        Files.write(cacheFilePath, Arrays.copyOf(cacheBytes, 20));
+        assertFalse(this.readCacheFile());
+
+        //The original one is fine, and reading through the cache makes it again after a corruption
+        Files.write(cacheFilePath, cacheBytes);
+        assertTrue(this.readCacheFile());
+        Files.write(cacheFilePath, corruptedCacheBytes);
+        new ProblemScenario("cap71", -1).ReadScenarioFromFileWithBinaryCache(scenarioFilePath);
+        assertTrue(this.readCacheFile());
+    }
+
+    @Test
+    void changedTextFileInvalidatesTheCache() throws IOException {
+        ScenarioBinaryCache.write(scenarioFilePath, this.readTextFile());
+        assertTrue(this.readCacheFile());
+        FileTime lastModifiedTime = Files.getLastModifiedTime(scenarioFilePath);
+
+        //Same content, another last modified time
+        Files.setLastModifiedTime(scenarioFilePath, FileTime.fromMillis(lastModifiedTime.toMillis() + 5000));
+        assertFalse(this.readCacheFile());
+        Files.setLastModifiedTime(scenarioFilePath, lastModifiedTime);
+        assertTrue(this.readCacheFile());
+
+        //Same last modified time, another size
+        Files.writeString(scenarioFilePath, " \n", StandardOpenOption.APPEND);
+        Files.setLastModifiedTime(scenarioFilePath, lastModifiedTime);
+        assertFalse(this.readCacheFile());
+
+        //Reading through the cache makes it again for the new text file
+        new ProblemScenario("cap71", -1).ReadScenarioFromFileWithBinaryCache(scenarioFilePath);
+        assertTrue(this.readCacheFile());
+    }
+}
@@ -0,0 +1,132 @@
+package Classes;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the numbers of ScenarioFileTokenizer against Double.parseDouble,
+ * and the scenarios it reads against the original line by line reader (ReadScenarioFromFileLineByLine)
+ */
+class ScenarioFileTokenizerTest {
+
+    @TempDir
+    Path temporaryDirectory;
+
+    private Path writeFile(String content) throws IOException {
+        Path filePath = temporaryDirectory.resolve("numbers.txt");
+        Files.writeString(filePath, content, StandardCharsets.US_ASCII);
+        return filePath;
+    }
+
+    @Test
+    void numbersAreTheSameAsParseDouble() throws IOException {
+        //Fast path (exact mantissa and power of ten) and slow path (too many digits, big exponents, subnormals)
+        String[] numbers = {
+                "0", "0.", "7500.", "58268", "-1", "+3", "6739.72500", "0.1", "214.429", "2141200.", "1.5e3", "2E-2", "-4.5E+2",
+                "9007199254740991", "9007199254740993", "123456789012345678901234567890", "12345678901234567.5",
+                "0.000000000000000000000001", "1e22", "1e23", "1e300", "4.9e-324", "1.7976931348623157e308", "3.0000000000000000001"
+        };
+        Path filePath = this.writeFile(" " + String.join(" \n\t", numbers) + " \r\n");
+        try (ScenarioFileTokenizer tokenizer = new ScenarioFileTokenizer(filePath)) {
+            for (String number : numbers)
+                assertEquals(Double.parseDouble(number), tokenizer.nextDouble(), number);
+            assertThrows(IOException.class, tokenizer::nextDouble);
+        }
+    }
+
+    /**
+     * More than a block (64 KiB) of random numbers, so some of them are split between 2 blocks
+     */
+    @Test
+    void randomNumbersAreTheSameAsParseDouble() throws IOException {
+        SplittableRandom rand = new SplittableRandom(11);
+        List<String> numbers = new ArrayList<>();
+        StringBuilder content = new StringBuilder();
+        for (int k = 0; k < 40000; k++) {
+            String number;
+            switch (rand.nextInt(4)) {
+                case 0:
+                    number = rand.nextInt(1000000) + ".";
+                    break;
+                case 1:
+                    number = String.format(Locale.ROOT, "%.5f", rand.nextDouble() * 100000);
+                    break;
+                case 2:
+                    number = String.format(Locale.ROOT, "%.3f", rand.nextDouble() * 1000);
+                    break;
+                default:
+                    number = Double.toString(rand.nextDouble() * Math.pow(10, rand.nextInt(-30, 30)));
+                    break;
+            }
+            numbers.add(number);
+            content.append(number).append((k % 7 == 6) ? " \n" : " ");
+        }
+        Path filePath = this.writeFile(content.toString());
+        try (ScenarioFileTokenizer tokenizer = new ScenarioFileTokenizer(filePath)) {
+            for (String number : numbers)
+                assertEquals(Double.parseDouble(number), tokenizer.nextDouble(), number);
+        }
+    }
+
+    @Test
+    void malformedNumbersAreErrors() throws IOException {
+        for (String content : new String[]{"12a", "e5", "1e", "-", "1.5.2", ""}) {
+            try (ScenarioFileTokenizer tokenizer = new ScenarioFileTokenizer(this.writeFile(content))) {
+                assertThrows(IOException.class, tokenizer::nextDouble, content);
+            }
+        }
+        try (ScenarioFileTokenizer tokenizer = new ScenarioFileTokenizer(this.writeFile("146. 1.5"))) {
+            assertEquals(146, tokenizer.nextInt());
+            assertThrows(IOException.class, tokenizer::nextInt);
+        }
+    }
+
+    @Test
+    void scenariosAreTheSameAsTheLineByLineReader() {
+        //Each format: ORLIB cap (warehouses with a capacity, costs over several lines), ORLIB capa-c (capacity -1, 1000 customers),
+        //and M (capacity and fixed cost per line, costs over several lines)
+        String[] scenarioFiles = {
+                "ORLIB/ORLIB-uncap/70/cap71.txt",
+                "ORLIB/ORLIB-uncap/130/cap131.txt",
+                "ORLIB/ORLIB-uncap/a-c/capa.txt",
+                "M/Kcapmo1.txt",
+                "M/Kcapmr1.txt"
+        };
+        for (String scenarioFile : scenarioFiles) {
+            Path scenarioFilePath = Paths.get("ProblemScenariosData").resolve(scenarioFile);
+            ProblemScenario tokenizedProblemScenario = new ProblemScenario(scenarioFile, -1);
+            tokenizedProblemScenario.ReadScenarioFromFile(scenarioFilePath);
+            ProblemScenario lineByLineProblemScenario = new ProblemScenario(scenarioFile, -1);
+            lineByLineProblemScenario.ReadScenarioFromFileLineByLine(scenarioFilePath);
+            assertSameScenario(lineByLineProblemScenario, tokenizedProblemScenario);
+        }
+    }
+
+    /**
+     * Same sizes, capacities, demands, costs and preferences
+     */
+    static void assertSameScenario(ProblemScenario expectedProblemScenario, ProblemScenario actualProblemScenario) {
+        String name = expectedProblemScenario.getName();
+        assertEquals(expectedProblemScenario.getNumberOfWarehouseLocations(), actualProblemScenario.getNumberOfWarehouseLocations(), name);
+        assertEquals(expectedProblemScenario.getNumberOfCustomers(), actualProblemScenario.getNumberOfCustomers(), name);
+        for (int i = 0; i < expectedProblemScenario.getNumberOfWarehouseLocations(); i++)
+            assertEquals(expectedProblemScenario.getWarehouseLocations()[i].getCapacity(), actualProblemScenario.getWarehouseLocations()[i].getCapacity(), name);
+        for (int j = 0; j < expectedProblemScenario.getNumberOfCustomers(); j++)
+            assertEquals(expectedProblemScenario.getCustomers()[j].getDemand(), actualProblemScenario.getCustomers()[j].getDemand(), name);
+        assertArrayEquals(expectedProblemScenario.getFixedCosts(), actualProblemScenario.getFixedCosts(), name);
+        assertArrayEquals(expectedProblemScenario.getAllocationCosts(), actualProblemScenario.getAllocationCosts(), name);
+        assertArrayEquals(expectedProblemScenario.getSortedWarehousePreferences(), actualProblemScenario.getSortedWarehousePreferences(), name);
+    }
+}
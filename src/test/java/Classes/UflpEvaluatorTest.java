@@ -0,0 +1,152 @@
+package Classes;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the incremental costs of UflpEvaluator against the full calculation of ProblemScenario.calculateTotalCost
+ */
+class UflpEvaluatorTest {
+
+    private final static double tolerance = 1e-6;
+
+    /**
+     * Small hand-made scenario: 6 warehouses and 8 customers, with costs that are not exact in binary (rounding errors add up)
+     */
+    static ProblemScenario makeSmallScenario() {
+        double[] fixedCosts = {7500.1, 12000.3, 9800.7, 15000.9, 6100.2, 11100.5};
+        int[] capacities = {5000, 5000, 5000, 5000, 5000, 5000};
+        int[] demands = {146, 87, 672, 1126, 839, 3010, 1045, 76};
+        double[] allocationCosts = {
+                6739.7, 10355.3, 7650.1, 5238.9, 12000.4, 8800.6,
+                3025.2, 2980.8, 1100.3, 4470.7, 3310.1, 2210.9,
+                11200.5, 9930.3, 13400.1, 7720.8, 10050.2, 12900.4,
+                22150.6, 18870.1, 25000.3, 19930.7, 14410.9, 21100.2,
+                8840.4, 12230.6, 6670.8, 9910.1, 11120.3, 7780.5,
+                60200.7, 45510.9, 52230.2, 38890.4, 49970.6, 41100.8,
+                19900.1, 25560.3, 21130.5, 17780.7, 23340.9, 20010.2,
+                1520.3, 980.5, 1330.7, 1150.9, 870.2, 1410.4
+        };
+        ProblemScenario problemScenario = new ProblemScenario("small", -1);
+        problemScenario.setScenarioData(capacities, fixedCosts, demands, allocationCosts, null);
+        return problemScenario;
+    }
+
+    @Test
+    void loadSolutionMatchesTheFullCalculation() {
+        ProblemScenario problemScenario = makeSmallScenario();
+        UflpEvaluator evaluator = new UflpEvaluator(problemScenario);
+        assertEquals(Double.POSITIVE_INFINITY, evaluator.getCurrentSolutionCost());
+
+        BitSolution solution = BitSolution.fromSolutionArray(new int[]{1, 0, 1, 0, 0, 1});
+        evaluator.loadSolution(solution);
+        assertEquals(3, evaluator.getNumberOfOpenWarehouses());
+        assertEquals(problemScenario.calculateTotalCost(solution), evaluator.getCurrentSolutionCost(), tolerance);
+        //Each customer is assigned to its cheapest open warehouse, and its second best is the next cheapest one
+        for (int j = 0; j < problemScenario.getNumberOfCustomers(); j++) {
+            int assignedWarehouse = evaluator.getAssignedWarehouse(j);
+            int secondBestWarehouse = evaluator.getSecondBestWarehouse(j);
+            assertTrue(solution.isOpen(assignedWarehouse) && solution.isOpen(secondBestWarehouse) && assignedWarehouse != secondBestWarehouse);
+            for (int i = 0; i < problemScenario.getNumberOfWarehouseLocations(); i++) {
+                if (solution.isOpen(i) && i != assignedWarehouse)
+                    assertTrue(problemScenario.getAllocationCost(j, assignedWarehouse) <= problemScenario.getAllocationCost(j, i));
+                if (solution.isOpen(i) && i != assignedWarehouse && i != secondBestWarehouse)
+                    assertTrue(problemScenario.getAllocationCost(j, secondBestWarehouse) <= problemScenario.getAllocationCost(j, i));
+            }
+        }
+    }
+
+    /**
+     * Random flips (more than 4096, so the totals are recalculated on the way), each delta checked before the flip
+     * and the cost after it checked against a full recalculation
+     */
+    @Test
+    void randomFlipsMatchTheFullCalculation() {
+        ProblemScenario problemScenario = makeSmallScenario();
+        UflpEvaluator evaluator = new UflpEvaluator(problemScenario);
+        SplittableRandom rand = new SplittableRandom(42);
+        BitSolution expectedSolution = new BitSolution(problemScenario.getNumberOfWarehouseLocations());
+
+        for (int flip = 0; flip < 10000; flip++) {
+            int warehouseLocationI = rand.nextInt(problemScenario.getNumberOfWarehouseLocations());
+            double costBefore = problemScenario.calculateTotalCost(expectedSolution);
+            expectedSolution.flip(warehouseLocationI);
+            double costAfter = problemScenario.calculateTotalCost(expectedSolution);
+
+            //Predicted cost and delta (the delta is only finite between 2 solutions with open warehouses)
+            assertCost(costAfter, evaluator.getCostAfterFlip(warehouseLocationI));
+            if (!Double.isInfinite(costBefore) && !Double.isInfinite(costAfter))
+                assertEquals(costAfter - costBefore, evaluator.getFlipCostDelta(warehouseLocationI), tolerance);
+
+            //Flipped state
+            if (rand.nextBoolean())
+                evaluator.flipWarehouse(warehouseLocationI);
+            else if (expectedSolution.isOpen(warehouseLocationI))
+                evaluator.openWarehouse(warehouseLocationI);
+            else
+                evaluator.closeWarehouse(warehouseLocationI);
+            assertEquals(expectedSolution, evaluator.getCurrentSolution());
+            assertEquals(expectedSolution.countOpenWarehouses(), evaluator.getNumberOfOpenWarehouses());
+            assertCost(costAfter, evaluator.getCurrentSolutionCost());
+        }
+    }
+
+    /**
+     * Random swaps (close an open warehouse and open a closed one), each delta checked against a full recalculation
+     */
+    @Test
+    void randomSwapsMatchTheFullCalculation() {
+        ProblemScenario problemScenario = makeSmallScenario();
+        int numberOfWarehouseLocations = problemScenario.getNumberOfWarehouseLocations();
+        UflpEvaluator evaluator = new UflpEvaluator(problemScenario);
+        evaluator.loadSolution(BitSolution.fromSolutionArray(new int[]{1, 1, 0, 0, 1, 0}));
+        SplittableRandom rand = new SplittableRandom(7);
+
+        for (int swap = 0; swap < 5000; swap++) {
+            BitSolution solution = evaluator.getCurrentSolution();
+            //Sometimes changes the number of open warehouses, to swap from 1 to 5 open warehouses
+            if (rand.nextInt(4) == 0) {
+                int warehouseLocationI = rand.nextInt(numberOfWarehouseLocations);
+                if (!solution.isOpen(warehouseLocationI) || solution.countOpenWarehouses() > 1)
+                    evaluator.flipWarehouse(warehouseLocationI);
+                if (solution.countOpenWarehouses() == numberOfWarehouseLocations)
+                    evaluator.closeWarehouse(warehouseLocationI);
+            }
+
+            //A random open warehouse to close and a random closed one to open
+            int closedWarehouseLocationI;
+            do {
+                closedWarehouseLocationI = rand.nextInt(numberOfWarehouseLocations);
+            } while (!solution.isOpen(closedWarehouseLocationI));
+            int openedWarehouseLocationK;
+            do {
+                openedWarehouseLocationK = rand.nextInt(numberOfWarehouseLocations);
+            } while (solution.isOpen(openedWarehouseLocationK));
+
+            double costBefore = problemScenario.calculateTotalCost(solution);
+            BitSolution expectedSolution = new BitSolution(solution);
+            expectedSolution.close(closedWarehouseLocationI);
+            expectedSolution.open(openedWarehouseLocationK);
+            double costAfter = problemScenario.calculateTotalCost(expectedSolution);
+            assertEquals(costAfter - costBefore, evaluator.getSwapCostDelta(closedWarehouseLocationI, openedWarehouseLocationK), tolerance);
+
+            //Half of the swaps are made (open first, so the last open warehouse can be swapped)
+            if (rand.nextBoolean()) {
+                evaluator.openWarehouse(openedWarehouseLocationK);
+                evaluator.closeWarehouse(closedWarehouseLocationI);
+                assertEquals(expectedSolution, evaluator.getCurrentSolution());
+                assertCost(costAfter, evaluator.getCurrentSolutionCost());
+            }
+        }
+    }
+
+    private static void assertCost(double expectedCost, double actualCost) {
+        if (Double.isInfinite(expectedCost))
+            assertEquals(expectedCost, actualCost);
+        else
+            assertEquals(expectedCost, actualCost, tolerance);
+    }
+}